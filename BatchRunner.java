@@ -0,0 +1,338 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a command script across many player sessions at once.
+ *
+ * A script has one command per line, the same ones a player types:
+ *
+ *   # comments and blank lines are skipped
+ *   create
+ *   login
+ *   move north
+ *   look
+ *   doing reading a book
+ *   use torch
+ *
+ * The script is parsed once into parallel instruction arrays (endpoint,
+ * argument and source line per step), so running it is a plain loop over
+ * those arrays calling the status-only {@link MidsQuest} methods, with no text
+ * handled between requests. Each session is its own MidsQuest client on a
+ * virtual thread. create and login take no argument: every session gets its
+ * own user, named after the run and the session's index, and the password
+ * given to {@link #run}.
+ *
+ * A failed step (any status but 200, or no response at all) is counted and
+ * the session goes on with the next step. The summary has, per step, the
+ * number of successes and failures and the p50/p99/max latency, and can be
+ * written out as CSV.
+ *
+ * Usage:
+ *   BatchRunner runner = BatchRunner.load(Path.of("explore.txt"));
+ *   BatchRunner.Summary summary = runner.run("http://localhost:8000", httpClient, 500, "batch-pw");
+ *   summary.writeCsv(Path.of("explore.csv"));
+ */
+public class BatchRunner {
+
+    private final MidsQuest.Endpoint[] endpoints;
+    private final String[] arguments;
+    private final int[] lines;
+
+    private BatchRunner(MidsQuest.Endpoint[] endpoints, String[] arguments, int[] lines) {
+        this.endpoints = endpoints;
+        this.arguments = arguments;
+        this.lines = lines;
+    }
+
+    /**
+     * Parses a script.
+     *
+     * @throws IllegalArgumentException if a command is unknown, is missing its
+     *                                  argument, or the script has no commands.
+     */
+    public static BatchRunner parse(String script) {
+        List<MidsQuest.Endpoint> endpoints = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        String[] rows = script.split("\r?\n");
+        for (int i = 0; i < rows.length; i++) {
+            String row = rows[i].strip();
+            if (row.isEmpty() || row.startsWith("#")) {
+                continue;
+            }
+            int space = row.indexOf(' ');
+            String command = (space < 0 ? row : row.substring(0, space)).toLowerCase();
+            String argument = space < 0 ? null : row.substring(space + 1).strip();
+            MidsQuest.Endpoint endpoint = switch (command) {
+                case "create" -> MidsQuest.Endpoint.USER;
+                case "login" -> MidsQuest.Endpoint.LOGIN;
+                case "move" -> MidsQuest.Endpoint.MOVE;
+                case "look" -> MidsQuest.Endpoint.LOOK;
+                case "doing" -> MidsQuest.Endpoint.DOING;
+                case "use" -> MidsQuest.Endpoint.USE;
+                default -> throw new IllegalArgumentException("line " + (i + 1) + ": unknown command '" + command + "'");
+            };
+            boolean takesArgument = endpoint == MidsQuest.Endpoint.MOVE || endpoint == MidsQuest.Endpoint.DOING
+                    || endpoint == MidsQuest.Endpoint.USE;
+            if (takesArgument && argument == null) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": " + command + " needs an argument");
+            }
+            if (!takesArgument && argument != null) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": " + command + " takes no argument");
+            }
+            endpoints.add(endpoint);
+            arguments.add(argument);
+            lines.add(i + 1);
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Script has no commands");
+        }
+
+        int[] lineNumbers = new int[lines.size()];
+        for (int i = 0; i < lineNumbers.length; i++) {
+            lineNumbers[i] = lines.get(i);
+        }
+        return new BatchRunner(endpoints.toArray(new MidsQuest.Endpoint[0]), arguments.toArray(new String[0]),
+                lineNumbers);
+    }
+
+    /**
+     * Reads and parses a script file (UTF-8).
+     */
+    public static BatchRunner load(Path file) throws IOException {
+        return parse(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The number of commands in the script.
+     */
+    public int stepCount() {
+        return endpoints.length;
+    }
+
+    /**
+     * Runs the script once in each of the given number of sessions, all at
+     * once, and waits for every session to finish.
+     *
+     * @param apiBaseUrl The server to run against.
+     * @param httpClient The HttpClient shared by every session.
+     * @param sessions   The number of concurrent sessions.
+     * @param password   The password of every session's user.
+     * @throws InterruptedException If interrupted while running.
+     */
+    public Summary run(String apiBaseUrl, HttpClient httpClient, int sessions, String password)
+            throws InterruptedException {
+        if (sessions <= 0) {
+            throw new IllegalArgumentException("sessions must be positive");
+        }
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        Tally tally = new Tally(endpoints.length);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                MidsQuest client = new MidsQuest(apiBaseUrl, httpClient);
+                client.setOutputSink(OutputSink.none());
+                String username = "batch_" + runId + "_" + i;
+                executor.submit(() -> {
+                    runSession(client, username, password, tally);
+                    return null;
+                });
+            }
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return tally.summary(System.nanoTime() - start);
+    }
+
+    // --- Internals ---
+
+    private void runSession(MidsQuest client, String username, String password, Tally tally)
+            throws InterruptedException {
+        for (int step = 0; step < endpoints.length; step++) {
+            String argument = arguments[step];
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = switch (endpoints[step]) {
+                    case USER -> client.createUser(username, password);
+                    case LOGIN -> client.login(username, password);
+                    case MOVE -> client.move(argument);
+                    case LOOK -> client.look();
+                    case DOING -> client.setDoing(argument);
+                    case USE -> client.useItem(argument);
+                };
+            } catch (IOException e) {
+                status = 0;
+            }
+            tally.record(step, System.nanoTime() - start, status);
+        }
+    }
+
+    /**
+     * @return The step as written in a script, e.g. "move north".
+     */
+    private String command(int step) {
+        String name = switch (endpoints[step]) {
+            case USER -> "create";
+            case LOGIN -> "login";
+            case MOVE -> "move";
+            case LOOK -> "look";
+            case DOING -> "doing";
+            case USE -> "use";
+        };
+        return arguments[step] == null ? name : name + " " + arguments[step];
+    }
+
+    /**
+     * Per-step outcomes, shared by the running sessions.
+     */
+    private final class Tally {
+        final LatencyHistogram[] latencies;
+        final LongAdder[] failures;
+        final LongAdder[] unanswered;
+
+        Tally(int steps) {
+            latencies = new LatencyHistogram[steps];
+            failures = new LongAdder[steps];
+            unanswered = new LongAdder[steps];
+            for (int i = 0; i < steps; i++) {
+                latencies[i] = new LatencyHistogram();
+                failures[i] = new LongAdder();
+                unanswered[i] = new LongAdder();
+            }
+        }
+
+        void record(int step, long nanos, int status) {
+            latencies[step].record(nanos);
+            if (status != 200) {
+                failures[step].increment();
+                if (status == 0) {
+                    unanswered[step].increment();
+                }
+            }
+        }
+
+        Summary summary(long elapsedNanos) {
+            List<StepReport> steps = new ArrayList<>(latencies.length);
+            for (int i = 0; i < latencies.length; i++) {
+                long calls = latencies[i].count();
+                long failed = failures[i].sum();
+                steps.add(new StepReport(i + 1, lines[i], command(i), calls - failed, failed, unanswered[i].sum(),
+                        latencies[i].percentile(50), latencies[i].percentile(99), latencies[i].max()));
+            }
+            return new Summary(elapsedNanos, List.copyOf(steps));
+        }
+    }
+
+    /**
+     * How one step of the script went across every session. Latencies are in
+     * nanoseconds.
+     *
+     * @param failures   Calls answered with any status but 200, or not at all.
+     * @param unanswered Of the failures, calls that got no response at all.
+     */
+    public record StepReport(int step, int line, String command, long successes, long failures,
+                             long unanswered, long p50, long p99, long max) {
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    public record Summary(long elapsedNanos, List<StepReport> steps) {
+
+        public long calls() {
+            long calls = 0;
+            for (StepReport step : steps) {
+                calls += step.successes() + step.failures();
+            }
+            return calls;
+        }
+
+        public long failures() {
+            long failures = 0;
+            for (StepReport step : steps) {
+                failures += step.failures();
+            }
+            return failures;
+        }
+
+        /**
+         * Writes one CSV row per step, with a header row. Latencies are in
+         * microseconds.
+         */
+        public void writeCsv(Path file) throws IOException {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write("step,line,command,successes,failures,unanswered,p50_us,p99_us,max_us\n");
+                for (StepReport s : steps) {
+                    out.write(s.step() + "," + s.line() + "," + csvField(s.command()) + "," + s.successes() + ","
+                            + s.failures() + "," + s.unanswered() + "," + s.p50() / 1_000 + "," + s.p99() / 1_000
+                            + "," + s.max() / 1_000 + "\n");
+                }
+            }
+        }
+
+        /**
+         * @return A plain-text table of the run, one line per step.
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%4s %-24s %8s %8s %10s %10s %10s%n",
+                    "step", "command", "ok", "failed", "p50 ms", "p99 ms", "max ms"));
+            for (StepReport s : steps) {
+                String command = s.command().length() > 24 ? s.command().substring(0, 21) + "..." : s.command();
+                out.append(String.format("%4d %-24s %8d %8d %10.3f %10.3f %10.3f%n", s.step(), command,
+                        s.successes(), s.failures(), s.p50() / 1e6, s.p99() / 1e6, s.max() / 1e6));
+            }
+            double seconds = elapsedNanos / 1e9;
+            out.append(String.format("total %d calls, %d failed, in %.3f s (%.1f req/s)%n",
+                    calls(), failures(), seconds, calls() / seconds));
+            return out.toString();
+        }
+
+        private static String csvField(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+                return value;
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    // --- Example Usage ---
+
+    /**
+     * Usage: java BatchRunner script [baseUrl] [sessions] [summary.csv]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: java BatchRunner script [baseUrl] [sessions] [summary.csv]");
+            System.exit(1);
+        }
+        BatchRunner runner = load(Path.of(args[0]));
+        String baseUrl = args.length > 1 ? args[1] : "http://lnx1073302govt:8000";
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        // One connection per session; HTTP/2 with -Dmidsquest.http2=true
+        HttpClient httpClient = HttpClientFactory.create(new TransportConfig()
+                .poolSize(sessions)
+                .keepAlive(Duration.ofSeconds(60))
+                .executor(Executors.newVirtualThreadPerTaskExecutor()));
+
+        Summary summary = runner.run(baseUrl, httpClient, sessions, "batch-pw");
+        System.out.print(summary);
+        if (args.length > 3) {
+            summary.writeCsv(Path.of(args[3]));
+        }
+    }
+}
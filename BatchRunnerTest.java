@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    private static final String SCRIPT = """
+            # explore the hall
+            create
+            login
+
+            move north
+            look
+            doing reading a book, quietly
+            use torch
+            move up
+            """;
+
+    @Test
+    @Tag("unit")
+    public void testParsesScriptOnce() {
+        BatchRunner runner = BatchRunner.parse(SCRIPT);
+        assertEquals(7, runner.stepCount());
+
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> BatchRunner.parse("create\njump"));
+        assertTrue(unknown.getMessage().startsWith("line 2"), unknown.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.parse("move"));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.parse("look around"));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.parse("# nothing\n\n"));
+    }
+
+    @Test
+    @Tag("it")
+    public void testRunsScriptAcrossSessionsAgainstLocalServer() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        Path csv = Files.createTempFile("batch", ".csv");
+        try {
+            HttpClient httpClient = HttpClientFactory.create(new TransportConfig().poolSize(20));
+            BatchRunner.Summary summary = BatchRunner.parse(SCRIPT).run(server.getBaseUrl(), httpClient, 20, "pw");
+
+            assertEquals(7 * 20, summary.calls());
+            // Nobody holds a torch, and there is no way up
+            assertEquals(40, summary.failures(), summary.toString());
+            assertEquals(20, summary.steps().get(5).failures());
+            BatchRunner.StepReport moveUp = summary.steps().get(6);
+            assertEquals(9, moveUp.line());
+            assertEquals("move up", moveUp.command());
+            assertEquals(20, moveUp.failures());
+            assertEquals(0, moveUp.unanswered());
+            assertTrue(summary.steps().get(3).p50() > 0);
+
+            summary.writeCsv(csv);
+            List<String> rows = Files.readAllLines(csv, StandardCharsets.UTF_8);
+            assertEquals(8, rows.size());
+            assertTrue(rows.get(0).startsWith("step,line,command,successes,failures"));
+            assertTrue(rows.get(5).startsWith("5,7,\"doing reading a book, quietly\",20,0,0,"), rows.get(5));
+        } finally {
+            server.stop();
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testUnreachableServerCountsUnansweredSteps() throws Exception {
+        // Nothing listens on port 1, so every call fails fast
+        BatchRunner.Summary summary = BatchRunner.parse("create\nlook")
+                .run("http://127.0.0.1:1", HttpClient.newHttpClient(), 3, "pw");
+        for (BatchRunner.StepReport step : summary.steps()) {
+            assertEquals(0, step.successes());
+            assertEquals(3, step.unanswered());
+        }
+    }
+}
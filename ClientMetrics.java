@@ -0,0 +1,175 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint request metrics for {@link MidsQuest} clients.
+ *
+ * For each endpoint it counts requests, status-code classes (1xx-5xx plus
+ * network failures) and bytes sent and received, and keeps a
+ * {@link LatencyHistogram}. Recording only touches LongAdders and one atomic
+ * histogram bucket, so it is cheap enough to leave on and safe to share
+ * between many clients and threads.
+ *
+ * Usage:
+ *   ClientMetrics metrics = new ClientMetrics();
+ *   client.setMetrics(metrics);
+ *   ...
+ *   System.out.print(metrics.snapshot());
+ */
+public class ClientMetrics {
+
+    private static final MidsQuest.Endpoint[] ENDPOINTS = MidsQuest.Endpoint.values();
+
+    private final EndpointMetrics[] endpoints = new EndpointMetrics[ENDPOINTS.length];
+
+    public ClientMetrics() {
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = new EndpointMetrics();
+        }
+    }
+
+    /**
+     * Records a request that got a response.
+     */
+    void record(MidsQuest.Endpoint endpoint, long nanos, int statusCode, long bytesOut, long bytesIn) {
+        EndpointMetrics m = endpoints[endpoint.ordinal()];
+        m.requests.increment();
+        int statusClass = statusCode / 100;
+        m.statuses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+        m.bytesOut.add(bytesOut);
+        m.bytesIn.add(bytesIn);
+        m.latency.record(nanos);
+    }
+
+    /**
+     * Records a request that failed without a response (e.g., an IOException).
+     */
+    void recordFailure(MidsQuest.Endpoint endpoint, long nanos, long bytesOut) {
+        EndpointMetrics m = endpoints[endpoint.ordinal()];
+        m.requests.increment();
+        m.statuses[0].increment();
+        m.bytesOut.add(bytesOut);
+        m.latency.record(nanos);
+    }
+
+    /**
+     * @return The live latency histogram for an endpoint.
+     */
+    LatencyHistogram latency(MidsQuest.Endpoint endpoint) {
+        return endpoints[endpoint.ordinal()].latency;
+    }
+
+    /**
+     * Takes a point-in-time copy of every endpoint's metrics.
+     * Endpoints are keyed by path (e.g., "/look"), in API order.
+     */
+    public Snapshot snapshot() {
+        Map<String, EndpointSnapshot> result = new LinkedHashMap<>();
+        for (MidsQuest.Endpoint endpoint : ENDPOINTS) {
+            result.put(endpoint.path(), endpoints[endpoint.ordinal()].snapshot());
+        }
+        return new Snapshot(result);
+    }
+
+    /**
+     * Clears every counter and histogram.
+     */
+    public void reset() {
+        for (EndpointMetrics m : endpoints) {
+            m.requests.reset();
+            for (LongAdder status : m.statuses) {
+                status.reset();
+            }
+            m.bytesOut.reset();
+            m.bytesIn.reset();
+            m.latency.reset();
+        }
+    }
+
+    private static final class EndpointMetrics {
+        final LongAdder requests = new LongAdder();
+        /** Index 0 counts failures without a response; 1-5 count 1xx-5xx. */
+        final LongAdder[] statuses = new LongAdder[6];
+        final LongAdder bytesOut = new LongAdder();
+        final LongAdder bytesIn = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        EndpointMetrics() {
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new LongAdder();
+            }
+        }
+
+        EndpointSnapshot snapshot() {
+            long[] statusCounts = new long[statuses.length];
+            for (int i = 0; i < statuses.length; i++) {
+                statusCounts[i] = statuses[i].sum();
+            }
+            return new EndpointSnapshot(requests.sum(), statusCounts, bytesOut.sum(), bytesIn.sum(),
+                    latency.percentile(50), latency.percentile(90), latency.percentile(99),
+                    latency.percentile(99.9), latency.max());
+        }
+    }
+
+    // --- Snapshots ---
+
+    /**
+     * Metrics for one endpoint. Latencies are in nanoseconds.
+     *
+     * @param statusCounts Index 0 counts failures without a response; 1-5 count 1xx-5xx.
+     */
+    public record EndpointSnapshot(long requests, long[] statusCounts, long bytesOut, long bytesIn,
+                                   long p50, long p90, long p99, long p999, long max) {
+
+        /**
+         * @return The number of requests that failed or did not get a 2xx response.
+         */
+        public long errors() {
+            return requests - statusCounts[2];
+        }
+    }
+
+    /**
+     * Metrics for every endpoint, keyed by path.
+     */
+    public record Snapshot(Map<String, EndpointSnapshot> endpoints) {
+
+        public EndpointSnapshot endpoint(String path) {
+            return endpoints.get(path);
+        }
+
+        /**
+         * @return The total number of requests across all endpoints.
+         */
+        public long requests() {
+            long total = 0;
+            for (EndpointSnapshot e : endpoints.values()) {
+                total += e.requests();
+            }
+            return total;
+        }
+
+        /**
+         * Formats the snapshot as a table, one line per endpoint that saw traffic.
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%-8s %10s %7s %7s %7s %10s %10s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "2xx", "4xx", "5xx/err", "bytes out", "bytes in",
+                    "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+            for (Map.Entry<String, EndpointSnapshot> entry : endpoints.entrySet()) {
+                EndpointSnapshot e = entry.getValue();
+                if (e.requests() == 0) {
+                    continue;
+                }
+                long[] s = e.statusCounts();
+                out.append(String.format("%-8s %10d %7d %7d %7d %10d %10d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                        entry.getKey(), e.requests(), s[2], s[4], s[5] + s[0], e.bytesOut(), e.bytesIn(),
+                        e.p50() / 1e6, e.p90() / 1e6, e.p99() / 1e6, e.p999() / 1e6, e.max() / 1e6));
+            }
+            return out.toString();
+        }
+    }
+}
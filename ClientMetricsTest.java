@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientMetricsTest {
+
+    @Test
+    @Tag("unit")
+    public void testRecordsPerEndpoint() {
+        ClientMetrics metrics = new ClientMetrics();
+        metrics.record(MidsQuest.Endpoint.LOOK, 1_000_000, 200, 0, 120);
+        metrics.record(MidsQuest.Endpoint.LOOK, 3_000_000, 401, 0, 30);
+        metrics.recordFailure(MidsQuest.Endpoint.LOOK, 5_000_000, 0);
+        metrics.record(MidsQuest.Endpoint.MOVE, 2_000_000, 200, 22, 40);
+
+        ClientMetrics.Snapshot snapshot = metrics.snapshot();
+        ClientMetrics.EndpointSnapshot look = snapshot.endpoint("/look");
+        assertEquals(3, look.requests());
+        assertEquals(1, look.statusCounts()[2]);
+        assertEquals(1, look.statusCounts()[4]);
+        assertEquals(1, look.statusCounts()[0], "failures without a response");
+        assertEquals(2, look.errors());
+        assertEquals(150, look.bytesIn());
+        assertEquals(5_000_000, look.max());
+        assertTrue(look.p50() >= 3_000_000 && look.p50() < 3_200_000, "p50 was " + look.p50());
+
+        assertEquals(22, snapshot.endpoint("/move").bytesOut());
+        assertEquals(4, snapshot.requests());
+        assertTrue(snapshot.toString().contains("/look"));
+        assertFalse(snapshot.toString().contains("/user"), "idle endpoints are left out of the table");
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().requests());
+    }
+}
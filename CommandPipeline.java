@@ -0,0 +1,216 @@
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A per-session command queue for one {@link MidsQuest} client.
+ *
+ * Commands return immediately with a future and are sent one after another,
+ * in the order they were submitted, each as soon as the previous response
+ * arrives; the caller never blocks. Moves, item uses and looks are never
+ * merged or reordered. A setDoing that is still the last command waiting in
+ * the queue is overwritten by the next setDoing instead of queueing a second
+ * request (last writer wins), and both callers' futures complete with the
+ * status of the one request sent. Once anything else is queued after it, the
+ * next setDoing queues its own request, so actions stay in order with moves.
+ *
+ * The JDK HttpClient does not pipeline HTTP/1.1 requests on one connection,
+ * so "pipelining" here means the client keeps exactly one request in flight
+ * per session with the next one already queued, rather than the caller
+ * waiting for each response before deciding to send the next.
+ *
+ * Usage:
+ *   CommandPipeline commands = client.pipeline();
+ *   commands.setDoing("exploring");
+ *   commands.move("north");
+ *   commands.setDoing("reading a book");
+ *   commands.useItem("book").join();
+ */
+public class CommandPipeline {
+
+    private enum Kind { MOVE, DOING, USE, LOOK }
+
+    private final MidsQuest client;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Command> queue = new ArrayDeque<>();
+    private Command queuedDoing;
+    private boolean dispatching;
+    private CompletableFuture<Integer> last = CompletableFuture.completedFuture(0);
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Constructs a pipeline that sends through the given client. Usually
+     * obtained with {@link MidsQuest#pipeline()} instead.
+     */
+    public CommandPipeline(MidsQuest client) {
+        this.client = client;
+    }
+
+    /**
+     * Queues a move. Moves are sent in order and never merged.
+     *
+     * @return A future holding the /move status code.
+     */
+    public CompletableFuture<Integer> move(String direction) {
+        return submit(Kind.MOVE, direction);
+    }
+
+    /**
+     * Queues a /doing update, replacing one that has not been sent yet if
+     * nothing else was queued after it.
+     *
+     * @return A future holding the status code of the /doing request that
+     *         carried this action (or the one that replaced it).
+     */
+    public CompletableFuture<Integer> setDoing(String action) {
+        return submit(Kind.DOING, action);
+    }
+
+    /**
+     * Queues an item use. Uses are sent in order and never merged.
+     *
+     * @return A future holding the /use status code.
+     */
+    public CompletableFuture<Integer> useItem(String item) {
+        return submit(Kind.USE, item);
+    }
+
+    /**
+     * Queues a /look, sent after every command queued before it.
+     *
+     * @return A future holding the /look status code.
+     */
+    public CompletableFuture<Integer> look() {
+        return submit(Kind.LOOK, null);
+    }
+
+    /**
+     * @return A future that completes once every command queued so far has
+     *         been answered (successfully or not).
+     */
+    public CompletableFuture<Void> flush() {
+        lock.lock();
+        try {
+            return last.handle((status, failure) -> null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of commands submitted.
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return The number of setDoing calls merged into an already queued one.
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    // --- Internals ---
+
+    private CompletableFuture<Integer> submit(Kind kind, String argument) {
+        Command command;
+        lock.lock();
+        try {
+            submitted.increment();
+            if (kind == Kind.DOING) {
+                if (queuedDoing != null) {
+                    queuedDoing.argument = argument;
+                    coalesced.increment();
+                    return queuedDoing.result;
+                }
+                command = queuedDoing = new Command(kind, argument);
+            } else {
+                command = new Command(kind, argument);
+                queuedDoing = null; // A later setDoing must not jump ahead of this command
+            }
+            queue.add(command);
+            last = command.result;
+            if (dispatching) {
+                return command.result;
+            }
+            dispatching = true;
+        } finally {
+            lock.unlock();
+        }
+        dispatch();
+        return command.result;
+    }
+
+    /**
+     * Sends queued commands one at a time. Runs on the submitting thread, or
+     * on whichever thread completes the previous response. Responses that are
+     * already complete are handled in the loop instead of recursively.
+     */
+    private void dispatch() {
+        while (true) {
+            Command command;
+            lock.lock();
+            try {
+                command = queue.poll();
+                if (command == null) {
+                    dispatching = false;
+                    return;
+                }
+                if (command == queuedDoing) {
+                    queuedDoing = null; // From here on, a new setDoing queues its own request
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            CompletableFuture<Integer> sent;
+            try {
+                sent = send(command);
+            } catch (RuntimeException e) {
+                sent = CompletableFuture.failedFuture(e);
+            }
+            if (!sent.isDone()) {
+                sent.whenComplete((status, failure) -> {
+                    settle(command, status, failure);
+                    dispatch();
+                });
+                return;
+            }
+            sent.whenComplete((status, failure) -> settle(command, status, failure));
+        }
+    }
+
+    private CompletableFuture<Integer> send(Command command) {
+        return switch (command.kind) {
+            case MOVE -> client.moveAsync(command.argument);
+            case DOING -> client.setDoingAsync(command.argument);
+            case USE -> client.useItemAsync(command.argument);
+            case LOOK -> client.lookAsync();
+        };
+    }
+
+    private static void settle(Command command, Integer status, Throwable failure) {
+        if (failure != null) {
+            command.result.completeExceptionally(failure);
+        } else {
+            command.result.complete(status);
+        }
+    }
+
+    private static final class Command {
+        final Kind kind;
+        /** Written under the pipeline lock until the command is dispatched. */
+        String argument;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Command(Kind kind, String argument) {
+            this.kind = kind;
+            this.argument = argument;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CommandPipelineTest {
+
+    private HttpClient mockHttpClient;
+    private MidsQuest client;
+    private final List<String> sent = new ArrayList<>();
+    private final List<CompletableFuture<HttpResponse<ResponseBody>>> pending = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        mockHttpClient = mock(HttpClient.class);
+        client = new MidsQuest("http://localhost:8000", mockHttpClient);
+        client.setOutputSink(OutputSink.none());
+        client.setToken("token");
+        // Every request stays in flight until the test answers it
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> {
+                    HttpRequest request = invocation.getArgument(0);
+                    sent.add(request.uri().getPath() + " " + body(request));
+                    CompletableFuture<HttpResponse<ResponseBody>> future = new CompletableFuture<>();
+                    pending.add(future);
+                    return future;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answer(int index, int status) {
+        HttpResponse<ResponseBody> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(ResponseBody.of("{}".getBytes(StandardCharsets.UTF_8)));
+        pending.get(index).complete(response);
+    }
+
+    private static String body(HttpRequest request) {
+        if (request.bodyPublisher().isEmpty() || request.bodyPublisher().get().contentLength() == 0) {
+            return "";
+        }
+        StringBuilder body = new StringBuilder();
+        request.bodyPublisher().get().subscribe(new java.util.concurrent.Flow.Subscriber<>() {
+            public void onSubscribe(java.util.concurrent.Flow.Subscription s) { s.request(Long.MAX_VALUE); }
+            public void onNext(java.nio.ByteBuffer item) { body.append(StandardCharsets.UTF_8.decode(item)); }
+            public void onError(Throwable throwable) { }
+            public void onComplete() { }
+        });
+        return body.toString();
+    }
+
+    @Test
+    @Tag("unit")
+    public void testCommandsAreSentInOrderOneAtATime() {
+        CommandPipeline commands = client.pipeline();
+        assertSame(commands, client.pipeline());
+
+        CompletableFuture<Integer> north = commands.move("north");
+        CompletableFuture<Integer> use = commands.useItem("book");
+        CompletableFuture<Integer> east = commands.move("east");
+        assertEquals(1, sent.size(), "only the first command is in flight");
+
+        answer(0, 200);
+        assertEquals(200, north.join());
+        assertEquals(2, sent.size());
+        answer(1, 400);
+        answer(2, 200);
+        assertEquals(400, use.join());
+        assertEquals(200, east.join());
+        assertEquals(List.of("/move {\"direction\": \"north\"}", "/use {\"item\": \"book\"}",
+                "/move {\"direction\": \"east\"}"), sent);
+    }
+
+    @Test
+    @Tag("unit")
+    public void testQueuedSetDoingCallsAreMerged() {
+        CommandPipeline commands = client.pipeline();
+        commands.move("north");
+        CompletableFuture<Integer> first = commands.setDoing("resting");
+        CompletableFuture<Integer> second = commands.setDoing("exploring");
+        commands.move("south");
+        CompletableFuture<Integer> third = commands.setDoing("idle");
+        assertSame(first, second);
+        assertNotSame(first, third, "a /doing is never merged across a move");
+
+        for (int i = 0; i < 4; i++) {
+            answer(i, 200);
+        }
+        assertEquals(List.of("/move {\"direction\": \"north\"}", "/doing {\"action\": \"exploring\"}",
+                "/move {\"direction\": \"south\"}", "/doing {\"action\": \"idle\"}"), sent,
+                "last writer wins, in the caller's order");
+        assertEquals(200, second.join());
+        assertEquals(200, third.join());
+        assertEquals(5, commands.getSubmitted());
+        assertEquals(1, commands.getCoalesced());
+
+        // Once the merged /doing is sent, the next setDoing gets its own request
+        CompletableFuture<Integer> later = commands.setDoing("reading a book");
+        assertNotSame(third, later);
+        answer(4, 200);
+        assertTrue(commands.flush().isDone());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testNotLoggedInCompletesEveryCommand() {
+        client.setToken(null);
+        CommandPipeline commands = client.pipeline();
+        for (int i = 0; i < 10_000; i++) {
+            commands.move("north"); // Completes synchronously; must not recurse
+        }
+        assertEquals(0, commands.look().join());
+        verifyNoInteractions(mockHttpClient);
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link OutputSink} that appends records to a file in batches.
+ *
+ * Each record is one tab-separated line:
+ *   epochMillis, endpoint (or ERROR), status code, body
+ * with tabs and newlines in the body escaped. Records are collected in memory
+ * and written with a single call once a batch is full, or on close.
+ *
+ * Writes happen on the calling thread; wrap the sink in a {@link RingBufferSink}
+ * to move them to a background thread.
+ */
+public class FileSink implements OutputSink {
+
+    private final BufferedWriter writer;
+    private final int batchSize;
+    private final StringBuilder batch = new StringBuilder();
+    private int batched;
+
+    /**
+     * Opens (or creates) a file for appending.
+     *
+     * @param path      The file to append records to.
+     * @param batchSize The number of records collected before each write.
+     * @throws IOException If the file cannot be opened.
+     */
+    public FileSink(Path path, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void response(String endpoint, int statusCode, String body) {
+        append(endpoint, statusCode, body);
+    }
+
+    @Override
+    public void error(String message) {
+        append("ERROR", 0, message);
+    }
+
+    /**
+     * Writes any batched records to the file.
+     */
+    public synchronized void flush() {
+        try {
+            writeBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writeBatch();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void append(String endpoint, int statusCode, String body) {
+        batch.append(System.currentTimeMillis()).append('\t')
+                .append(endpoint).append('\t')
+                .append(statusCode).append('\t');
+        appendEscaped(body);
+        batch.append('\n');
+
+        if (++batched >= batchSize) {
+            try {
+                writeBatch();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void appendEscaped(String body) {
+        if (body == null) {
+            return;
+        }
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            switch (c) {
+                case '\n' -> batch.append("\\n");
+                case '\r' -> batch.append("\\r");
+                case '\t' -> batch.append("\\t");
+                case '\\' -> batch.append("\\\\");
+                default -> batch.append(c);
+            }
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        if (batched == 0) {
+            return;
+        }
+        writer.append(batch);
+        writer.flush();
+        batch.setLength(0);
+        batched = 0;
+    }
+}
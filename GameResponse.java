@@ -0,0 +1,224 @@
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One response from the Mids Quest API, as returned by the *Response methods
+ * of {@link MidsQuest}.
+ *
+ * It holds the status, headers and raw body bytes exactly as received.
+ * Nothing is decoded up front: the body text is decoded the first time
+ * {@link #body()} is called, and the known fields (message, session_token,
+ * detail and the /look fields) are pulled out of the raw bytes together, in
+ * one {@link JsonReader} pass, the first time any of them is asked for.
+ * A caller that only checks {@link #statusCode()} never parses anything.
+ *
+ * The int-returning methods of MidsQuest go further and do not keep the body
+ * at all when nothing will print it (see {@link ResponseBody}); responses
+ * they build internally have an empty body and only the fields those calls
+ * need. Every response a caller can get hold of has its full body.
+ *
+ * Calls that fail before reaching the server (not logged in, or a circuit
+ * breaker open) give a response with that status (0 or 503), no headers,
+ * and the reason in {@link #detail()}.
+ *
+ * Responses are immutable and safe to share between threads.
+ *
+ * Usage:
+ *   GameResponse look = client.lookResponse();
+ *   if (look.isSuccess() && look.exits().contains("north")) {
+ *       client.move("north");
+ *   }
+ */
+public final class GameResponse {
+
+    static final JsonReader.Fields FIELDS = JsonReader.fields(
+            "message", "session_token", "detail", "room", "description", "exits", "items", "players");
+    private static final int MESSAGE = 0;
+    private static final int SESSION_TOKEN = 1;
+    private static final int DETAIL = 2;
+    private static final int ROOM = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int EXITS = 5;
+    private static final int ITEMS = 6;
+    private static final int PLAYERS = 7;
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+    private static final byte[] NO_BODY = new byte[0];
+    private static final String[] NO_FIELDS = new String[FIELDS.size()];
+
+    private final String endpoint;
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final byte[] body;
+
+    // Decoded on first use; a race only decodes twice to the same values
+    private volatile String text;
+    private volatile String[] fields;
+
+    GameResponse(String endpoint, HttpResponse<ResponseBody> response) {
+        this(endpoint, response.statusCode(), response.headers(), response.body().bytes());
+        if (response.body().bytes() == null) {
+            // Dropped while reading: only the extracted fields (if any) are known
+            String[] extracted = response.body().fields();
+            this.fields = extracted != null ? extracted : NO_FIELDS;
+            this.text = "";
+        }
+    }
+
+    GameResponse(String endpoint, int statusCode, HttpHeaders headers, byte[] body) {
+        this.endpoint = endpoint;
+        this.statusCode = statusCode;
+        this.headers = headers != null ? headers : NO_HEADERS;
+        this.body = body != null ? body : NO_BODY;
+    }
+
+    /**
+     * @return A response for a call that failed before it was sent, with the
+     *         reason as its detail.
+     */
+    static GameResponse clientError(String endpoint, int statusCode, String message) {
+        String json = "{\"detail\": \"" + MidsQuest.escapeJsonString(message) + "\"}";
+        return new GameResponse(endpoint, statusCode, NO_HEADERS, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The endpoint called (e.g., "/look").
+     */
+    public String endpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The HTTP status code, or 0 if the call never reached the server.
+     */
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public boolean isSuccess() {
+        return statusCode == 200;
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * @return The raw body. Not copied; do not modify it.
+     */
+    public byte[] bytes() {
+        return body;
+    }
+
+    /**
+     * @return The body as text, decoded from UTF-8 on first call.
+     */
+    public String body() {
+        String decoded = text;
+        if (decoded == null) {
+            decoded = new String(body, StandardCharsets.UTF_8);
+            text = decoded;
+        }
+        return decoded;
+    }
+
+    /**
+     * @return The "message" field (e.g., from /user or /move), or null.
+     */
+    public String message() {
+        return field(MESSAGE);
+    }
+
+    /**
+     * @return The "session_token" field of a /login response, or null.
+     */
+    public String sessionToken() {
+        return field(SESSION_TOKEN);
+    }
+
+    /**
+     * @return The "detail" field of an error response, or null.
+     */
+    public String detail() {
+        return field(DETAIL);
+    }
+
+    /**
+     * @return The room name of a /look response, or null.
+     */
+    public String room() {
+        return field(ROOM);
+    }
+
+    /**
+     * @return The room description of a /look response, or null.
+     */
+    public String description() {
+        return field(DESCRIPTION);
+    }
+
+    /**
+     * @return The exits of a /look response (e.g., ["north", "east"]), or an empty list.
+     */
+    public List<String> exits() {
+        return strings(EXITS);
+    }
+
+    /**
+     * @return The items of a /look response, or an empty list.
+     */
+    public List<String> items() {
+        return strings(ITEMS);
+    }
+
+    /**
+     * @return The raw JSON array of players in a /look response, or null.
+     */
+    public String players() {
+        return field(PLAYERS);
+    }
+
+    /**
+     * Reads any other top-level field. Unlike the getters above this scans
+     * the body again on every call.
+     *
+     * @return The field's value (strings un-escaped, anything else as raw JSON), or null.
+     */
+    public String field(String key) {
+        try {
+            return JsonReader.fields(key).from(body)[0];
+        } catch (IllegalArgumentException e) {
+            return null; // Not JSON (e.g., a plain-text 500 page)
+        }
+    }
+
+    @Override
+    public String toString() {
+        return endpoint + " " + statusCode + " " + body();
+    }
+
+    // --- Internals ---
+
+    private String field(int index) {
+        String[] decoded = fields;
+        if (decoded == null) {
+            try {
+                decoded = FIELDS.from(body);
+            } catch (IllegalArgumentException e) {
+                decoded = new String[FIELDS.size()]; // Not JSON: every field is absent
+            }
+            fields = decoded;
+        }
+        return decoded[index];
+    }
+
+    private List<String> strings(int index) {
+        try {
+            return JsonReader.strings(field(index));
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
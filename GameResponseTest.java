@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class GameResponseTest {
+
+    private static final String LOOK = "{\"room\": \"Great Hall\", \"description\": \"A vaulted hall\", "
+            + "\"exits\": [\"north\", \"east\"], \"items\": [], \"players\": [{\"username\": \"bob\"}]}";
+
+    @SuppressWarnings("unchecked")
+    private static MidsQuest client(int status, String body) throws Exception {
+        HttpResponse<ResponseBody> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(ResponseBody.of(body.getBytes(StandardCharsets.UTF_8)));
+        HttpClient httpClient = mock(HttpClient.class);
+        when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).thenReturn(response);
+        MidsQuest client = new MidsQuest("http://localhost:8000", httpClient);
+        client.setOutputSink(OutputSink.none());
+        client.setToken("abc123");
+        return client;
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLookFieldsAreDecodedFromRawBytes() throws Exception {
+        GameResponse look = client(200, LOOK).lookResponse();
+
+        assertTrue(look.isSuccess());
+        assertEquals("/look", look.endpoint());
+        assertArrayEquals(LOOK.getBytes(StandardCharsets.UTF_8), look.bytes());
+        assertEquals("Great Hall", look.room());
+        assertEquals("A vaulted hall", look.description());
+        assertEquals(List.of("north", "east"), look.exits());
+        assertEquals(List.of(), look.items());
+        assertEquals("[{\"username\": \"bob\"}]", look.players());
+        assertNull(look.message());
+        assertEquals(LOOK, look.body());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testErrorDetailAndNonJsonBodies() throws Exception {
+        GameResponse rejected = client(401, "{\"detail\": \"Invalid session\"}").lookResponse();
+        assertFalse(rejected.isSuccess());
+        assertEquals(401, rejected.statusCode());
+        assertEquals("Invalid session", rejected.detail());
+
+        GameResponse broken = client(500, "Internal Server Error").moveResponse("north");
+        assertEquals(500, broken.statusCode());
+        assertNull(broken.message(), "a body that is not JSON has no fields");
+        assertEquals(List.of(), broken.exits());
+        assertEquals("Internal Server Error", broken.body());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testCallsThatNeverLeaveTheClient() throws Exception {
+        MidsQuest client = new MidsQuest("http://localhost:8000", mock(HttpClient.class));
+        client.setOutputSink(OutputSink.none());
+
+        GameResponse look = client.lookResponseAsync().get();
+        assertEquals(0, look.statusCode());
+        assertNotNull(look.detail(), "the reason is kept as the detail");
+        assertTrue(look.headers().map().isEmpty());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testCachedLookReturnsTheSameResponse() throws Exception {
+        MidsQuest client = client(200, LOOK);
+        client.enableLookCache(Duration.ofMinutes(1));
+
+        GameResponse first = client.lookResponse();
+        assertSame(first, client.lookResponse(), "a cache hit hands back the stored response");
+        assertEquals(200, client.look());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testStatusOnlyCallersNeverDecode() {
+        byte[] body = "{\"message\": \"Moved\"}".getBytes(StandardCharsets.UTF_8);
+        GameResponse response = new GameResponse("/move", 200, null, body);
+        assertEquals(200, response.statusCode());
+        assertSame(body, response.bytes(), "the raw body is not copied");
+        assertEquals("Moved", response.message());
+        assertEquals("/move 200 {\"message\": \"Moved\"}", response.toString());
+    }
+}
@@ -0,0 +1,93 @@
+import java.net.http.HttpClient;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Builds the HttpClients that {@link MidsQuest} clients share.
+ *
+ * An HttpClient owns its connection pool, selector thread and executor, so
+ * a fleet of bots should share one client rather than build one each.
+ * {@link #shared()} hands out a single client built from the default
+ * {@link TransportConfig}; {@link #create(TransportConfig)} builds a new one
+ * for callers that want their own settings.
+ *
+ * The JDK reads its pool size and keep-alive system properties
+ * (jdk.httpclient.connectionPoolSize and jdk.httpclient.keepalive.timeout)
+ * once per JVM, when the first HttpClient is built. The first config passed
+ * through this factory sets them, unless they were already given on the
+ * command line; later configs can only choose the version, timeout and
+ * executor. Build the tuned client first, before anything else in the JVM
+ * makes an HttpClient.
+ *
+ * Usage:
+ *   HttpClient httpClient = HttpClientFactory.create(new TransportConfig().poolSize(64));
+ *   MidsQuest bot = new MidsQuest(baseUrl, httpClient);
+ */
+public final class HttpClientFactory {
+
+    private static final String POOL_SIZE = "jdk.httpclient.connectionPoolSize";
+    private static final String KEEP_ALIVE = "jdk.httpclient.keepalive.timeout";
+    private static final String KEEP_ALIVE_H2 = "jdk.httpclient.keepalive.timeout.h2";
+
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static boolean propertiesApplied;
+    private static HttpClient shared;
+
+    private HttpClientFactory() {
+    }
+
+    /**
+     * Builds a new HttpClient from a config.
+     */
+    public static HttpClient create(TransportConfig config) {
+        applyProperties(config);
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(config.getVersion())
+                .connectTimeout(config.getConnectTimeout());
+        if (config.getExecutor() != null) {
+            builder.executor(config.getExecutor());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return The process-wide client, built from the default config on first call.
+     */
+    public static HttpClient shared() {
+        lock.lock();
+        try {
+            if (shared == null) {
+                shared = create(new TransportConfig());
+            }
+            return shared;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Internals ---
+
+    private static void applyProperties(TransportConfig config) {
+        lock.lock();
+        try {
+            if (propertiesApplied) {
+                return;
+            }
+            propertiesApplied = true;
+            if (config.getPoolSize() > 0) {
+                setIfAbsent(POOL_SIZE, config.getPoolSize());
+            }
+            if (config.getKeepAlive() != null) {
+                setIfAbsent(KEEP_ALIVE, config.getKeepAlive().toSeconds());
+                setIfAbsent(KEEP_ALIVE_H2, config.getKeepAlive().toSeconds());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void setIfAbsent(String property, long value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, Long.toString(value));
+        }
+    }
+}
@@ -0,0 +1,353 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of player state changes, written through memory-mapped
+ * NIO buffers.
+ *
+ * Every entry is a fixed 128-byte record, so entry n lives at byte n * 128 and
+ * replay can start anywhere without an index:
+ *
+ *   0  type (written last)   1  first text length   2  second text length
+ *   4  player id             8  room id             12 CRC32C of the rest
+ *   16 first text, then second text (UTF-8, 112 bytes between them)
+ *
+ * The file is mapped in 8 MB chunks as it grows. Appending is a few stores into
+ * the mapping under a short lock. Durability uses group commit: one background
+ * thread forces the dirty range to disk every few milliseconds, or right away
+ * when a caller waits in {@link #awaitCommit}; everything appended while one
+ * force is running is covered by the next, so many writers share each fsync.
+ *
+ * Usage:
+ *   Journal journal = Journal.open(path, 0, entry -> apply(entry));
+ *   long seq = journal.append(Journal.Type.MOVE, player, room, "north", null);
+ *   journal.awaitCommit(seq);
+ */
+public class Journal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 128;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_TEXT = RECORD_SIZE - HEADER_SIZE;
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+    private static final long CHUNK_BYTES = (long) RECORD_SIZE * RECORDS_PER_CHUNK;
+    private static final long COMMIT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * The kinds of state change the journal records.
+     */
+    public enum Type {
+        /** A new account: first = username, second = password. */
+        CREATE,
+        /** A move: room = the room entered, first = the direction. */
+        MOVE,
+        /** A /doing update: first = the action. */
+        DOING,
+        /** An item use: first = the item. */
+        USE;
+
+        private static final Type[] BY_CODE = values();
+
+        byte code() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static Type of(byte code) {
+            return code >= 1 && code <= BY_CODE.length ? BY_CODE[code - 1] : null;
+        }
+    }
+
+    /**
+     * One replayed journal record.
+     *
+     * @param seq The record's position in the journal, from 0.
+     */
+    public record Entry(long seq, Type type, int player, int room, String first, String second) { }
+
+    private final FileChannel channel;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    private volatile long next;
+    private volatile boolean closed;
+
+    // --- Group commit state, guarded by commitLock ---
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition commitRequested = commitLock.newCondition();
+    private final Condition committed = commitLock.newCondition();
+    private volatile long durable;
+    private IOException commitFailure;
+    private final LongAdder commits = new LongAdder();
+    private final Thread committer;
+
+    private Journal(FileChannel channel, long next) {
+        this.channel = channel;
+        this.next = next;
+        this.durable = next;
+        this.committer = Thread.ofPlatform().daemon().name("journal-commit").start(this::runCommits);
+    }
+
+    /**
+     * Opens (or creates) a journal, replays the records from fromSeq on, and
+     * positions it to append after the last intact record.
+     *
+     * @param file    The journal file.
+     * @param fromSeq The first record to replay (e.g., the sequence a snapshot covers up to).
+     * @param replay  Receives each replayed record in order.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static Journal open(Path file, long fromSeq, Consumer<Entry> replay) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long end = Math.max(0, fromSeq);
+        CRC32C crc = new CRC32C();
+        long available = channel.size() / RECORD_SIZE;
+        scan:
+        while (end < available) {
+            long chunkStart = end / RECORDS_PER_CHUNK * CHUNK_BYTES;
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                    chunkStart, Math.min(CHUNK_BYTES, channel.size() - chunkStart));
+            do {
+                Entry entry = read(chunk, end, crc);
+                if (entry == null) {
+                    break scan; // The first blank or torn record is the end of the journal
+                }
+                replay.accept(entry);
+                end++;
+            } while (end < available && end % RECORDS_PER_CHUNK != 0);
+        }
+        if (end < available) {
+            // Drop whatever follows the end, so a stale record there can never be replayed later
+            channel.truncate(end * RECORD_SIZE);
+        }
+        return new Journal(channel, end);
+    }
+
+    /**
+     * @return Whether two texts fit in one record together.
+     */
+    public static boolean fits(String first, String second) {
+        return utf8(first).length + utf8(second).length <= MAX_TEXT;
+    }
+
+    /**
+     * Appends a record. It is visible to a replay after a crash of this process
+     * right away, and after a crash of the machine once committed.
+     *
+     * @return The record's sequence number, for {@link #awaitCommit}.
+     * @throws IllegalArgumentException If the texts do not fit in one record.
+     */
+    public long append(Type type, int player, int room, String first, String second) {
+        byte[] a = utf8(first);
+        byte[] b = utf8(second);
+        if (a.length + b.length > MAX_TEXT) {
+            throw new IllegalArgumentException("Journal text longer than " + MAX_TEXT + " bytes");
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            long seq = next;
+            MappedByteBuffer chunk = chunk((int) (seq / RECORDS_PER_CHUNK));
+            int at = (int) (seq % RECORDS_PER_CHUNK) * RECORD_SIZE;
+            chunk.put(at + 1, (byte) a.length)
+                    .put(at + 2, (byte) b.length)
+                    .putInt(at + 4, player)
+                    .putInt(at + 8, room)
+                    .put(at + HEADER_SIZE, a)
+                    .put(at + HEADER_SIZE + a.length, b);
+            chunk.putInt(at + 12, checksum(chunk, at, type.code(), new CRC32C()));
+            // The type byte marks the record as present, so it goes last
+            chunk.put(at, type.code());
+            next = seq + 1;
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a record (and every record before it) is on disk.
+     *
+     * @throws UncheckedIOException If forcing the journal to disk failed.
+     */
+    public void awaitCommit(long seq) {
+        if (durable > seq) {
+            return;
+        }
+        commitLock.lock();
+        try {
+            commitRequested.signal();
+            while (durable <= seq) {
+                if (commitFailure != null) {
+                    throw new UncheckedIOException(commitFailure);
+                }
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * @return The sequence number the next record will get.
+     */
+    public long position() {
+        return next;
+    }
+
+    /**
+     * @return The number of forces to disk so far. Fewer than records appended
+     *         when commits are being grouped.
+     */
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    /**
+     * Commits everything appended so far and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            appendLock.unlock();
+        }
+        commitLock.lock();
+        try {
+            commitRequested.signal();
+        } finally {
+            commitLock.unlock();
+        }
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    // --- Internals ---
+
+    private void runCommits() {
+        while (true) {
+            long target;
+            commitLock.lock();
+            try {
+                while (durable == next && !closed) {
+                    commitRequested.awaitNanos(COMMIT_INTERVAL_NANOS);
+                }
+                target = next;
+                if (durable == target) {
+                    return; // Closed with nothing left to commit
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                commitLock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                force(durable, target);
+            } catch (IOException | UncheckedIOException e) {
+                failure = e instanceof IOException io ? io : ((UncheckedIOException) e).getCause();
+            }
+
+            commitLock.lock();
+            try {
+                if (failure != null) {
+                    commitFailure = failure;
+                } else {
+                    durable = target;
+                    commits.increment();
+                }
+                committed.signalAll();
+            } finally {
+                commitLock.unlock();
+            }
+            if (failure != null) {
+                return;
+            }
+        }
+    }
+
+    private void force(long from, long to) throws IOException {
+        MappedByteBuffer[] mapped = chunks;
+        for (long c = from / RECORDS_PER_CHUNK; c <= (to - 1) / RECORDS_PER_CHUNK; c++) {
+            long chunkStart = c * RECORDS_PER_CHUNK;
+            int start = (int) (Math.max(from, chunkStart) - chunkStart) * RECORD_SIZE;
+            int end = (int) (Math.min(to, chunkStart + RECORDS_PER_CHUNK) - chunkStart) * RECORD_SIZE;
+            mapped[(int) c].force(start, end - start);
+        }
+    }
+
+    /** Caller holds appendLock. */
+    private MappedByteBuffer chunk(int index) throws IOException {
+        MappedByteBuffer[] mapped = chunks;
+        if (index >= mapped.length) {
+            mapped = Arrays.copyOf(mapped, index + 1);
+            chunks = mapped;
+        }
+        if (mapped[index] == null) {
+            // Chunks before the replay start are never needed, so only map on demand
+            mapped[index] = channel.map(FileChannel.MapMode.READ_WRITE, index * CHUNK_BYTES, CHUNK_BYTES);
+        }
+        return mapped[index];
+    }
+
+    private static Entry read(ByteBuffer chunk, long seq, CRC32C crc) {
+        int at = (int) (seq % RECORDS_PER_CHUNK) * RECORD_SIZE;
+        if (at + RECORD_SIZE > chunk.limit()) {
+            return null;
+        }
+        byte code = chunk.get(at);
+        Type type = Type.of(code);
+        int lengthA = chunk.get(at + 1) & 0xFF;
+        int lengthB = chunk.get(at + 2) & 0xFF;
+        if (type == null || lengthA + lengthB > MAX_TEXT
+                || chunk.getInt(at + 12) != checksum(chunk, at, code, crc)) {
+            return null;
+        }
+        return new Entry(seq, type, chunk.getInt(at + 4), chunk.getInt(at + 8),
+                text(chunk, at + HEADER_SIZE, lengthA), text(chunk, at + HEADER_SIZE + lengthA, lengthB));
+    }
+
+    private static int checksum(ByteBuffer chunk, int at, byte code, CRC32C crc) {
+        int lengths = (chunk.get(at + 1) & 0xFF) + (chunk.get(at + 2) & 0xFF);
+        crc.reset();
+        crc.update(code);
+        crc.update(chunk.slice(at + 1, 11));
+        crc.update(chunk.slice(at + HEADER_SIZE, Math.min(lengths, MAX_TEXT)));
+        return (int) crc.getValue();
+    }
+
+    private static String text(ByteBuffer chunk, int at, int length) {
+        byte[] bytes = new byte[length];
+        chunk.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String text) {
+        return text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+    }
+}
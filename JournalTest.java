@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @Tag("unit")
+    public void testAppendedRecordsReplayInOrder() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        try (Journal journal = Journal.open(file, 0, entry -> fail("new journal is empty"))) {
+            assertEquals(0, journal.append(Journal.Type.CREATE, 0, 0, "alice", "pw"));
+            assertEquals(1, journal.append(Journal.Type.MOVE, 0, 3, "north", null));
+            long last = journal.append(Journal.Type.DOING, 0, 0, "café", null);
+            journal.awaitCommit(last);
+        }
+
+        List<Journal.Entry> entries = new ArrayList<>();
+        try (Journal journal = Journal.open(file, 0, entries::add)) {
+            assertEquals(3, journal.position());
+        }
+        assertEquals(3, entries.size());
+        assertEquals(new Journal.Entry(0, Journal.Type.CREATE, 0, 0, "alice", "pw"), entries.get(0));
+        assertEquals(3, entries.get(1).room());
+        assertEquals("café", entries.get(2).first());
+
+        // Replay can start mid-journal, e.g. after a snapshot
+        entries.clear();
+        Journal.open(file, 2, entries::add).close();
+        assertEquals(1, entries.size());
+        assertEquals(Journal.Type.DOING, entries.get(0).type());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testTornRecordEndsTheJournal() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        try (Journal journal = Journal.open(file, 0, entry -> { })) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(Journal.Type.MOVE, i, i, "north", null);
+            }
+        }
+        // Corrupt the third record's text so its checksum fails
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(2L * Journal.RECORD_SIZE + 17);
+            raw.write('X');
+        }
+
+        List<Journal.Entry> entries = new ArrayList<>();
+        try (Journal journal = Journal.open(file, 0, entries::add)) {
+            assertEquals(2, entries.size());
+            assertEquals(2, journal.append(Journal.Type.MOVE, 9, 9, "south", null));
+        }
+
+        entries.clear();
+        Journal.open(file, 0, entries::add).close();
+        assertEquals(3, entries.size(), "records after the torn one were dropped");
+        assertEquals(9, entries.get(2).player());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testConcurrentWritersShareCommits() throws Exception {
+        try (Journal journal = Journal.open(dir.resolve("journal.bin"), 0, entry -> { })) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                int player = t;
+                writers.add(Thread.ofVirtual().start(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        journal.awaitCommit(journal.append(Journal.Type.MOVE, player, i, "east", null));
+                    }
+                }));
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            assertEquals(800, journal.position());
+            assertTrue(journal.getCommits() < 800, "commits: " + journal.getCommits());
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testRejectsTextThatDoesNotFit() throws Exception {
+        try (Journal journal = Journal.open(dir.resolve("journal.bin"), 0, entry -> { })) {
+            String longText = "x".repeat(113);
+            assertFalse(Journal.fits(longText, null));
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.append(Journal.Type.DOING, 0, 0, longText, null));
+        }
+    }
+}
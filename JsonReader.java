@@ -0,0 +1,417 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A small single-pass JSON reader for Mids Quest API responses.
+ *
+ * It scans a response body (a String or UTF-8 bytes) once and pulls out the
+ * values of several top-level keys at the same time. Nested objects, arrays
+ * and escaped characters are handled correctly, and values of keys nobody
+ * asked for are skipped without allocating anything.
+ *
+ * String values are returned un-escaped; arrays, objects and numbers are
+ * returned as their raw JSON text. A missing key or a JSON null gives null.
+ *
+ * Usage:
+ *   JsonReader.Fields LOOK = JsonReader.fields("description", "exits");
+ *   String[] values = LOOK.from(responseBody);
+ */
+public final class JsonReader {
+
+    private final String text;
+    private final byte[] bytes;
+    private final int end;
+    private int pos;
+
+    private JsonReader(String text, byte[] bytes, int offset, int end) {
+        this.text = text;
+        this.bytes = bytes;
+        this.pos = offset;
+        this.end = end;
+    }
+
+    /**
+     * Compiles a reusable selector for a fixed set of keys.
+     */
+    public static Fields fields(String... keys) {
+        return new Fields(keys);
+    }
+
+    /**
+     * Extracts one top-level value from a JSON object.
+     *
+     * @throws IllegalArgumentException if the JSON is malformed.
+     */
+    public static String extract(String json, String key) {
+        return new Fields(key).from(json)[0];
+    }
+
+    /**
+     * Extracts several top-level values from a JSON object in one pass.
+     *
+     * @return The values, in the same order as the keys.
+     * @throws IllegalArgumentException if the JSON is malformed.
+     */
+    public static String[] extract(String json, String... keys) {
+        return new Fields(keys).from(json);
+    }
+
+    /**
+     * Reads a JSON array of strings, such as the exits or items of a /look.
+     * Elements that are not strings come back as their raw JSON text.
+     *
+     * @return The elements (unmodifiable), or an empty list for null or a
+     *         value that is not an array.
+     * @throws IllegalArgumentException if the array is malformed.
+     */
+    public static List<String> strings(String jsonArray) {
+        if (jsonArray == null) {
+            return List.of();
+        }
+        return new JsonReader(jsonArray, null, 0, jsonArray.length()).readArray();
+    }
+
+    /**
+     * A precompiled set of keys to extract, safe to share between threads.
+     */
+    public static final class Fields {
+        private final String[] names;
+        private final byte[][] utf8Names;
+
+        private Fields(String... names) {
+            this.names = names.clone();
+            this.utf8Names = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                utf8Names[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        /**
+         * @return The number of keys this selector extracts.
+         */
+        public int size() {
+            return names.length;
+        }
+
+        public String[] from(String json) {
+            return new JsonReader(json, null, 0, json.length()).readObject(this);
+        }
+
+        public String[] from(byte[] json) {
+            return from(json, 0, json.length);
+        }
+
+        public String[] from(byte[] json, int offset, int length) {
+            return new JsonReader(null, json, offset, offset + length).readObject(this);
+        }
+    }
+
+    // --- Scanning ---
+
+    private String[] readObject(Fields fields) {
+        String[] values = new String[fields.names.length];
+        boolean[] seen = new boolean[values.length];
+        int remaining = values.length;
+
+        skipWhitespace();
+        if (pos >= end || at(pos) != '{') {
+            // Not an object (e.g., a bare array or string): nothing to extract
+            return values;
+        }
+        pos++;
+        skipWhitespace();
+        if (pos < end && at(pos) == '}') {
+            return values;
+        }
+
+        while (remaining > 0) {
+            skipWhitespace();
+            expect('"');
+            int key = matchKey(fields);
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (key >= 0 && !seen[key]) {
+                seen[key] = true;
+                values[key] = readValue();
+                remaining--;
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            if (pos >= end) {
+                throw malformed();
+            }
+            int c = at(pos++);
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw malformed();
+            }
+        }
+        return values;
+    }
+
+    private List<String> readArray() {
+        skipWhitespace();
+        if (pos >= end || at(pos) != '[') {
+            return List.of();
+        }
+        pos++;
+        skipWhitespace();
+        List<String> values = new ArrayList<>();
+        if (pos < end && at(pos) == ']') {
+            return Collections.unmodifiableList(values);
+        }
+        while (true) {
+            skipWhitespace();
+            if (pos >= end) {
+                throw malformed();
+            }
+            values.add(readValue());
+            skipWhitespace();
+            if (pos >= end) {
+                throw malformed();
+            }
+            int c = at(pos++);
+            if (c == ']') {
+                return Collections.unmodifiableList(values);
+            }
+            if (c != ',') {
+                throw malformed();
+            }
+        }
+    }
+
+    /**
+     * Reads a key (the opening quote is already consumed) and returns the index
+     * of the matching field, or -1. Never allocates unless the key is escaped.
+     */
+    private int matchKey(Fields fields) {
+        int start = pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos >= end) {
+                throw malformed();
+            }
+            int c = at(pos);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        int length = pos - start;
+        pos++; // closing quote
+
+        if (escaped) {
+            String key = unescape(start, start + length);
+            for (int i = 0; i < fields.names.length; i++) {
+                if (fields.names[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        for (int i = 0; i < fields.names.length; i++) {
+            if (regionMatches(start, length, fields.names[i], fields.utf8Names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int start, int length, String name, byte[] utf8Name) {
+        if (bytes != null) {
+            if (utf8Name.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[start + i] != utf8Name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return name.length() == length && text.regionMatches(start, name, 0, length);
+    }
+
+    private String readValue() {
+        if (pos >= end) {
+            throw malformed();
+        }
+        int start = pos;
+        int c = at(pos);
+        if (c == '"') {
+            pos++;
+            return readString();
+        }
+        skipValue();
+        if (c == 'n' && pos - start == 4) {
+            return null; // JSON null
+        }
+        return slice(start, pos);
+    }
+
+    /**
+     * Reads a string body (opening quote consumed) and un-escapes it.
+     */
+    private String readString() {
+        int start = pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos >= end) {
+                throw malformed();
+            }
+            int c = at(pos);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        int stop = pos++;
+        return escaped ? unescape(start, stop) : slice(start, stop);
+    }
+
+    private void skipValue() {
+        if (pos >= end) {
+            throw malformed();
+        }
+        int c = at(pos);
+        if (c == '"') {
+            pos++;
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else {
+            // Number, true, false or null
+            int start = pos;
+            while (pos < end) {
+                c = at(pos);
+                if (c == ',' || c == '}' || c == ']' || c <= ' ') {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw malformed();
+            }
+        }
+    }
+
+    private void skipString() {
+        while (pos < end) {
+            int c = at(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                pos++;
+            }
+        }
+        throw malformed();
+    }
+
+    private void skipContainer() {
+        int depth = 0;
+        while (pos < end) {
+            int c = at(pos++);
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (--depth == 0) {
+                    return;
+                }
+            }
+        }
+        throw malformed();
+    }
+
+    private void skipWhitespace() {
+        while (pos < end && at(pos) <= ' ') {
+            pos++;
+        }
+    }
+
+    private void expect(char c) {
+        if (pos >= end || at(pos) != c) {
+            throw malformed();
+        }
+        pos++;
+    }
+
+    // --- Source access ---
+
+    private int at(int i) {
+        return bytes != null ? bytes[i] & 0xFF : text.charAt(i);
+    }
+
+    private String slice(int start, int stop) {
+        return bytes != null
+                ? new String(bytes, start, stop - start, StandardCharsets.UTF_8)
+                : text.substring(start, stop);
+    }
+
+    private String unescape(int start, int stop) {
+        StringBuilder out = new StringBuilder(stop - start);
+        int run = start;
+        int i = start;
+        while (i < stop) {
+            if (at(i) != '\\') {
+                i++;
+                continue;
+            }
+            out.append(slice(run, i));
+            if (i + 1 >= stop) {
+                throw malformed();
+            }
+            int c = at(i + 1);
+            switch (c) {
+                case '"', '\\', '/' -> out.append((char) c);
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    if (i + 6 > stop) {
+                        throw malformed();
+                    }
+                    int code = 0;
+                    for (int k = i + 2; k < i + 6; k++) {
+                        int digit = Character.digit(at(k), 16);
+                        if (digit < 0) {
+                            throw malformed();
+                        }
+                        code = code * 16 + digit;
+                    }
+                    out.append((char) code);
+                    i += 4;
+                }
+                default -> throw malformed();
+            }
+            i += 2;
+            run = i;
+        }
+        out.append(slice(run, stop));
+        return out.toString();
+    }
+
+    private IllegalArgumentException malformed() {
+        return new IllegalArgumentException("Malformed JSON at offset " + pos);
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonReaderTest {
+
+    private static final String LOOK = "{\"room\": \"Great Hall\", "
+            + "\"meta\": {\"description\": \"nested, ignore me\", \"list\": [1, {\"x\": \"}\"}]}, "
+            + "\"description\": \"A \\\"vaulted\\\" hall\\nwith caf\\u00e9 tables\", "
+            + "\"exits\": [\"north\", \"east\"], \"count\": 2, \"owner\": null}";
+
+    @Test
+    @Tag("unit")
+    public void testExtractsSeveralKeysInOnePass() {
+        String[] values = JsonReader.extract(LOOK, "description", "exits", "count", "owner", "missing");
+        assertEquals("A \"vaulted\" hall\nwith café tables", values[0]);
+        assertEquals("[\"north\", \"east\"]", values[1]);
+        assertEquals("2", values[2]);
+        assertNull(values[3], "JSON null comes back as null");
+        assertNull(values[4], "missing keys come back as null");
+    }
+
+    @Test
+    @Tag("unit")
+    public void testOnlyTopLevelKeysMatch() {
+        assertEquals("{\"description\": \"nested, ignore me\", \"list\": [1, {\"x\": \"}\"}]}",
+                JsonReader.extract(LOOK, "meta"));
+        assertNull(JsonReader.extract("{\"meta\": {\"session_token\": \"x\"}}", "session_token"));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testUtf8BytesMatchStringResults() {
+        JsonReader.Fields fields = JsonReader.fields("room", "description", "exits");
+        byte[] utf8 = LOOK.getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(fields.from(LOOK), fields.from(utf8));
+        assertEquals("café", JsonReader.fields("name")
+                .from("{\"name\": \"café\"}".getBytes(StandardCharsets.UTF_8))[0]);
+    }
+
+    @Test
+    @Tag("unit")
+    public void testMalformedJsonIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.extract("{\"a\": \"open", "a"));
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.extract("{\"a\" 1}", "a"));
+        assertNull(JsonReader.extract("[\"not\", \"an object\"]", "a"));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testDocumentEndingAfterAColonIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.extract("{\"session_token\":", "session_token"));
+        assertThrows(IllegalArgumentException.class,
+                () -> JsonReader.extract("{\"a\":1,\"session_token\": ", "session_token"));
+
+        // The body ends at the colon, but the array goes on
+        byte[] buffer = "{\"session_token\":\"stale\"}".getBytes(StandardCharsets.UTF_8);
+        JsonReader.Fields fields = JsonReader.fields("session_token");
+        assertThrows(IllegalArgumentException.class, () -> fields.from(buffer, 0, 17));
+        assertThrows(IllegalArgumentException.class, () -> fields.from(Arrays.copyOf(buffer, 17)));
+        assertEquals("Could not parse JSON", MidsQuest.parseSimpleJsonValue("{\"session_token\":", "session_token"));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testStringArrays() {
+        assertEquals(List.of("north", "say \"hi\""), JsonReader.strings("[\"north\", \"say \\\"hi\\\"\"]"));
+        assertEquals(List.of(), JsonReader.strings(" [ ] "));
+        assertEquals(List.of(), JsonReader.strings(null));
+        assertEquals(List.of("torch", "{\"x\": 1}"), JsonReader.strings("[\"torch\", {\"x\": 1}]"));
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.strings("[\"open\","));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testParseSimpleJsonValueKeepsItsContract() {
+        assertEquals("abc123", MidsQuest.parseSimpleJsonValue("{\"session_token\": \"abc123\"}", "session_token"));
+        assertEquals("Could not parse JSON", MidsQuest.parseSimpleJsonValue("{\"detail\": \"nope\"}", "session_token"));
+        assertEquals("Could not parse JSON", MidsQuest.parseSimpleJsonValue("Internal Server Error", "detail"));
+    }
+}
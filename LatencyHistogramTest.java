@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @Tag("unit")
+    public void testEmptyHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentile(99));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testPercentilesWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            h.record(i * 1_000); // 1us .. 10ms
+        }
+        assertEquals(10_000, h.count());
+        assertEquals(10_000_000, h.max());
+
+        long p50 = h.percentile(50);
+        assertTrue(p50 >= 5_000_000 && p50 <= 5_000_000 * 1.07, "p50 was " + p50);
+        long p99 = h.percentile(99);
+        assertTrue(p99 >= 9_900_000 && p99 <= 9_900_000 * 1.07, "p99 was " + p99);
+        assertEquals(10_000_000, h.percentile(100));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testBucketBoundsAreConsistent() {
+        for (long v : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789L, Long.MAX_VALUE / 4}) {
+            int bucket = LatencyHistogram.bucketOf(v);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= v, "value " + v);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.upperBoundOf(bucket - 1) < v, "value " + v);
+            }
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testAddMergesCounts() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(100);
+        b.record(200);
+        b.record(300);
+        a.add(b);
+        assertEquals(3, a.count());
+        assertEquals(300, a.max());
+    }
+}
@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator for the Mids Quest Game API.
+ *
+ * It starts N independent {@link MidsQuest} clients, one per virtual thread,
+ * each creating and logging in its own user. Every session then runs a
+ * weighted mix of game actions (/look, /move, /doing, /use) at its share of the
+ * target request rate, and the generator reports throughput plus
+ * p50/p99/p99.9 latency for every endpoint.
+ *
+ * All traffic goes through the normal MidsQuest methods, and latencies come
+ * from one {@link ClientMetrics} shared by every session, so this measures
+ * the same code path the bots use.
+ */
+public class LoadGenerator {
+
+    private static final String[] DIRECTIONS = {"north", "south", "east", "west"};
+    private static final String[] ACTIONS = {"looking around", "reading a book", "resting", "exploring"};
+    private static final String[] ITEMS = {"torch"};
+
+    private final String apiBaseUrl;
+    private final HttpClient httpClient;
+    private final int sessions;
+    private final double requestsPerSecond;
+    private final Duration duration;
+    private final ActionMix mix;
+
+    private final ClientMetrics metrics = new ClientMetrics();
+
+    /**
+     * Constructs a new LoadGenerator.
+     *
+     * @param apiBaseUrl        The base URL of the Mids Quest API.
+     * @param httpClient        The HttpClient shared by every session.
+     * @param sessions          The number of concurrent player sessions.
+     * @param requestsPerSecond The total target rate across all sessions.
+     * @param duration          How long to run the action mix for.
+     * @param mix               The weighted mix of actions each session runs.
+     */
+    public LoadGenerator(String apiBaseUrl, HttpClient httpClient, int sessions,
+                         double requestsPerSecond, Duration duration, ActionMix mix) {
+        if (sessions <= 0 || requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("sessions and requestsPerSecond must be positive");
+        }
+        this.apiBaseUrl = apiBaseUrl;
+        this.httpClient = httpClient;
+        this.sessions = sessions;
+        this.requestsPerSecond = requestsPerSecond;
+        this.duration = duration;
+        this.mix = mix;
+    }
+
+    /**
+     * Runs the load test and blocks until every session has finished.
+     *
+     * @return The elapsed wall-clock time of the action phase in nanoseconds.
+     */
+    public long run() throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L * sessions / requestsPerSecond);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        long start;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            start = System.nanoTime();
+            long end = start + duration.toNanos();
+            for (int i = 0; i < sessions; i++) {
+                String username = "load_" + runId + "_" + i;
+                // Spread the first request of each session across one interval
+                long firstSlot = start + intervalNanos * i / sessions;
+                executor.submit(() -> runSession(username, firstSlot, intervalNanos, end));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void runSession(String username, long firstSlot, long intervalNanos, long end) {
+        MidsQuest client = new MidsQuest(apiBaseUrl, httpClient, metrics);
+        client.setOutputSink(OutputSink.none());
+        String password = "load-" + username;
+
+        if (call(() -> client.createUser(username, password)) != 200
+                || call(() -> client.login(username, password)) != 200) {
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long nextSlot = Math.max(firstSlot, System.nanoTime());
+        while (nextSlot < end) {
+            long wait = nextSlot - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            switch (mix.next(random)) {
+                case LOOK -> call(client::look);
+                case MOVE -> call(() -> client.move(pick(DIRECTIONS, random)));
+                case DOING -> call(() -> client.setDoing(pick(ACTIONS, random)));
+                case USE -> call(() -> client.useItem(pick(ITEMS, random)));
+            }
+            nextSlot += intervalNanos;
+        }
+    }
+
+    /**
+     * Runs one client call. Timing and error counts are recorded by the
+     * client itself into the shared metrics.
+     */
+    private static int call(Call call) {
+        try {
+            return call.run();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static String pick(String[] values, ThreadLocalRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Builds a plain-text report of throughput and latency per endpoint.
+     *
+     * @param elapsedNanos The elapsed time returned by {@link #run()}.
+     */
+    public String report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        ClientMetrics.Snapshot snapshot = metrics.snapshot();
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-8s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (Map.Entry<String, ClientMetrics.EndpointSnapshot> entry : snapshot.endpoints().entrySet()) {
+            ClientMetrics.EndpointSnapshot e = entry.getValue();
+            if (e.requests() == 0) {
+                continue;
+            }
+            out.append(String.format("%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey(), e.requests(), e.errors(), e.requests() / seconds,
+                    e.p50() / 1e6, e.p99() / 1e6, e.p999() / 1e6, e.max() / 1e6));
+        }
+        out.append(String.format("total    %10d %8s %10.1f%n", snapshot.requests(), "", snapshot.requests() / seconds));
+        return out.toString();
+    }
+
+    /**
+     * @return The metrics shared by every session of this load test.
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        int run() throws IOException, InterruptedException;
+    }
+
+    // --- Action Mix ---
+
+    /**
+     * The game actions a session can take.
+     */
+    public enum Action { LOOK, MOVE, DOING, USE }
+
+    /**
+     * A weighted choice between game actions, e.g. "look=70,move=20,doing=5,use=5".
+     */
+    public static class ActionMix {
+        private final Action[] actions;
+        private final int[] cumulative;
+        private final int total;
+
+        private ActionMix(Action[] actions, int[] cumulative, int total) {
+            this.actions = actions;
+            this.cumulative = cumulative;
+            this.total = total;
+        }
+
+        /**
+         * Parses a mix such as "look=70,move=20,doing=5,use=5".
+         *
+         * @throws IllegalArgumentException if the mix is malformed or has no positive weight.
+         */
+        public static ActionMix parse(String spec) {
+            List<Action> actions = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            for (String part : spec.split(",")) {
+                String[] kv = part.trim().split("=", 2);
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("Bad action mix entry: " + part);
+                }
+                int weight = Integer.parseInt(kv[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Negative weight in action mix: " + part);
+                }
+                if (weight > 0) {
+                    actions.add(Action.valueOf(kv[0].trim().toUpperCase()));
+                    weights.add(weight);
+                }
+            }
+            if (actions.isEmpty()) {
+                throw new IllegalArgumentException("Action mix has no positive weights: " + spec);
+            }
+
+            int[] cumulative = new int[weights.size()];
+            int sum = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                sum += weights.get(i);
+                cumulative[i] = sum;
+            }
+            return new ActionMix(actions.toArray(new Action[0]), cumulative, sum);
+        }
+
+        /**
+         * Picks the next action according to the weights.
+         */
+        public Action next(ThreadLocalRandom random) {
+            int roll = random.nextInt(total);
+            for (int i = 0; i < cumulative.length; i++) {
+                if (roll < cumulative[i]) {
+                    return actions[i];
+                }
+            }
+            return actions[actions.length - 1];
+        }
+    }
+
+    // --- Example Usage ---
+
+    /**
+     * Usage: java LoadGenerator [baseUrl] [sessions] [requestsPerSecond] [seconds] [mix]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://lnx1073302govt:8000";
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 500;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        ActionMix mix = ActionMix.parse(args.length > 4 ? args[4] : "look=70,move=20,doing=5,use=5");
+
+        // One connection per session, kept open between requests; HTTP/2 with -Dmidsquest.http2=true
+        HttpClient httpClient = HttpClientFactory.create(new TransportConfig()
+                .poolSize(sessions)
+                .keepAlive(Duration.ofSeconds(seconds + 30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor()));
+
+        LoadGenerator generator = new LoadGenerator(baseUrl, httpClient, sessions, rate,
+                Duration.ofSeconds(seconds), mix);
+        long elapsed = generator.run();
+        System.out.print(generator.report(elapsed));
+    }
+}
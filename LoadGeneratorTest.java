@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadGeneratorTest {
+
+    @Test
+    @Tag("unit")
+    public void testActionMixRespectsWeights() {
+        LoadGenerator.ActionMix mix = LoadGenerator.ActionMix.parse("look=3, move=1, doing=0");
+        Map<LoadGenerator.Action, Integer> seen = new EnumMap<>(LoadGenerator.Action.class);
+        for (int i = 0; i < 40_000; i++) {
+            seen.merge(mix.next(ThreadLocalRandom.current()), 1, Integer::sum);
+        }
+        assertNull(seen.get(LoadGenerator.Action.DOING), "zero-weight actions are never picked");
+        assertNull(seen.get(LoadGenerator.Action.USE));
+        double lookShare = seen.get(LoadGenerator.Action.LOOK) / 40_000.0;
+        assertEquals(0.75, lookShare, 0.02);
+    }
+
+    @Test
+    @Tag("it")
+    public void testRunsAgainstLocalServer() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        try {
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            LoadGenerator generator = new LoadGenerator(server.getBaseUrl(), httpClient, 4, 200,
+                    Duration.ofMillis(500), LoadGenerator.ActionMix.parse("look=1"));
+            long elapsed = generator.run();
+
+            ClientMetrics.Snapshot snapshot = generator.getMetrics().snapshot();
+            assertEquals(4, snapshot.endpoint("/login").requests());
+            assertTrue(snapshot.endpoint("/look").requests() > 50, generator.report(elapsed));
+            assertEquals(0, snapshot.endpoint("/look").errors());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testActionMixRejectsBadSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.ActionMix.parse("look"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.ActionMix.parse("look=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.ActionMix.parse("jump=5"));
+    }
+}
@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Explores the game world through a pool of logged-in {@link MidsQuest}
+ * sessions and records it as a {@link RoomGraph}.
+ *
+ * Every session runs on its own virtual thread. A session repeatedly claims
+ * the unexplored exit nearest to where it stands (a breadth-first search over
+ * the map found so far), walks there along known exits, takes the exit and
+ * looks. Rooms are told apart by {@link RoomGraph#hash} of their name and
+ * description, so coming back into a known room by a new route links it
+ * instead of adding a copy. Claims keep two sessions off the same exit, and
+ * sessions spread out on their own since each works outward from its own
+ * position. The crawl ends when no exit is left unexplored or in progress.
+ *
+ * Only a 400 records an exit as missing. Any other refusal (a 503 from an
+ * open circuit breaker, a 429 from a rate limit, a 401) leaves the exit
+ * unexplored, to be claimed again after a short backoff; a session that
+ * fails that way several times in a row fails the crawl.
+ *
+ * Two rooms with the same name and description are indistinguishable to
+ * the crawler and are recorded as one room.
+ *
+ * Usage:
+ *   RoomGraph map = new MapCrawler(List.of(bot1, bot2, bot3)).crawl();
+ *   map.save(Path.of("world.graph"));
+ */
+public class MapCrawler {
+
+    private static final int DIRECTIONS = RoomGraph.DIRECTIONS.length;
+    private static final int UNEXPLORED = -2;
+    private static final int MAX_FAILED_MOVES = 5;
+    private static final long RETRY_PAUSE_MILLIS = 100;
+
+    private final List<MidsQuest> sessions;
+
+    // --- The map so far, guarded by lock ---
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Long, Integer> roomsByHash = new HashMap<>();
+    private String[] names = new String[64];
+    private long[] hashes = new long[64];
+    private int[] exits = new int[64 * DIRECTIONS];
+    private byte[] claimed = new byte[64];
+    private int roomCount;
+    private int inProgress;
+    private boolean failed;
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder looks = new LongAdder();
+
+    /**
+     * Constructs a crawler over sessions that are already logged in.
+     */
+    public MapCrawler(List<MidsQuest> sessions) {
+        if (sessions.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one session");
+        }
+        this.sessions = List.copyOf(sessions);
+    }
+
+    /**
+     * Explores every room reachable from where the sessions stand.
+     *
+     * @return The map.
+     * @throws IOException          If a request fails or /look does not answer 200.
+     * @throws InterruptedException If interrupted while crawling.
+     */
+    public RoomGraph crawl() throws IOException, InterruptedException {
+        List<Future<Void>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MidsQuest session : sessions) {
+                workers.add(executor.submit(() -> {
+                    explore(session);
+                    return null;
+                }));
+            }
+        }
+        for (Future<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof InterruptedException interrupted) {
+                    throw interrupted;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return snapshot();
+    }
+
+    /**
+     * @return The number of /move requests sent, including walks between rooms.
+     */
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * @return The number of /look requests sent.
+     */
+    public long getLooks() {
+        return looks.sum();
+    }
+
+    // --- Internals ---
+
+    private void explore(MidsQuest session) throws IOException, InterruptedException {
+        int here = locate(session);
+        int failedMoves = 0;
+        Claim claim;
+        while ((claim = claim(here)) != null) {
+            try {
+                here = walk(session, here, claim.route);
+                if (here != claim.room) {
+                    continue; // Lost on the way; the claim is released below
+                }
+                moves.increment();
+                int status = session.move(RoomGraph.DIRECTIONS[claim.direction]);
+                if (status == 200) {
+                    int next = locate(session);
+                    link(claim.room, claim.direction, next);
+                    here = next;
+                    failedMoves = 0;
+                } else if (status == 400) {
+                    link(claim.room, claim.direction, RoomGraph.NO_EXIT);
+                    failedMoves = 0;
+                } else if (++failedMoves >= MAX_FAILED_MOVES) {
+                    throw new IOException("/move returned " + status + " while crawling");
+                } else {
+                    // Not an answer about the exit; it stays unexplored and is claimed again
+                    TimeUnit.MILLISECONDS.sleep(RETRY_PAUSE_MILLIS << (failedMoves - 1));
+                }
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                fail();
+                throw e;
+            } finally {
+                release(claim);
+            }
+        }
+    }
+
+    /**
+     * Looks around and finds (or adds) the room the session is in.
+     */
+    private int locate(MidsQuest session) throws IOException, InterruptedException {
+        looks.increment();
+        GameResponse look = session.lookResponse();
+        if (!look.isSuccess()) {
+            throw new IOException("/look returned " + look.statusCode() + " while crawling");
+        }
+        if (look.room() == null || look.description() == null) {
+            throw new IOException("/look response has no room or description: " + look.body());
+        }
+        long hash = RoomGraph.hash(look.room(), look.description());
+        lock.lock();
+        try {
+            Integer known = roomsByHash.get(hash);
+            if (known != null) {
+                return known;
+            }
+            int room = addRoom(look.room(), hash);
+            for (String exit : look.exits()) {
+                int dir = RoomGraph.directionIndex(exit);
+                if (dir >= 0) {
+                    exits[room * DIRECTIONS + dir] = UNEXPLORED;
+                }
+            }
+            changed.signalAll();
+            return room;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Follows a planned route, stopping early if a move is refused.
+     *
+     * @return The room the session ends up in.
+     */
+    private int walk(MidsQuest session, int from, int[] route)
+            throws IOException, InterruptedException {
+        int here = from;
+        for (int dir : route) {
+            moves.increment();
+            if (session.move(RoomGraph.DIRECTIONS[dir]) != 200) {
+                return locate(session);
+            }
+            lock.lock();
+            try {
+                here = exits[here * DIRECTIONS + dir];
+            } finally {
+                lock.unlock();
+            }
+        }
+        return here;
+    }
+
+    /**
+     * Claims the unexplored exit nearest to a room, waiting while other
+     * sessions might still discover one.
+     *
+     * @return The claim, or null once the crawl is over.
+     */
+    private Claim claim(int here) throws InterruptedException {
+        lock.lock();
+        try {
+            while (!failed) {
+                Claim claim = nearestUnexplored(here);
+                if (claim != null) {
+                    claimed[claim.room] |= (byte) (1 << claim.direction);
+                    inProgress++;
+                    return claim;
+                }
+                if (inProgress == 0) {
+                    return null;
+                }
+                changed.await();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds lock. A breadth-first search over the exits found so far. */
+    private Claim nearestUnexplored(int from) {
+        int[] parent = new int[roomCount];
+        Arrays.fill(parent, RoomGraph.NO_EXIT);
+        int[] queue = new int[roomCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        parent[from] = from * DIRECTIONS;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int dir = 0; dir < DIRECTIONS; dir++) {
+                int next = exits[room * DIRECTIONS + dir];
+                if (next == UNEXPLORED && (claimed[room] & (1 << dir)) == 0) {
+                    return new Claim(room, dir, routeTo(parent, from, room));
+                }
+                if (next >= 0 && parent[next] == RoomGraph.NO_EXIT) {
+                    parent[next] = room * DIRECTIONS + dir;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[] routeTo(int[] parent, int from, int to) {
+        int steps = 0;
+        for (int room = to; room != from; room = parent[room] / DIRECTIONS) {
+            steps++;
+        }
+        int[] route = new int[steps];
+        for (int room = to; room != from; room = parent[room] / DIRECTIONS) {
+            route[--steps] = parent[room] % DIRECTIONS;
+        }
+        return route;
+    }
+
+    private void link(int room, int direction, int to) {
+        lock.lock();
+        try {
+            exits[room * DIRECTIONS + direction] = to;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Claim claim) {
+        lock.lock();
+        try {
+            // An exit that was not explored (the walk went astray) is free to claim again
+            claimed[claim.room] &= (byte) ~(1 << claim.direction);
+            inProgress--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail() {
+        lock.lock();
+        try {
+            failed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds lock. */
+    private int addRoom(String name, long hash) {
+        if (roomCount == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            claimed = Arrays.copyOf(claimed, capacity);
+            exits = Arrays.copyOf(exits, capacity * DIRECTIONS);
+        }
+        int room = roomCount++;
+        names[room] = name;
+        hashes[room] = hash;
+        Arrays.fill(exits, room * DIRECTIONS, (room + 1) * DIRECTIONS, RoomGraph.NO_EXIT);
+        roomsByHash.put(hash, room);
+        return room;
+    }
+
+    private RoomGraph snapshot() {
+        lock.lock();
+        try {
+            int[] table = Arrays.copyOf(exits, roomCount * DIRECTIONS);
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] == UNEXPLORED) {
+                    table[i] = RoomGraph.NO_EXIT; // Unreachable for every session (e.g., past a one-way exit)
+                }
+            }
+            return new RoomGraph(Arrays.copyOf(names, roomCount), Arrays.copyOf(hashes, roomCount), table);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Claim(int room, int direction, int[] route) { }
+}
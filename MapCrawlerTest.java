@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MapCrawlerTest {
+
+    @Test
+    @Tag("it")
+    public void testCrawlsGridWithSeveralSessions() throws Exception {
+        ServerModel server = new ServerModel(WorldEngine.grid(5, 4, 64), new SessionStore(Duration.ofMinutes(5)));
+        server.start(0);
+        try {
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            List<MidsQuest> bots = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                MidsQuest bot = new MidsQuest(server.getBaseUrl(), httpClient);
+                bot.setOutputSink(OutputSink.none());
+                assertEquals(200, bot.createUser("crawler" + i, "pw"));
+                assertEquals(200, bot.login("crawler" + i, "pw"));
+                bots.add(bot);
+            }
+
+            MapCrawler crawler = new MapCrawler(bots);
+            RoomGraph map = crawler.crawl();
+
+            assertEquals(20, map.roomCount());
+            int origin = map.find("Room 0,0", "A plain room at 0,0.");
+            int corner = map.find("Room 4,3", "A plain room at 4,3.");
+            assertTrue(origin >= 0 && corner >= 0);
+            assertEquals(7, map.route(origin, corner).length, "Manhattan distance across the grid");
+            assertEquals(RoomGraph.NO_EXIT, map.exit(origin, RoomGraph.directionIndex("south")));
+            int east = map.exit(origin, RoomGraph.directionIndex("east"));
+            assertEquals("Room 1,0", map.name(east));
+            assertEquals(origin, map.exit(east, RoomGraph.directionIndex("west")));
+            assertSame(OutputSink.none(), bots.get(0).getOutputSink(), "sinks are restored");
+
+            // A bot can walk a planned route with nothing but moves
+            MidsQuest bot = bots.get(0);
+            String[] fields = JsonReader.extract(lookBody(bot), "room", "description");
+            for (String direction : map.route(map.find(fields[0], fields[1]), corner)) {
+                assertEquals(200, bot.move(direction));
+            }
+            assertEquals("Room 4,3", JsonReader.extract(lookBody(bot), "room"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testCrawlFailsWhenNotLoggedIn() {
+        MidsQuest bot = new MidsQuest("http://localhost:1", HttpClient.newHttpClient());
+        bot.setOutputSink(OutputSink.none());
+        assertThrows(java.io.IOException.class, () -> new MapCrawler(List.of(bot)).crawl());
+    }
+
+    @Test
+    @Tag("it")
+    public void testTransientMoveFailuresDoNotRemoveExits() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        try {
+            MidsQuest bot = new MidsQuest(server.getBaseUrl(), HttpClient.newHttpClient());
+            bot.setOutputSink(OutputSink.none());
+            assertEquals(200, bot.createUser("crawler", "pw"));
+            assertEquals(200, bot.login("crawler", "pw"));
+
+            // An open circuit breaker, then a rate limit, before the server is asked
+            MidsQuest flaky = spy(bot);
+            doReturn(503).doReturn(429).doCallRealMethod().when(flaky).move("north");
+            RoomGraph map = new MapCrawler(List.of(flaky)).crawl();
+
+            assertEquals(4, map.roomCount());
+            int hall = 0;
+            while (!map.name(hall).equals("Great Hall")) {
+                hall++;
+            }
+            assertEquals("Library", map.name(map.exit(hall, RoomGraph.directionIndex("north"))));
+
+            MidsQuest refused = spy(bot);
+            doReturn(401).when(refused).move(anyString());
+            assertThrows(java.io.IOException.class, () -> new MapCrawler(List.of(refused)).crawl());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testGraphSurvivesSaveAndMappedLoad() throws Exception {
+        String[] names = {"Hall", "Library", "Tower"};
+        long[] hashes = {RoomGraph.hash("Hall", "a"), RoomGraph.hash("Library", "b"), RoomGraph.hash("Tower", "c")};
+        int[] exits = new int[3 * RoomGraph.DIRECTIONS.length];
+        java.util.Arrays.fill(exits, RoomGraph.NO_EXIT);
+        exits[0 * 6 + RoomGraph.directionIndex("north")] = 1;
+        exits[1 * 6 + RoomGraph.directionIndex("up")] = 2; // One-way
+        RoomGraph graph = new RoomGraph(names, hashes, exits);
+
+        Path file = Files.createTempFile("rooms", ".graph");
+        try {
+            graph.save(file);
+            RoomGraph loaded = RoomGraph.load(file);
+            assertEquals(3, loaded.roomCount());
+            assertEquals("Library", loaded.name(1));
+            assertEquals(2, loaded.find("Tower", "c"));
+            assertEquals(-1, loaded.find("Tower", "d"));
+            assertArrayEquals(new String[]{"north", "up"}, loaded.route(0, 2));
+            assertNull(loaded.route(2, 0), "no way back down");
+            assertArrayEquals(new String[0], loaded.route(1, 1));
+
+            // A corrupt room count is rejected before anything is allocated for it
+            byte[] saved = Files.readAllBytes(file);
+            java.nio.ByteBuffer.wrap(saved).putInt(4, 1 << 30);
+            Files.write(file, saved);
+            assertThrows(java.io.IOException.class, () -> RoomGraph.load(file));
+
+            Files.write(file, new byte[]{1, 2, 3});
+            assertThrows(java.io.IOException.class, () -> RoomGraph.load(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String lookBody(MidsQuest bot) throws Exception {
+        String[] body = new String[1];
+        bot.setOutputSink(new OutputSink() {
+            @Override
+            public void response(String endpoint, int statusCode, String text) {
+                body[0] = text;
+            }
+
+            @Override
+            public void error(String message) {
+            }
+        });
+        assertEquals(200, bot.look());
+        bot.setOutputSink(OutputSink.none());
+        return body[0];
+    }
+}
@@ -3,321 +3,1494 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 /**
  * A Java client for the Mids Quest Game API.
  *
- * This class has been modified to print all server responses to the
- * console and return the HTTP status code as an integer.
+ * This class has been modified to report all server responses to an
+ * {@link OutputSink} (the console by default) and return the HTTP status
+ * code as an integer.
  *
  * It handles:
  * - Creating a user (/user)
  * - Logging in and storing the session token (/login)
  * - Sending authenticated requests for game actions (/move, /look, /doing, /use)
  *
- * WARNING: This class uses manual string building and regex for JSON.
- * This is fragile and not recommended for production. A proper JSON
- * library (like Jackson or Gson) is far more robust.
+ * Every action also has an *Async variant built on HttpClient.sendAsync, so
+ * many game sessions can share a few threads instead of one thread per player.
+ *
+ * An opt-in cache (see {@link #enableLookCache(Duration)}) can answer /look
+ * locally. It is cleared by every move, setDoing and useItem call, and entries
+ * expire after a TTL so other players' actions still show up.
+ *
+ * An optional {@link ResiliencePolicy} adds retries with jittered backoff for
+ * /look, per-endpoint circuit breakers (an open breaker makes calls return 503
+ * without sending them) and hedged /look requests. An optional, usually
+ * shared, {@link RateLimiter} paces requests and caps how many are in flight.
+ * An optional {@link TraceRecorder} logs every call for {@link TraceReplayer}.
+ * An optional {@link TokenCache} keeps session tokens across runs, so
+ * {@link #resumeSession(String, String)} can skip /login on startup.
+ *
+ * Endpoint URIs and header sets are built once per client. Requests for /look
+ * and for common /move and /doing payloads are built once per session token
+ * from pre-encoded bodies and reused, so tight bot loops allocate almost
+ * nothing per call.
+ *
+ * WARNING: This class builds request JSON by hand. Responses are read with
+ * the small single-pass {@link JsonReader}, which only understands the
+ * top-level fields of an object.
  */
 public class MidsQuest {
 
-    private final HttpClient httpClient;
-    private final String apiBaseUrl;
+    private static final String[] POST_HEADERS = {"Content-Type", "application/json", "accept", "application/json"};
+    private static final String[] GET_HEADERS = {"accept", "application/json"};
+    // Bodies are read as they arrive (see ResponseBody). Calls whose caller
+    // only wants the status keep none of the body, or just the /login token.
+    private static final HttpResponse.BodyHandler<ResponseBody> WHOLE_BODY = ResponseBody.whole();
+    private static final HttpResponse.BodyHandler<ResponseBody> NO_BODY = ResponseBody.fieldsOnly(null);
+    private static final HttpResponse.BodyHandler<ResponseBody> FIELDS_ONLY = ResponseBody.fieldsOnly(GameResponse.FIELDS);
+
+    /**
+     * Pre-encoded bodies for payloads bots send over and over.
+     */
+    private static final Map<String, byte[]> PRESET_MOVE_BODIES = presetBodies(MidsQuest::moveBody,
+            "north", "south", "east", "west");
+    private static final Map<String, byte[]> PRESET_DOING_BODIES = presetBodies(MidsQuest::doingBody,
+            "looking around", "resting", "reading a book", "exploring", "idle");
+
+    private final HttpClient httpClient;
+    private final String apiBaseUrl;
+
+    /**
+     * Endpoint URIs, indexed by {@link Endpoint#ordinal()}.
+     */
+    private final URI[] endpointUris;
+
+    /**
+     * Requests that only depend on the session token, rebuilt after each login.
+     */
+    private volatile PreparedRequests preparedRequests;
+
+    /**
+     * Where responses and client-side errors are reported.
+     */
+    private volatile OutputSink outputSink = OutputSink.console();
+
+    /**
+     * Per-endpoint counters and latency histograms, recorded on every request.
+     */
+    private volatile ClientMetrics metrics;
+
+    /**
+     * Retry, circuit-breaker and hedging settings, or null to send every request once.
+     */
+    private volatile ResiliencePolicy resiliencePolicy;
+
+    /**
+     * Paces requests (possibly shared with other clients), or null for no pacing.
+     */
+    private volatile RateLimiter rateLimiter;
+
+    /**
+     * Records every call for later replay, or null when not recording.
+     */
+    private volatile TraceRecorder traceRecorder;
+    private volatile int traceSession;
+
+    /**
+     * Tokens shared with other processes, or null when not caching. After
+     * {@link #resumeSession}, credentials are kept to log in again when the
+     * server rejects the token, one login at a time.
+     */
+    private volatile TokenCache tokenCache;
+    private volatile Credentials credentials;
+    private final AtomicReference<CompletableFuture<Integer>> reloginInFlight = new AtomicReference<>();
+    private final LongAdder relogins = new LongAdder();
+
+    /**
+     * Called after every successful move, setDoing or useItem (e.g., by a
+     * {@link RoomStatePublisher} to poll /look right away).
+     */
+    private final CopyOnWriteArrayList<Runnable> stateListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The session's command queue, created on first use.
+     */
+    private volatile CommandPipeline pipeline;
+
+    /**
+     * The session token is stored internally after a successful login.
+     */
+    private volatile String sessionToken;
+
+    /**
+     * The /look cache. Disabled while lookCacheTtlNanos is 0. Each state-changing
+     * call bumps lookGeneration, which invalidates any entry stored before it.
+     */
+    private volatile long lookCacheTtlNanos;
+    private volatile CachedLook cachedLook;
+    private final AtomicLong lookGeneration = new AtomicLong();
+    private final LongAdder lookCacheHits = new LongAdder();
+    private final LongAdder lookCacheMisses = new LongAdder();
+
+    public String getToken()
+    {
+	    return sessionToken;
+    }
+
+    /**
+     * Replaces the stored session token (e.g., with one obtained elsewhere).
+     */
+    void setToken(String token)
+    {
+	    this.sessionToken = token;
+    }
+
+    /**
+     * @return Where responses and errors are reported.
+     */
+    public OutputSink getOutputSink()
+    {
+	    return outputSink;
+    }
+
+    /**
+     * Replaces where responses and errors are reported. Bots that do not read
+     * the output should use {@link OutputSink#none()}.
+     */
+    public void setOutputSink(OutputSink sink)
+    {
+	    this.outputSink = sink;
+    }
+
+    /**
+     * @return The metrics this client records into.
+     */
+    public ClientMetrics getMetrics()
+    {
+	    return metrics;
+    }
+
+    /**
+     * Records into the given metrics instead, e.g. one shared by many clients.
+     */
+    public void setMetrics(ClientMetrics metrics)
+    {
+	    this.metrics = metrics;
+    }
+
+    /**
+     * @return The resilience policy in use, or null if none.
+     */
+    public ResiliencePolicy getResiliencePolicy()
+    {
+	    return resiliencePolicy;
+    }
+
+    /**
+     * Sends requests through a resilience policy (retries, circuit breakers,
+     * hedging), or straight through when null.
+     */
+    public void setResiliencePolicy(ResiliencePolicy policy)
+    {
+	    this.resiliencePolicy = policy;
+    }
+
+    /**
+     * @return The rate limiter in use, or null if none.
+     */
+    public RateLimiter getRateLimiter()
+    {
+	    return rateLimiter;
+    }
+
+    /**
+     * Paces every request through a rate limiter, usually one shared by many
+     * clients, or sends without pacing when null.
+     */
+    public void setRateLimiter(RateLimiter limiter)
+    {
+	    this.rateLimiter = limiter;
+    }
+
+    /**
+     * @return The trace recorder in use, or null if none.
+     */
+    public TraceRecorder getTraceRecorder()
+    {
+	    return traceRecorder;
+    }
+
+    /**
+     * Records every call this client sends into a trace (usually one shared
+     * by many clients), or stops recording when null. Each client gets its
+     * own session number in the trace.
+     */
+    public void setTraceRecorder(TraceRecorder recorder)
+    {
+	    if (recorder != null) {
+		    this.traceSession = recorder.newSession();
+	    }
+	    this.traceRecorder = recorder;
+    }
+
+    /**
+     * @return The token cache in use, or null if none.
+     */
+    public TokenCache getTokenCache()
+    {
+	    return tokenCache;
+    }
+
+    /**
+     * Stores every token this client logs in for in a token cache (usually
+     * one shared by many clients and processes), so {@link #resumeSession}
+     * can reuse it later, or stops caching when null.
+     */
+    public void setTokenCache(TokenCache cache)
+    {
+	    this.tokenCache = cache;
+    }
+
+    /**
+     * Constructs a new MidsQuest.
+     *
+     * @param apiBaseUrl The base URL of the Mids Quest API (e.g., "http://lnx1073302govt:8000")
+     */
+    public MidsQuest(String apiBaseUrl, HttpClient h) {
+        this(apiBaseUrl, h, new ClientMetrics());
+    }
+
+    /**
+     * Constructs a new MidsQuest that records into existing metrics. Use this
+     * when creating many clients, so each one does not allocate its own.
+     *
+     * @param apiBaseUrl The base URL of the Mids Quest API (e.g., "http://lnx1073302govt:8000")
+     * @param metrics    The metrics to record every request into.
+     */
+    public MidsQuest(String apiBaseUrl, HttpClient h, ClientMetrics metrics) {
+        this.apiBaseUrl = apiBaseUrl;
+        this.httpClient = h;
+        this.metrics = metrics;
+        this.endpointUris = new URI[Endpoint.values().length];
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpointUris[endpoint.ordinal()] = URI.create(apiBaseUrl + endpoint.path());
+        }
+    }
+
+    // --- 1. Public API Methods (Modified) ---
+
+    /**
+     * Creates a new user. (POST /user)
+     * Reports the full server response to the output sink and returns the HTTP status code.
+     *
+     * @param username The desired username.
+     * @param password The desired password.
+     * @return The HTTP status code from the server (e.g., 200, 400).
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int createUser(String username, String password) throws IOException, InterruptedException {
+        return createUserResponse(username, password, statusOnly(NO_BODY)).statusCode();
+    }
+
+    /**
+     * Logs in and stores the session token for future requests. (POST /login)
+     * Reports the full server response to the output sink and returns the HTTP status code.
+     *
+     * @param username The user's username.
+     * @param password The user's password.
+     * @return The HTTP status code from the server (e.g., 200, 400).
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int login(String username, String password) throws IOException, InterruptedException {
+        return loginResponse(username, password, statusOnly(FIELDS_ONLY)).statusCode();
+    }
+
+    /**
+     * Picks up where an earlier run left off: keeps the token this client
+     * holds, or reuses the one cached for this user and server, sending
+     * nothing, or logs in if there is neither.
+     * From then on, a call the server answers with 401 logs in again once,
+     * refreshes the cached token and is retried.
+     * Without a token cache this is {@link #login(String, String)} plus the
+     * retry on 401.
+     *
+     * @param username The user's username.
+     * @param password The user's password, kept in memory to log in again.
+     * @return 200 if a token was found, otherwise the /login status code.
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int resumeSession(String username, String password) throws IOException, InterruptedException {
+        setCredentials(username, password);
+        return await(relogin(null));
+    }
+
+    /**
+     * Keeps credentials to log in with on demand, like
+     * {@link #resumeSession}, but sends nothing (e.g., for
+     * {@link SessionManager} handles, which log in on first use).
+     */
+    void setCredentials(String username, String password) {
+        this.credentials = new Credentials(username, password);
+    }
+
+    /**
+     * Moves the player in a given direction. (POST /move)
+     * Requires a prior successful login.
+     * Reports the full server response to the output sink and returns the HTTP status code.
+     *
+     * @param direction The direction to move (e.g., "north").
+     * @return The HTTP status code from the server (e.g., 200, 401, 400).
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int move(String direction) throws IOException, InterruptedException {
+        return moveResponse(direction, statusOnly(NO_BODY)).statusCode();
+    }
+
+    /**
+     * Gets a description of the current room. (GET /look)
+     * Requires a prior successful login.
+     * Reports the full server response to the output sink and returns the HTTP status code.
+     *
+     * @return The HTTP status code from the server (e.g., 200, 401).
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int look() throws IOException, InterruptedException {
+        // A cached /look is handed to lookResponse() callers later, so keep the body then
+        return lookResponse(lookCacheTtlNanos != 0 ? WHOLE_BODY : statusOnly(NO_BODY)).statusCode();
+    }
+
+    /**
+     * Sets the player's current action. (POST /doing)
+     * Requires a prior successful login.
+     * Reports the full server response to the output sink and returns the HTTP status code.
+     *
+     * @param action The action to set (e.g., "reading a book").
+     * @return The HTTP status code from the server (e.g., 200, 401).
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int setDoing(String action) throws IOException, InterruptedException {
+        return setDoingResponse(action, statusOnly(NO_BODY)).statusCode();
+    }
+
+    /**
+     * Uses an item in the current room. (POST /use)
+     * Requires a prior successful login.
+     * Reports the full server response to the output sink and returns the HTTP status code.
+     *
+     * @param item The name of the item to use.
+     * @return The HTTP status code from the server (e.g., 200, 401, 400).
+     * @throws IOException          If a network error occurs.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    public int useItem(String item) throws IOException, InterruptedException {
+        return useItemResponse(item, statusOnly(NO_BODY)).statusCode();
+    }
+
+    /**
+     * Like {@link #createUser(String, String)}, returning the whole response.
+     */
+    public GameResponse createUserResponse(String username, String password)
+            throws IOException, InterruptedException {
+        return createUserResponse(username, password, WHOLE_BODY);
+    }
+
+    /**
+     * Like {@link #login(String, String)}, returning the whole response.
+     */
+    public GameResponse loginResponse(String username, String password) throws IOException, InterruptedException {
+        return loginResponse(username, password, WHOLE_BODY);
+    }
+
+    /**
+     * Like {@link #move(String)}, returning the whole response.
+     */
+    public GameResponse moveResponse(String direction) throws IOException, InterruptedException {
+        return moveResponse(direction, WHOLE_BODY);
+    }
+
+    /**
+     * Like {@link #look()}, returning the whole response: {@link GameResponse#room()},
+     * {@link GameResponse#exits()} and the other /look fields are decoded on first use.
+     */
+    public GameResponse lookResponse() throws IOException, InterruptedException {
+        return lookResponse(WHOLE_BODY);
+    }
+
+    /**
+     * Like {@link #setDoing(String)}, returning the whole response.
+     */
+    public GameResponse setDoingResponse(String action) throws IOException, InterruptedException {
+        return setDoingResponse(action, WHOLE_BODY);
+    }
+
+    /**
+     * Like {@link #useItem(String)}, returning the whole response.
+     */
+    public GameResponse useItemResponse(String item) throws IOException, InterruptedException {
+        return useItemResponse(item, WHOLE_BODY);
+    }
+
+    private GameResponse createUserResponse(String username, String password,
+                                            HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        return call(Endpoint.USER, username, () -> buildPostRequest(Endpoint.USER, userBody(username, password)),
+                this::handleResponse, bodyHandler);
+    }
+
+    private GameResponse loginResponse(String username, String password,
+                                       HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        return call(Endpoint.LOGIN, username, () -> buildPostRequest(Endpoint.LOGIN, userBody(username, password)),
+                (endpoint, response) -> handleLoginResponse(endpoint, response, username), bodyHandler);
+    }
+
+    private GameResponse moveResponse(String direction, HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        invalidateLookCache();
+        return call(Endpoint.MOVE, direction, () -> moveRequest(direction), this::handleStateChangeResponse,
+                bodyHandler);
+    }
+
+    private GameResponse lookResponse(HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        CachedLook cached = cachedLook();
+        if (cached != null) {
+            return handleResponse(Endpoint.LOOK, cached.response());
+        }
+
+        long generation = lookGeneration.get();
+        return call(Endpoint.LOOK, null, this::lookRequest, (endpoint, response) -> {
+            if (bodyHandler == WHOLE_BODY) {
+                storeLook(response, generation);
+            }
+            return handleResponse(endpoint, response);
+        }, bodyHandler);
+    }
+
+    private GameResponse setDoingResponse(String action, HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        invalidateLookCache();
+        return call(Endpoint.DOING, action, () -> doingRequest(action), this::handleStateChangeResponse,
+                bodyHandler);
+    }
+
+    private GameResponse useItemResponse(String item, HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        invalidateLookCache();
+        return call(Endpoint.USE, item, () -> buildPostRequest(Endpoint.USE, useBody(item)),
+                this::handleStateChangeResponse, bodyHandler);
+    }
+
+    // --- 2. Asynchronous API Methods ---
+
+    /**
+     * Non-blocking variant of {@link #createUser(String, String)}.
+     * The returned future completes with the same status code the blocking
+     * method would have returned.
+     *
+     * @param username The desired username.
+     * @param password The desired password.
+     * @return A future holding the HTTP status code.
+     */
+    public CompletableFuture<Integer> createUserAsync(String username, String password) {
+        return createUserResponseAsync(username, password, statusOnly(NO_BODY)).thenApply(GameResponse::statusCode);
+    }
+
+    /**
+     * Non-blocking variant of {@link #login(String, String)}.
+     * The session token is stored before the returned future completes.
+     *
+     * @param username The user's username.
+     * @param password The user's password.
+     * @return A future holding the HTTP status code.
+     */
+    public CompletableFuture<Integer> loginAsync(String username, String password) {
+        return loginResponseAsync(username, password, statusOnly(FIELDS_ONLY)).thenApply(GameResponse::statusCode);
+    }
+
+    /**
+     * Non-blocking variant of {@link #move(String)}.
+     *
+     * @param direction The direction to move (e.g., "north").
+     * @return A future holding the HTTP status code (0 if not logged in).
+     */
+    public CompletableFuture<Integer> moveAsync(String direction) {
+        return moveResponseAsync(direction, statusOnly(NO_BODY)).thenApply(GameResponse::statusCode);
+    }
+
+    /**
+     * Non-blocking variant of {@link #look()}.
+     *
+     * @return A future holding the HTTP status code (0 if not logged in).
+     */
+    public CompletableFuture<Integer> lookAsync() {
+        return lookResponseAsync(lookCacheTtlNanos != 0 ? WHOLE_BODY : statusOnly(NO_BODY))
+                .thenApply(GameResponse::statusCode);
+    }
+
+    /**
+     * Non-blocking variant of {@link #setDoing(String)}.
+     *
+     * @param action The action to set (e.g., "reading a book").
+     * @return A future holding the HTTP status code (0 if not logged in).
+     */
+    public CompletableFuture<Integer> setDoingAsync(String action) {
+        return setDoingResponseAsync(action, statusOnly(NO_BODY)).thenApply(GameResponse::statusCode);
+    }
+
+    /**
+     * Non-blocking variant of {@link #useItem(String)}.
+     *
+     * @param item The name of the item to use.
+     * @return A future holding the HTTP status code (0 if not logged in).
+     */
+    public CompletableFuture<Integer> useItemAsync(String item) {
+        return useItemResponseAsync(item, statusOnly(NO_BODY)).thenApply(GameResponse::statusCode);
+    }
+
+    /**
+     * Non-blocking variant of {@link #createUserResponse(String, String)}.
+     */
+    public CompletableFuture<GameResponse> createUserResponseAsync(String username, String password) {
+        return createUserResponseAsync(username, password, WHOLE_BODY);
+    }
+
+    /**
+     * Non-blocking variant of {@link #loginResponse(String, String)}.
+     */
+    public CompletableFuture<GameResponse> loginResponseAsync(String username, String password) {
+        return loginResponseAsync(username, password, WHOLE_BODY);
+    }
+
+    /**
+     * Non-blocking variant of {@link #moveResponse(String)}.
+     */
+    public CompletableFuture<GameResponse> moveResponseAsync(String direction) {
+        return moveResponseAsync(direction, WHOLE_BODY);
+    }
+
+    /**
+     * Non-blocking variant of {@link #lookResponse()}.
+     */
+    public CompletableFuture<GameResponse> lookResponseAsync() {
+        return lookResponseAsync(WHOLE_BODY);
+    }
+
+    /**
+     * Non-blocking variant of {@link #setDoingResponse(String)}.
+     */
+    public CompletableFuture<GameResponse> setDoingResponseAsync(String action) {
+        return setDoingResponseAsync(action, WHOLE_BODY);
+    }
+
+    /**
+     * Non-blocking variant of {@link #useItemResponse(String)}.
+     */
+    public CompletableFuture<GameResponse> useItemResponseAsync(String item) {
+        return useItemResponseAsync(item, WHOLE_BODY);
+    }
+
+    private CompletableFuture<GameResponse> createUserResponseAsync(String username, String password,
+                                                                    HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        return sendAsync(Endpoint.USER, username, () -> buildPostRequest(Endpoint.USER, userBody(username, password)),
+                this::handleResponse, bodyHandler);
+    }
+
+    private CompletableFuture<GameResponse> loginResponseAsync(String username, String password,
+                                                               HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        return sendAsync(Endpoint.LOGIN, username, () -> buildPostRequest(Endpoint.LOGIN, userBody(username, password)),
+                (endpoint, response) -> handleLoginResponse(endpoint, response, username), bodyHandler);
+    }
+
+    private CompletableFuture<GameResponse> moveResponseAsync(String direction,
+                                                              HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        invalidateLookCache();
+        return sendAsync(Endpoint.MOVE, direction, () -> moveRequest(direction),
+                this::handleStateChangeResponse, bodyHandler);
+    }
+
+    private CompletableFuture<GameResponse> lookResponseAsync(HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        CachedLook cached = cachedLook();
+        if (cached != null) {
+            return CompletableFuture.completedFuture(handleResponse(Endpoint.LOOK, cached.response()));
+        }
+
+        long generation = lookGeneration.get();
+        return sendAsync(Endpoint.LOOK, null, this::lookRequest, (endpoint, response) -> {
+            if (bodyHandler == WHOLE_BODY) {
+                storeLook(response, generation);
+            }
+            return handleResponse(endpoint, response);
+        }, bodyHandler);
+    }
+
+    private CompletableFuture<GameResponse> setDoingResponseAsync(String action,
+                                                                  HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        invalidateLookCache();
+        return sendAsync(Endpoint.DOING, action, () -> doingRequest(action),
+                this::handleStateChangeResponse, bodyHandler);
+    }
+
+    private CompletableFuture<GameResponse> useItemResponseAsync(String item,
+                                                                 HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        invalidateLookCache();
+        return sendAsync(Endpoint.USE, item, () -> buildPostRequest(Endpoint.USE, useBody(item)),
+                this::handleStateChangeResponse, bodyHandler);
+    }
+
+    /**
+     * Returns this session's command queue, which sends moves, item uses and
+     * looks in order without blocking the caller and merges setDoing calls
+     * that have not been sent yet. See {@link CommandPipeline}.
+     */
+    public CommandPipeline pipeline() {
+        CommandPipeline commands = this.pipeline;
+        if (commands == null) {
+            synchronized (this) {
+                commands = this.pipeline;
+                if (commands == null) {
+                    commands = new CommandPipeline(this);
+                    this.pipeline = commands;
+                }
+            }
+        }
+        return commands;
+    }
+
+    // --- 3. Look Cache ---
+
+    /**
+     * Turns on the /look cache for this session.
+     *
+     * @param ttl How long a cached /look response may be reused. Must be positive.
+     */
+    public void enableLookCache(Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Look cache TTL must be positive: " + ttl);
+        }
+        invalidateLookCache();
+        this.lookCacheTtlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Turns the /look cache off and drops any cached response.
+     */
+    public void disableLookCache() {
+        this.lookCacheTtlNanos = 0;
+        invalidateLookCache();
+    }
+
+    /**
+     * Drops the cached /look response, if any. Called automatically by every
+     * state-changing action, both before it is sent and after it completes.
+     */
+    public void invalidateLookCache() {
+        lookGeneration.incrementAndGet();
+        cachedLook = null;
+    }
+
+    /**
+     * @return The number of look() calls answered from the cache.
+     */
+    public long getLookCacheHits() {
+        return lookCacheHits.sum();
+    }
+
+    /**
+     * @return The number of look() calls that went to the server while the cache was enabled.
+     */
+    public long getLookCacheMisses() {
+        return lookCacheMisses.sum();
+    }
+
+    /**
+     * Returns the cached /look response if it is still valid for this session,
+     * counting the hit or miss. Returns null when the cache is disabled.
+     */
+    private CachedLook cachedLook() {
+        if (lookCacheTtlNanos == 0) {
+            return null;
+        }
+        CachedLook cached = this.cachedLook;
+        if (cached != null
+                && cached.generation() == lookGeneration.get()
+                && cached.token().equals(sessionToken)
+                && System.nanoTime() - cached.expiresAt() < 0) {
+            lookCacheHits.increment();
+            return cached;
+        }
+        lookCacheMisses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a successful /look response, unless a state-changing call has
+     * happened since the request was started.
+     */
+    private void storeLook(GameResponse response, long generation) {
+        long ttl = lookCacheTtlNanos;
+        String token = sessionToken;
+        if (ttl == 0 || response.statusCode() != 200 || token == null) {
+            return;
+        }
+        cachedLook = new CachedLook(token, generation, System.nanoTime() + ttl, response);
+    }
+
+    private record CachedLook(String token, long generation, long expiresAt, GameResponse response) {
+    }
+
+    // --- 4. Private Helper Methods ---
+
+    // Manually build JSON: {"username": "...", "password": "..."}
+    static String userBody(String username, String password) {
+        return String.format("{\"username\": \"%s\", \"password\": \"%s\"}",
+                escapeJsonString(username), escapeJsonString(password));
+    }
+
+    // Manually build JSON: {"direction": "..."}
+    static String moveBody(String direction) {
+        return String.format("{\"direction\": \"%s\"}", escapeJsonString(direction));
+    }
+
+    // Manually build JSON: {"action": "..."}
+    static String doingBody(String action) {
+        return String.format("{\"action\": \"%s\"}", escapeJsonString(action));
+    }
+
+    // Manually build JSON: {"item": "..."}
+    static String useBody(String item) {
+        return String.format("{\"item\": \"%s\"}", escapeJsonString(item));
+    }
 
     /**
-     * The session token is stored internally after a successful login.
+     * @return How to read the body of a call whose caller only wants the
+     *         status: as given, unless the output sink will print the body.
      */
-    private String sessionToken;
+    private HttpResponse.BodyHandler<ResponseBody> statusOnly(HttpResponse.BodyHandler<ResponseBody> dropped) {
+        return outputSink instanceof OutputSink.NoOp ? dropped : WHOLE_BODY;
+    }
 
-    public String getToken()
-    {
-	    return sessionToken;
+    /**
+     * Reports the full server response to the output sink and returns it.
+     */
+    private GameResponse handleResponse(Endpoint endpoint, GameResponse response) {
+        OutputSink sink = outputSink;
+        if (!(sink instanceof OutputSink.NoOp)) {
+            // Only decode the body for a sink that reads it
+            sink.response(endpoint.path(), response.statusCode(), response.body());
+        }
+        return response;
     }
 
     /**
-     * Constructs a new MidsQuest.
-     *
-     * @param apiBaseUrl The base URL of the Mids Quest API (e.g., "http://lnx1073302govt:8000")
+     * Like {@link #handleResponse}, for calls that change what /look returns.
      */
-    public MidsQuest(String apiBaseUrl, HttpClient h) {
-        this.apiBaseUrl = apiBaseUrl;
-        this.httpClient = h;
+    private GameResponse handleStateChangeResponse(Endpoint endpoint, GameResponse response) {
+        invalidateLookCache();
+        handleResponse(endpoint, response);
+        if (response.statusCode() == 200) {
+            for (Runnable listener : stateListeners) {
+                listener.run();
+            }
+        }
+        return response;
     }
 
-    // --- 1. Public API Methods (Modified) ---
+    void addStateListener(Runnable listener) {
+        stateListeners.add(listener);
+    }
+
+    void removeStateListener(Runnable listener) {
+        stateListeners.remove(listener);
+    }
 
     /**
-     * Creates a new user. (POST /user)
-     * Prints the full server response and returns the HTTP status code.
-     *
-     * @param username The desired username.
-     * @param password The desired password.
-     * @return The HTTP status code from the server (e.g., 200, 400).
-     * @throws IOException          If a network error occurs.
-     * @throws InterruptedException If the request is interrupted.
+     * Reports the /login response and, if it succeeded, stores the session
+     * token (in the token cache too, if one is set).
      */
-    public int createUser(String username, String password) throws IOException, InterruptedException {
-        // Manually build JSON: {"username": "...", "password": "..."}
-        String requestBody = String.format("{\"username\": \"%s\", \"password\": \"%s\"}",
-                escapeJsonString(username), escapeJsonString(password));
+    private GameResponse handleLoginResponse(Endpoint endpoint, GameResponse response, String username) {
+        handleResponse(endpoint, response);
 
-        HttpResponse<String> response;
-        try {
-            response = sendPostRequest("/user", requestBody, false);
-        } catch (ApiException e) {
-            // This should not be reachable on a non-auth endpoint
-            System.err.println(e.getMessage());
-            return e.getStatusCode();
+        // If login was successful, parse and store the token
+        if (response.statusCode() == 200) {
+            String token = response.sessionToken();
+            if (token == null) {
+                token = "Could not parse JSON";
+                outputSink.error("Warning: Login successful but could not parse session_token.");
+            } else {
+                cacheToken(username, token);
+            }
+            // Store the token internally for other methods
+            this.sessionToken = token;
         }
 
-        System.out.println(response.body()); // Print response to screen
-        return response.statusCode(); // Return code
+        return response;
     }
 
     /**
-     * Logs in and stores the session token for future requests. (POST /login)
-     * Prints the full server response and returns the HTTP status code.
+     * Replaces a token the server rejected by logging in again with the
+     * credentials given to {@link #resumeSession} or {@link #setCredentials}.
+     * Concurrent callers share one /login, and if the token has already
+     * changed since staleToken was read, nothing is sent. A token in the
+     * token cache other than the stale one is taken instead of logging in;
+     * the stale one is dropped from the cache.
      *
-     * @param username The user's username.
-     * @param password The user's password.
-     * @return The HTTP status code from the server (e.g., 200, 400).
-     * @throws IOException          If a network error occurs.
-     * @throws InterruptedException If the request is interrupted.
+     * @param staleToken The token the caller saw rejected (null if none).
+     * @return A future holding the /login status (200 if no login was needed).
      */
-    public int login(String username, String password) throws IOException, InterruptedException {
-        // Manually build JSON: {"username": "...", "password": "..."}
-        String requestBody = String.format("{\"username\": \"%s\", \"password\": \"%s\"}",
-                escapeJsonString(username), escapeJsonString(password));
+    CompletableFuture<Integer> relogin(String staleToken) {
+        Credentials credentials = this.credentials;
+        if (credentials == null) {
+            throw new IllegalStateException("No credentials to log in again with");
+        }
+        while (true) {
+            if (tokenReplaced(staleToken)) {
+                return CompletableFuture.completedFuture(200);
+            }
+            CompletableFuture<Integer> inFlight = reloginInFlight.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<Integer> mine = new CompletableFuture<>();
+            if (!reloginInFlight.compareAndSet(null, mine)) {
+                continue;
+            }
+            // Another login may have finished between the check and the CAS
+            if (tokenReplaced(staleToken) || resumeCachedToken(credentials.username(), staleToken)) {
+                reloginInFlight.set(null);
+                mine.complete(200);
+                return mine;
+            }
+            if (staleToken != null) {
+                forgetToken(credentials.username(), staleToken);
+            }
+            relogins.increment();
+            loginAsync(credentials.username(), credentials.password()).whenComplete((status, failure) -> {
+                // The new token is already stored, so late callers see it and skip logging in
+                reloginInFlight.set(null);
+                if (failure != null) {
+                    mine.completeExceptionally(failure);
+                } else {
+                    mine.complete(status);
+                }
+            });
+            return mine;
+        }
+    }
+
+    /**
+     * @return The number of /login requests {@link #relogin} has sent.
+     */
+    long relogins() {
+        return relogins.sum();
+    }
+
+    private boolean tokenReplaced(String staleToken) {
+        String current = sessionToken;
+        return current != null && !current.equals(staleToken);
+    }
+
+    /**
+     * Takes the token cached for this user unless it is the stale one.
+     *
+     * @return Whether a cached token was taken.
+     */
+    private boolean resumeCachedToken(String username, String staleToken) {
+        String cached = cachedToken(username);
+        if (cached == null || cached.equals(staleToken)) {
+            return false;
+        }
+        this.sessionToken = cached;
+        return true;
+    }
 
-        HttpResponse<String> response;
+    /**
+     * Waits for a login started by {@link #relogin}, rethrowing its failure
+     * as an IOException.
+     */
+    static int await(CompletableFuture<Integer> login) throws IOException, InterruptedException {
         try {
-            response = sendPostRequest("/login", requestBody, false);
-        } catch (ApiException e) {
-            // This should not be reachable on a non-auth endpoint
-            System.err.println(e.getMessage());
-            return e.getStatusCode();
+            return login.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Login failed", cause);
+        }
+    }
+
+    /**
+     * @return The token cached for this user on this server, or null if
+     *         there is none or no token cache is set.
+     */
+    private String cachedToken(String username) {
+        TokenCache cache = this.tokenCache;
+        if (cache == null) {
+            return null;
+        }
+        try {
+            return cache.get(apiBaseUrl, username);
+        } catch (IOException e) {
+            outputSink.error("Warning: could not read the token cache: " + e.getMessage());
+            return null;
         }
+    }
 
-        System.out.println(response.body()); // Print response to screen
+    private void cacheToken(String username, String token) {
+        TokenCache cache = this.tokenCache;
+        if (cache == null || username == null) {
+            return;
+        }
+        try {
+            cache.put(apiBaseUrl, username, token);
+        } catch (IOException e) {
+            outputSink.error("Warning: could not write the token cache: " + e.getMessage());
+        }
+    }
 
-        // If login was successful, parse and store the token
-        if (response.statusCode() == 200) {
-            String token = parseSimpleJsonValue(response.body(), "session_token");
-            if (token.equals("Could not parse JSON")) {
-                System.err.println("Warning: Login successful but could not parse session_token.");
-            }
-            // Store the token internally for other methods
-            this.sessionToken = token;
+    private void forgetToken(String username, String token) {
+        TokenCache cache = this.tokenCache;
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.remove(apiBaseUrl, username, token);
+        } catch (IOException e) {
+            outputSink.error("Warning: could not write the token cache: " + e.getMessage());
         }
+    }
 
-        return response.statusCode(); // Return code
+    private record Credentials(String username, String password) {
     }
 
     /**
-     * Moves the player in a given direction. (POST /move)
-     * Requires a prior successful login.
-     * Prints the full server response and returns the HTTP status code.
+     * Sends a request and waits for the response, applying the resilience
+     * policy if one is set, and records the call if a trace is being recorded.
      *
-     * @param direction The direction to move (e.g., "north").
-     * @return The HTTP status code from the server (e.g., 200, 401, 400).
-     * @throws IOException          If a network error occurs.
-     * @throws InterruptedException If the request is interrupted.
+     * @param endpoint The API endpoint the request targets.
+     * @param request  The request, from one of the build methods below.
+     * @param argument What the call was given, for the trace (never a password).
+     * @param bodyHandler How much of the body to keep.
+     * @return The server's HttpResponse.
+     * @throws ApiException If the endpoint's circuit breaker is open (status 503).
+     * @throws IOException, InterruptedException
      */
-    public int move(String direction) throws IOException, InterruptedException {
-        // Manually build JSON: {"direction": "..."}
-        String requestBody = String.format("{\"direction\": \"%s\"}", escapeJsonString(direction));
-
-        HttpResponse<String> response;
+    private HttpResponse<ResponseBody> send(Endpoint endpoint, HttpRequest request, String argument,
+                                            HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException, ApiException {
+        TraceRecorder recorder = this.traceRecorder;
+        if (recorder == null) {
+            return send(endpoint, request, bodyHandler);
+        }
+        long start = System.nanoTime();
         try {
-            response = sendPostRequest("/move", requestBody, true);
+            HttpResponse<ResponseBody> response = send(endpoint, request, bodyHandler);
+            recorder.record(traceSession, endpoint, argument, start, System.nanoTime() - start,
+                    response.statusCode(), response.body().length());
+            return response;
         } catch (ApiException e) {
-            // This *can* happen if not logged in
-            System.err.println(e.getMessage());
-            return e.getStatusCode(); // Returns 0
+            recorder.record(traceSession, endpoint, argument, start, System.nanoTime() - start, e.getStatusCode(), 0);
+            throw e;
+        } catch (IOException | InterruptedException e) {
+            recorder.record(traceSession, endpoint, argument, start, System.nanoTime() - start, 0, 0);
+            throw e;
         }
+    }
 
-        System.out.println(response.body()); // Print response to screen
-        return response.statusCode(); // Return code
+    private HttpResponse<ResponseBody> send(Endpoint endpoint, HttpRequest request,
+                                            HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException, ApiException {
+        ResiliencePolicy policy = this.resiliencePolicy;
+        if (policy == null) {
+            return sendOnce(endpoint, request, bodyHandler);
+        }
+        try {
+            return attempt(policy, endpoint, request, bodyHandler, 1).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof ApiException api) {
+                throw api;
+            }
+            throw new IOException(cause);
+        }
     }
 
     /**
-     * Gets a description of the current room. (GET /look)
-     * Requires a prior successful login.
-     * Prints the full server response and returns the HTTP status code.
-     *
-     * @return The HTTP status code from the server (e.g., 200, 401).
-     * @throws IOException          If a network error occurs.
-     * @throws InterruptedException If the request is interrupted.
+     * Builds a request, sends it and waits for the response. A missing
+     * session token, or an open circuit breaker, gives a response with the
+     * ApiException's status code instead. After {@link #resumeSession}, a 401
+     * logs in again and the call is sent once more.
      */
-    public int look() throws IOException, InterruptedException {
-        HttpResponse<String> response;
+    private GameResponse call(Endpoint endpoint, String argument, RequestFactory factory, ResponseHandler handler,
+                              HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        String token = sessionToken;
+        GameResponse response = callOnce(endpoint, argument, factory, handler, bodyHandler);
+        if (response.statusCode() != 401 || !endpoint.requiresAuth() || credentials == null) {
+            return response;
+        }
+        try {
+            if (relogin(token).get() != 200) {
+                return response;
+            }
+        } catch (ExecutionException e) {
+            return response; // The login failed too; the 401 stands
+        }
+        return callOnce(endpoint, argument, factory, handler, bodyHandler);
+    }
+
+    private GameResponse callOnce(Endpoint endpoint, String argument, RequestFactory factory, ResponseHandler handler,
+                                  HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        HttpResponse<ResponseBody> response;
         try {
-            response = sendGetRequest("/look", true);
+            response = send(endpoint, factory.build(), argument, bodyHandler);
         } catch (ApiException e) {
             // This *can* happen if not logged in
-            System.err.println(e.getMessage());
-            return e.getStatusCode(); // Returns 0
+            outputSink.error(e.getMessage());
+            return GameResponse.clientError(endpoint.path(), e.getStatusCode(), e.getMessage()); // Status 0
         }
-
-        System.out.println(response.body()); // Print response to screen
-        return response.statusCode(); // Return code
+        return handler.handle(endpoint, new GameResponse(endpoint.path(), response));
     }
 
     /**
-     * Sets the player's current action. (POST /doing)
-     * Requires a prior successful login.
-     * Prints the full server response and returns the HTTP status code.
-     *
-     * @param action The action to set (e.g., "reading a book").
-     * @return The HTTP status code from the server (e.g., 200, 401).
-     * @throws IOException          If a network error occurs.
-     * @throws InterruptedException If the request is interrupted.
+     * Builds a request and sends it without blocking.
+     * A missing session token, or an open circuit breaker, completes the
+     * future with a response holding the ApiException's status code, matching
+     * what the blocking methods return. After {@link #resumeSession}, a 401
+     * logs in again and the call is sent once more.
      */
-    public int setDoing(String action) throws IOException, InterruptedException {
-        // Manually build JSON: {"action": "..."}
-        String requestBody = String.format("{\"action\": \"%s\"}", escapeJsonString(action));
+    private CompletableFuture<GameResponse> sendAsync(Endpoint endpoint, String argument, RequestFactory factory,
+                                                      ResponseHandler handler,
+                                                      HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        String token = sessionToken;
+        CompletableFuture<GameResponse> sent = sendAsyncOnce(endpoint, argument, factory, handler, bodyHandler);
+        if (!endpoint.requiresAuth() || credentials == null) {
+            return sent;
+        }
+        return sent.thenCompose(response -> response.statusCode() != 401
+                ? CompletableFuture.completedFuture(response)
+                : relogin(token).exceptionally(failure -> 0).thenCompose(status -> status == 200
+                        ? sendAsyncOnce(endpoint, argument, factory, handler, bodyHandler)
+                        : CompletableFuture.completedFuture(response)));
+    }
 
-        HttpResponse<String> response;
+    private CompletableFuture<GameResponse> sendAsyncOnce(Endpoint endpoint, String argument, RequestFactory factory,
+                                                          ResponseHandler handler,
+                                                          HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        HttpRequest request;
         try {
-            response = sendPostRequest("/doing", requestBody, true);
+            request = factory.build();
         } catch (ApiException e) {
             // This *can* happen if not logged in
-            System.err.println(e.getMessage());
-            return e.getStatusCode(); // Returns 0
+            outputSink.error(e.getMessage());
+            return CompletableFuture.completedFuture(
+                    GameResponse.clientError(endpoint.path(), e.getStatusCode(), e.getMessage())); // Status 0
+        }
+        ResiliencePolicy policy = this.resiliencePolicy;
+        TraceRecorder recorder = this.traceRecorder;
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<ResponseBody>> sent = policy == null
+                ? sendOnceAsync(endpoint, request, bodyHandler)
+                : attempt(policy, endpoint, request, bodyHandler, 1);
+        if (recorder != null) {
+            int session = traceSession;
+            sent = sent.whenComplete((response, failure) -> {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                int status = response != null ? response.statusCode()
+                        : cause instanceof ApiException api ? api.getStatusCode() : 0;
+                recorder.record(session, endpoint, argument, start, System.nanoTime() - start,
+                        status, response != null ? response.body().length() : 0);
+            });
+        }
+        if (policy == null) {
+            return sent.thenApply(response -> handler.handle(endpoint, new GameResponse(endpoint.path(), response)));
         }
+        return sent.handle((response, failure) -> {
+            if (failure == null) {
+                return handler.handle(endpoint, new GameResponse(endpoint.path(), response));
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            if (cause instanceof ApiException api) {
+                outputSink.error(api.getMessage());
+                return GameResponse.clientError(endpoint.path(), api.getStatusCode(), api.getMessage());
+            }
+            throw failure instanceof CompletionException ce ? ce : new CompletionException(failure);
+        });
+    }
 
-        System.out.println(response.body()); // Print response to screen
-        return response.statusCode(); // Return code
+    /**
+     * One attempt at a call under a resilience policy: checks the circuit
+     * breaker, sends (hedging /look if enabled), records the outcome and,
+     * for idempotent calls that failed, schedules the next attempt after a
+     * jittered backoff.
+     */
+    private CompletableFuture<HttpResponse<ResponseBody>> attempt(ResiliencePolicy policy, Endpoint endpoint,
+                                                                 HttpRequest request,
+                                                                 HttpResponse.BodyHandler<ResponseBody> bodyHandler,
+                                                                 int attempt) {
+        if (!policy.tryAcquire(endpoint)) {
+            return CompletableFuture.failedFuture(
+                    new ApiException("Circuit open for " + endpoint.path() + ": failing fast.", 503));
+        }
+        CompletableFuture<HttpResponse<ResponseBody>> sent = policy.hedges(endpoint)
+                ? sendHedged(policy, endpoint, request, bodyHandler)
+                : sendOnceAsync(endpoint, request, bodyHandler);
+        return sent.handle((response, failure) -> {
+            if (failure == null && !ResiliencePolicy.isFailure(response.statusCode())) {
+                policy.onSuccess(endpoint);
+                return CompletableFuture.completedFuture(response);
+            }
+            policy.onFailure(endpoint);
+            if (attempt < policy.attempts(endpoint)) {
+                return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(
+                                policy.backoffNanos(attempt), TimeUnit.NANOSECONDS))
+                        .thenCompose(ignored -> attempt(policy, endpoint, request, bodyHandler, attempt + 1));
+            }
+            return failure == null
+                    ? CompletableFuture.completedFuture(response)
+                    : CompletableFuture.<HttpResponse<ResponseBody>>failedFuture(failure);
+        }).thenCompose(Function.identity());
     }
 
     /**
-     * Uses an item in the current room. (POST /use)
-     * Requires a prior successful login.
-     * Prints the full server response and returns the HTTP status code.
-     *
-     * @param item The name of the item to use.
-     * @return The HTTP status code from the server (e.g., 200, 401, 400).
-     * @throws IOException          If a network error occurs.
-     * @throws InterruptedException If the request is interrupted.
+     * Sends a request, and a second copy if the first has not answered after
+     * the policy's hedge delay. Completes with whichever response arrives
+     * first, or fails only if every copy sent failed.
      */
-    public int useItem(String item) throws IOException, InterruptedException {
-        // Manually build JSON: {"item": "..."}
-        String requestBody = String.format("{\"item\": \"%s\"}", escapeJsonString(item));
+    private CompletableFuture<HttpResponse<ResponseBody>> sendHedged(ResiliencePolicy policy, Endpoint endpoint,
+                                                                    HttpRequest request,
+                                                                    HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        RateLimiter limiter = this.rateLimiter;
+        if (limiter != null) {
+            return limiter.acquireAsync(endpoint)
+                    .thenCompose(ignored -> sendHedged(policy, endpoint, request, bodyHandler, limiter));
+        }
+        return sendHedged(policy, endpoint, request, bodyHandler, null);
+    }
+
+    private CompletableFuture<HttpResponse<ResponseBody>> sendHedged(ResiliencePolicy policy, Endpoint endpoint,
+                                                                    HttpRequest request,
+                                                                    HttpResponse.BodyHandler<ResponseBody> bodyHandler,
+                                                                    RateLimiter limiter) {
+        long delay = policy.hedgeDelayNanos(metrics.latency(endpoint));
+        CompletableFuture<HttpResponse<ResponseBody>> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        // Keep the raw HttpClient futures: cancelling those is what aborts an exchange
+        long primaryStart = System.nanoTime();
+        CompletableFuture<HttpResponse<ResponseBody>> primary = httpClient.sendAsync(request, bodyHandler);
+        recorded(endpoint, request, primaryStart, primary, limiter)
+                .whenComplete((response, failure) -> settle(result, outstanding, response, failure));
+
+        CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+            // Only hedge while the first copy is still out, within budget, and never wait for the limiter
+            if (result.isDone() || !policy.tryHedge() || (limiter != null && !limiter.tryAcquire(endpoint))) {
+                return;
+            }
+            if (outstanding.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                if (limiter != null) {
+                    limiter.cancel(endpoint);
+                }
+                return;
+            }
+            long hedgeStart = System.nanoTime();
+            CompletableFuture<HttpResponse<ResponseBody>> hedge = httpClient.sendAsync(request, bodyHandler);
+            recorded(endpoint, request, hedgeStart, hedge, limiter)
+                    .whenComplete((response, failure) -> settle(result, outstanding, response, failure));
+            result.whenComplete((response, failure) -> {
+                // Abandon whichever copy lost
+                primary.cancel(true);
+                hedge.cancel(true);
+            });
+        });
+        return result;
+    }
+
+    private static void settle(CompletableFuture<HttpResponse<ResponseBody>> result, AtomicInteger outstanding,
+                               HttpResponse<ResponseBody> response, Throwable failure) {
+        if (failure == null) {
+            result.complete(response);
+        } else if (outstanding.decrementAndGet() == 0) {
+            result.completeExceptionally(failure);
+        }
+    }
 
-        HttpResponse<String> response;
+    /**
+     * Sends a request once and waits for the response, recording metrics.
+     */
+    private HttpResponse<ResponseBody> sendOnce(Endpoint endpoint, HttpRequest request,
+                                                HttpResponse.BodyHandler<ResponseBody> bodyHandler)
+            throws IOException, InterruptedException {
+        ClientMetrics metrics = this.metrics;
+        RateLimiter limiter = this.rateLimiter;
+        if (limiter != null) {
+            limiter.acquire(endpoint);
+        }
+        long start = System.nanoTime();
+        HttpResponse<ResponseBody> response;
         try {
-            response = sendPostRequest("/use", requestBody, true);
-        } catch (ApiException e) {
-            // This *can* happen if not logged in
-            System.err.println(e.getMessage());
-            return e.getStatusCode(); // Returns 0
+            response = httpClient.send(request, bodyHandler);
+        } catch (IOException | InterruptedException e) {
+            long nanos = System.nanoTime() - start;
+            metrics.recordFailure(endpoint, nanos, bytesOut(request));
+            if (limiter != null) {
+                limiter.release(endpoint, nanos, 0);
+            }
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        metrics.record(endpoint, nanos, response.statusCode(), bytesOut(request), response.body().length());
+        if (limiter != null) {
+            limiter.release(endpoint, nanos, response.statusCode());
         }
+        return response;
+    }
+
+    /**
+     * Sends a request once without blocking, recording metrics.
+     */
+    private CompletableFuture<HttpResponse<ResponseBody>> sendOnceAsync(Endpoint endpoint, HttpRequest request,
+                                                                       HttpResponse.BodyHandler<ResponseBody> bodyHandler) {
+        RateLimiter limiter = this.rateLimiter;
+        if (limiter == null) {
+            long start = System.nanoTime();
+            return recorded(endpoint, request, start,
+                    httpClient.sendAsync(request, bodyHandler), null);
+        }
+        return limiter.acquireAsync(endpoint).thenCompose(ignored -> {
+            long start = System.nanoTime();
+            return recorded(endpoint, request, start,
+                    httpClient.sendAsync(request, bodyHandler), limiter);
+        });
+    }
 
-        System.out.println(response.body()); // Print response to screen
-        return response.statusCode(); // Return code
+    /**
+     * @return A future that completes like sent, after recording its outcome
+     *         in the metrics and releasing its rate limiter slot (if any).
+     */
+    private CompletableFuture<HttpResponse<ResponseBody>> recorded(Endpoint endpoint, HttpRequest request, long start,
+                                                                   CompletableFuture<HttpResponse<ResponseBody>> sent,
+                                                                   RateLimiter limiter) {
+        ClientMetrics metrics = this.metrics;
+        return sent.whenComplete((response, failure) -> {
+            long nanos = System.nanoTime() - start;
+            if (response != null) {
+                metrics.record(endpoint, nanos, response.statusCode(),
+                        bytesOut(request), response.body().length());
+                if (limiter != null) {
+                    limiter.release(endpoint, nanos, response.statusCode());
+                }
+            } else if (failure instanceof CancellationException) {
+                // A hedge's abandoned copy is neither a failure nor a latency sample
+                if (limiter != null) {
+                    limiter.cancel(endpoint);
+                }
+            } else {
+                metrics.recordFailure(endpoint, nanos, bytesOut(request));
+                if (limiter != null) {
+                    limiter.release(endpoint, nanos, 0);
+                }
+            }
+        });
     }
 
-    // --- 2. Private Helper Methods ---
+    private static long bytesOut(HttpRequest request) {
+        HttpRequest.BodyPublisher body = request.bodyPublisher().orElse(null);
+        return body != null ? Math.max(0, body.contentLength()) : 0;
+    }
 
     /**
-     * Sends a POST request.
+     * Builds a POST request with a JSON body. Adds the session-token header
+     * when the endpoint requires authentication.
      *
-     * @param endpoint    The API endpoint (e.g., "/login").
-     * @param requestBody The JSON string payload.
-     * @param requireAuth Whether to send the session-token header.
-     * @return The server's HttpResponse.
-     * @throws IOException, InterruptedException
      * @throws ApiException if authentication is required but not available.
      */
-    private HttpResponse<String> sendPostRequest(String endpoint, String requestBody, boolean requireAuth)
-            throws IOException, InterruptedException, ApiException {
+    HttpRequest buildPostRequest(Endpoint endpoint, String requestBody) throws ApiException {
+        return buildRequest(endpoint, HttpRequest.BodyPublishers.ofString(requestBody),
+                endpoint.requiresAuth() ? requireToken() : null);
+    }
+
+    /**
+     * Builds a GET request, with the session-token header if required.
+     *
+     * @throws ApiException if authentication is required but not available.
+     */
+    HttpRequest buildGetRequest(Endpoint endpoint) throws ApiException {
+        return buildRequest(endpoint, null, endpoint.requiresAuth() ? requireToken() : null);
+    }
 
-        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(apiBaseUrl + endpoint))
-                .header("Content-Type", "application/json")
-                .header("accept", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody));
+    /**
+     * @return The /look request for the current session (reused between calls).
+     */
+    HttpRequest lookRequest() throws ApiException {
+        return prepared().look;
+    }
 
-        if (requireAuth) {
-            if (this.sessionToken == null || this.sessionToken.isEmpty()) {
-                // This exception is for *before* the request is sent
-                throw new ApiException("Cannot make authenticated request: Not logged in.", 0);
-            }
+    /**
+     * @return A /move request, reusing the prepared one for compass directions.
+     */
+    HttpRequest moveRequest(String direction) throws ApiException {
+        HttpRequest preset = prepared().moves.get(direction);
+        return preset != null ? preset : buildPostRequest(Endpoint.MOVE, moveBody(direction));
+    }
+
+    /**
+     * @return A /doing request, reusing the prepared one for common actions.
+     */
+    HttpRequest doingRequest(String action) throws ApiException {
+        HttpRequest preset = prepared().doings.get(action);
+        return preset != null ? preset : buildPostRequest(Endpoint.DOING, doingBody(action));
+    }
+
+    /**
+     * Returns the requests prepared for the current session token,
+     * building them if the token has changed since the last call.
+     */
+    private PreparedRequests prepared() throws ApiException {
+        String token = requireToken();
+        PreparedRequests prepared = this.preparedRequests;
+        if (prepared == null || !prepared.token.equals(token)) {
+            prepared = new PreparedRequests(token);
+            this.preparedRequests = prepared;
+        }
+        return prepared;
+    }
+
+    /**
+     * Builds a request from the precomputed URI and headers.
+     *
+     * @param body  The body publisher for a POST, or null for a GET.
+     * @param token The session token to send, or null for none.
+     */
+    private HttpRequest buildRequest(Endpoint endpoint, HttpRequest.BodyPublisher body, String token) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(endpointUris[endpoint.ordinal()]);
+        if (body != null) {
+            requestBuilder.headers(POST_HEADERS).POST(body);
+        } else {
+            requestBuilder.headers(GET_HEADERS).GET();
+        }
+        if (token != null) {
             // Add the "session-token" (with hyphen) header
-            requestBuilder.header("session-token", this.sessionToken);
+            requestBuilder.header("session-token", token);
+        }
+        return requestBuilder.build();
+    }
+
+    private String requireToken() throws ApiException {
+        String token = this.sessionToken;
+        if (token == null || token.isEmpty()) {
+            // This exception is for *before* the request is sent
+            throw new ApiException("Cannot make authenticated request: Not logged in.", 0);
         }
+        return token;
+    }
 
-        return httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
+    private static Map<String, byte[]> presetBodies(Function<String, String> bodyBuilder, String... values) {
+        Map<String, byte[]> bodies = new HashMap<>();
+        for (String value : values) {
+            bodies.put(value, bodyBuilder.apply(value).getBytes(StandardCharsets.UTF_8));
+        }
+        return Map.copyOf(bodies);
     }
 
     /**
-     * Sends a GET request.
-     *
-     * @param endpoint    The API endpoint (e.g., "/look").
-     * @param requireAuth Whether to send the session-token header.
-     * @return The server's HttpResponse.
-     * @throws IOException, InterruptedException
-     * @throws ApiException if authentication is required but not available.
+     * Immutable requests for one session token. HttpRequest objects carry no
+     * per-send state, so the same instance can be sent any number of times.
      */
-    private HttpResponse<String> sendGetRequest(String endpoint, boolean requireAuth)
-            throws IOException, InterruptedException, ApiException {
+    private final class PreparedRequests {
+        final String token;
+        final HttpRequest look;
+        final Map<String, HttpRequest> moves;
+        final Map<String, HttpRequest> doings;
 
-        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(apiBaseUrl + endpoint))
-                .header("accept", "application/json")
-                .GET();
+        PreparedRequests(String token) {
+            this.token = token;
+            this.look = buildRequest(Endpoint.LOOK, null, token);
+            this.moves = prepare(Endpoint.MOVE, PRESET_MOVE_BODIES);
+            this.doings = prepare(Endpoint.DOING, PRESET_DOING_BODIES);
+        }
 
-        if (requireAuth) {
-            if (this.sessionToken == null || this.sessionToken.isEmpty()) {
-                // This exception is for *before* the request is sent
-                throw new ApiException("Cannot make authenticated request: Not logged in.", 0);
+        private Map<String, HttpRequest> prepare(Endpoint endpoint, Map<String, byte[]> bodies) {
+            Map<String, HttpRequest> requests = new HashMap<>();
+            for (Map.Entry<String, byte[]> entry : bodies.entrySet()) {
+                requests.put(entry.getKey(), buildRequest(endpoint,
+                        HttpRequest.BodyPublishers.ofByteArray(entry.getValue()), token));
             }
-            // Add the "session-token" (with hyphen) header
-            requestBuilder.header("session-token", this.sessionToken);
+            return Map.copyOf(requests);
         }
+    }
+
+    /**
+     * Reports a response and does any per-endpoint bookkeeping (e.g., storing the token).
+     */
+    @FunctionalInterface
+    private interface ResponseHandler {
+        GameResponse handle(Endpoint endpoint, GameResponse response);
+    }
 
-        return httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
+    /**
+     * Builds a request, possibly failing before anything is sent.
+     */
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest build() throws ApiException;
     }
 
     /**
-     * A very simple, fragile JSON parser using regex.
-     * It finds a key and returns its value (as a String).
+     * Finds a top-level key in a JSON response and returns its value (as a String).
+     * String values are un-escaped; arrays and objects are returned as raw JSON.
      *
      * @param json The JSON string to parse.
      * @param key  The key to find (e.g., "message", "session_token", "detail").
      * @return The value as a string, or "Could not parse JSON" if not found.
      */
-    private String parseSimpleJsonValue(String json, String key) {
-        // This regex looks for the key, followed by a colon,
-        // and then captures either a quoted string ("...") or an array ([...]).
-        Pattern pattern = Pattern.compile(
-                "\"" + key + "\"\\s*:\\s*(\".*?\"|\\[.*?\\]|\\{.*?\\})",
-                Pattern.CASE_INSENSITIVE
-        );
-        Matcher matcher = pattern.matcher(json);
-
-        if (matcher.find()) {
-            String value = matcher.group(1);
-
-            // If the value is a string, strip the surrounding quotes
-            if (value.startsWith("\"") && value.endsWith("\"")) {
-                // Also un-escape quotes within the string
-                return value.substring(1, value.length() - 1).replace("\\\"", "\"");
-            }
-            // Otherwise, return the value as-is (e.g., an array as a string)
-            return value;
+    static String parseSimpleJsonValue(String json, String key) {
+        String value;
+        try {
+            value = JsonReader.extract(json, key);
+        } catch (IllegalArgumentException e) {
+            value = null;
         }
-
-        return "Could not parse JSON";
+        return value != null ? value : "Could not parse JSON";
     }
 
     /**
      * Escapes special characters for a JSON string.
      */
-    private String escapeJsonString(String value) {
+    static String escapeJsonString(String value) {
         return value.replace("\\", "\\\\")
                 .replace("\"", "\\\"")
                 .replace("\b", "\\b")
@@ -327,7 +1500,42 @@ public class MidsQuest {
                 .replace("\t", "\\t");
     }
 
-    // --- 3. Custom Exception Class ---
+    // --- 5. Endpoints and Custom Exception Class ---
+
+    /**
+     * The API endpoints this client talks to.
+     */
+    enum Endpoint {
+        USER("/user", false),
+        LOGIN("/login", false),
+        MOVE("/move", true),
+        LOOK("/look", true),
+        DOING("/doing", true),
+        USE("/use", true);
+
+        private final String path;
+        private final boolean requiresAuth;
+
+        Endpoint(String path, boolean requiresAuth) {
+            this.path = path;
+            this.requiresAuth = requiresAuth;
+        }
+
+        String path() {
+            return path;
+        }
+
+        boolean requiresAuth() {
+            return requiresAuth;
+        }
+
+        /**
+         * @return Whether sending the request twice is harmless, so it may be retried or hedged.
+         */
+        boolean idempotent() {
+            return this == LOOK;
+        }
+    }
 
     /**
      * Custom exception for handling API-specific errors.
@@ -346,39 +1554,52 @@ public class MidsQuest {
         }
     }
 
-    // --- 4. Example Usage (main method - MODIFIED) ---
+    // --- 6. Example Usage (main method - MODIFIED) ---
 
     public static void main(String[] args) {
         // Use the API URL from the documentation
-	HttpClient httpClient = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
-        MidsQuest client = new MidsQuest("http://lnx1073302govt:8000", httpClient);
+        // HTTP/1.1 unless run with -Dmidsquest.http2=true
+        HttpClient httpClient = HttpClientFactory.create(new TransportConfig());
+        // Pass a base URL (e.g., a local ServerModel) to override the default
+        String baseUrl = args.length > 0 ? args[0] : "http://lnx1073302govt:8000";
+        MidsQuest client = new MidsQuest(baseUrl, httpClient);
 
         // Generate a unique username to avoid 400 errors
         String username = "player_" + System.currentTimeMillis();
         String password = "password123";
+        // Pass a token cache file too to keep one user across runs and skip /login while its token is valid
+        Path tokenCacheFile = args.length > 1 ? Path.of(args[1]) : null;
 
-        try {
-            // 1. Create User
-            System.out.println("Attempting to create user: " + username);
-            // Methods now print the response and return a code
-            int createCode = client.createUser(username, password);
-            System.out.println("-> Status code: " + createCode);
-            // Check the code before proceeding
-            if (createCode != 200) {
-                System.err.println("User creation failed. Stopping.");
-                return;
+        try (TokenCache tokenCache = tokenCacheFile != null ? TokenCache.open(tokenCacheFile) : null) {
+            boolean resumed = false;
+            if (tokenCache != null) {
+                client.setTokenCache(tokenCache);
+                username = "player_" + System.getProperty("user.name");
+                System.out.println("Attempting to resume a session as: " + username);
+                resumed = client.resumeSession(username, password) == 200;
+                System.out.println(resumed ? "-> Resumed" : "-> Nothing to resume");
             }
 
-            // 2. Login
-            System.out.println("\nAttempting to log in as: " + username);
-            int loginCode = client.login(username, password);
-            System.out.println("-> Status code: " + loginCode);
-            if (loginCode != 200) {
-                System.err.println("Login failed. Stopping.");
-                return;
+            if (!resumed) {
+                // 1. Create User
+                System.out.println("Attempting to create user: " + username);
+                // Methods now print the response and return a code
+                int createCode = client.createUser(username, password);
+                System.out.println("-> Status code: " + createCode);
+                // Check the code before proceeding
+                if (createCode != 200) {
+                    System.err.println("User creation failed. Stopping.");
+                    return;
+                }
+
+                // 2. Login
+                System.out.println("\nAttempting to log in as: " + username);
+                int loginCode = client.login(username, password);
+                System.out.println("-> Status code: " + loginCode);
+                if (loginCode != 200) {
+                    System.err.println("Login failed. Stopping.");
+                    return;
+                }
             }
 
             // 3. Look (Authenticated)
@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.*;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput, latency and allocation budgets for the client's hot path,
+ * against an embedded ServerModel on loopback. Run with ./run-tests.sh perf.
+ *
+ * Budgets are loose enough for a shared CI runner and can be overridden
+ * with system properties (e.g., -Dperf.look.minRps=2000) on faster machines.
+ * Allocations are counted on the client's own threads only: the test
+ * thread, the HttpClient's executor and its selector. The server handles
+ * requests on virtual threads, which are not counted.
+ */
+public class MidsQuestPerfTest {
+
+    private static final int WARMUP = 3_000;
+    private static final int MEASURED = 3_000;
+    private static final int SESSIONS = 50;
+
+    private static ServerModel server;
+    private static ThreadPoolExecutor clientExecutor;
+    private static HttpClient httpClient;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        server = new ServerModel();
+        server.start(0);
+        AtomicInteger threads = new AtomicInteger();
+        clientExecutor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                task -> new Thread(task, "perf-client-" + threads.incrementAndGet()));
+        clientExecutor.prestartAllCoreThreads();
+        httpClient = HttpClientFactory.create(new TransportConfig().executor(clientExecutor));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        server.stop();
+        clientExecutor.shutdownNow();
+    }
+
+    @Test
+    @Tag("perf")
+    public void testLookThroughputAndLatency() throws Exception {
+        MidsQuest client = loggedIn("perf_look");
+        for (int i = 0; i < WARMUP; i++) {
+            assertEquals(200, client.look());
+        }
+        client.setMetrics(new ClientMetrics());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            client.look();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        ClientMetrics.EndpointSnapshot look = client.getMetrics().snapshot().endpoint("/look");
+        double rps = MEASURED / seconds;
+        double p99Millis = look.p99() / 1e6;
+        String measured = String.format("/look: %.0f req/s, p99 %.3f ms", rps, p99Millis);
+
+        assertEquals(0, look.errors(), measured);
+        assertTrue(rps >= budget("perf.look.minRps", 500), measured);
+        assertTrue(p99Millis <= budget("perf.look.maxP99Millis", 20), measured);
+    }
+
+    @Test
+    @Tag("perf")
+    public void testConcurrentSessionThroughput() throws Exception {
+        MidsQuest[] clients = new MidsQuest[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            clients[i] = loggedIn("perf_session_" + i);
+        }
+        round(clients, WARMUP / SESSIONS);
+
+        ClientMetrics metrics = new ClientMetrics();
+        for (MidsQuest client : clients) {
+            client.setMetrics(metrics);
+        }
+        int rounds = MEASURED * 2 / SESSIONS;
+        long start = System.nanoTime();
+        round(clients, rounds);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        ClientMetrics.Snapshot snapshot = metrics.snapshot();
+        double rps = snapshot.requests() / seconds;
+        double p99Millis = snapshot.endpoint("/doing").p99() / 1e6;
+        String measured = String.format("%d sessions: %.0f req/s, /doing p99 %.3f ms", SESSIONS, rps, p99Millis);
+
+        assertEquals((long) rounds * SESSIONS, snapshot.requests(), measured);
+        assertEquals(0, snapshot.endpoint("/doing").errors(), measured);
+        assertTrue(rps >= budget("perf.concurrent.minRps", 500), measured);
+        assertTrue(p99Millis <= budget("perf.concurrent.maxP99Millis", 100), measured);
+    }
+
+    @Test
+    @Tag("perf")
+    public void testBytesAllocatedPerRequest() throws Exception {
+        MidsQuest client = loggedIn("perf_alloc");
+        for (int i = 0; i < WARMUP; i++) {
+            client.look();
+            client.setDoing("resting");
+        }
+
+        long before = clientAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) {
+            client.look();
+        }
+        long lookBytes = (clientAllocatedBytes() - before) / MEASURED;
+
+        before = clientAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) {
+            client.setDoing("resting");
+        }
+        long doingBytes = (clientAllocatedBytes() - before) / MEASURED;
+        String measured = "allocated: /look " + lookBytes + " B/request, /doing " + doingBytes + " B/request";
+
+        assertTrue(lookBytes <= budget("perf.look.maxBytes", 24_000), measured);
+        assertTrue(doingBytes <= budget("perf.doing.maxBytes", 24_000), measured);
+    }
+
+    private static MidsQuest loggedIn(String username) throws Exception {
+        MidsQuest client = new MidsQuest(server.getBaseUrl(), httpClient);
+        client.setOutputSink(OutputSink.none());
+        assertEquals(200, client.createUser(username, "pw"));
+        assertEquals(200, client.login(username, "pw"));
+        return client;
+    }
+
+    /**
+     * Sends one /doing from every session at once, the given number of times.
+     */
+    private static void round(MidsQuest[] clients, int rounds) {
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[clients.length];
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0; i < clients.length; i++) {
+                pending[i] = clients[i].setDoingAsync("resting");
+            }
+            CompletableFuture.allOf(pending).join();
+        }
+    }
+
+    /**
+     * @return The bytes allocated so far by the test thread and the
+     *         HttpClient's threads.
+     */
+    private static long clientAllocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            String name = thread.getName();
+            if (thread == Thread.currentThread() || name.startsWith("perf-client-")
+                    || name.endsWith("SelectorManager")) {
+                total += Math.max(0, threads.getThreadAllocatedBytes(thread.threadId()));
+            }
+        }
+        return total;
+    }
+
+    private static double budget(String property, double fallback) {
+        String value = System.getProperty(property);
+        return value != null ? Double.parseDouble(value) : fallback;
+    }
+}
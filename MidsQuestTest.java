@@ -8,7 +8,11 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,7 +24,7 @@ public class MidsQuestTest {
     @Mock
     private HttpClient mockHttpClient;
     @Mock
-    private HttpResponse<String> mockResponse;
+    private HttpResponse<ResponseBody> mockResponse;
 	
     @InjectMocks
     private MidsQuest midsQuest;
@@ -39,7 +43,7 @@ public class MidsQuestTest {
     @Tag("unit")
     public void testCreateUser() throws Exception {
         when(mockResponse.statusCode()).thenReturn(200);
-        when(mockResponse.body()).thenReturn("{\"message\": \"User created\"}");
+        when(mockResponse.body()).thenReturn(ResponseBody.of("{\"message\": \"User created\"}".getBytes(StandardCharsets.UTF_8)));
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
                 .thenReturn(mockResponse);
 
@@ -52,7 +56,7 @@ public class MidsQuestTest {
     public void testLogin() throws Exception {
         String mockJson = "{\"session_token\": \"abc123\"}";
         when(mockResponse.statusCode()).thenReturn(200);
-        when(mockResponse.body()).thenReturn(mockJson);
+        when(mockResponse.body()).thenReturn(ResponseBody.of(mockJson.getBytes(StandardCharsets.UTF_8)));
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
                 .thenReturn(mockResponse);
 		
@@ -73,26 +77,139 @@ public class MidsQuestTest {
     }
 
     @Test
-    @Tag("it")
-    public void integrationTestFullSequence() throws IOException, InterruptedException {
+    @Tag("unit")
+    public void testLoginAsync() throws Exception {
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(ResponseBody.of("{\"session_token\": \"async456\"}".getBytes(StandardCharsets.UTF_8)));
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        int result = midsQuest.loginAsync("testUser", "pass123").get();
+        assertEquals(200, result);
+        assertEquals("async456", midsQuest.getToken());
+        verify(mockHttpClient, never()).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLookAsyncNotLoggedIn() throws Exception {
+        int result = midsQuest.lookAsync().get();
+        assertEquals(0, result, "lookAsync() should complete with 0 when there is no session token");
+        verifyNoInteractions(mockHttpClient);
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLookCacheHitsUntilStateChanges() throws Exception {
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(ResponseBody.of("{\"description\": \"A hall\"}".getBytes(StandardCharsets.UTF_8)));
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(mockResponse);
+        midsQuest.setToken("abc123");
+        midsQuest.enableLookCache(Duration.ofMinutes(1));
+
+        assertEquals(200, midsQuest.look());
+        assertEquals(200, midsQuest.look());
+        verify(mockHttpClient, times(1)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(1, midsQuest.getLookCacheHits());
+        assertEquals(1, midsQuest.getLookCacheMisses());
+
+        // A move invalidates the cached room, so the next look goes to the server
+        midsQuest.move("north");
+        assertEquals(200, midsQuest.look());
+        verify(mockHttpClient, times(3)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(2, midsQuest.getLookCacheMisses());
+
+        // Only requests that reached the server are recorded
+        ClientMetrics.Snapshot metrics = midsQuest.getMetrics().snapshot();
+        assertEquals(2, metrics.endpoint("/look").requests());
+        assertEquals(1, metrics.endpoint("/move").requests());
+        assertEquals(1, metrics.endpoint("/move").statusCounts()[2]);
+    }
 
-		HttpClient realClient = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
-        MidsQuest real = new MidsQuest(baseUrl, realClient);
+    @Test
+    @Tag("unit")
+    public void testLookCacheExpiresAfterTtl() throws Exception {
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(ResponseBody.of("{\"description\": \"A hall\"}".getBytes(StandardCharsets.UTF_8)));
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(mockResponse);
+        midsQuest.setToken("abc123");
+        midsQuest.enableLookCache(Duration.ofMillis(1));
+
+        midsQuest.look();
+        Thread.sleep(5);
+        midsQuest.look();
+        verify(mockHttpClient, times(2)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(0, midsQuest.getLookCacheHits());
+    }
 
-        String username = "player_" + System.currentTimeMillis();
-        String password = "pw123";
+    @Test
+    @Tag("unit")
+    public void testPreparedRequestsAreReusedPerToken() throws Exception {
+        midsQuest.setToken("abc123");
+        HttpRequest look = midsQuest.lookRequest();
+        assertSame(look, midsQuest.lookRequest());
+        assertSame(midsQuest.moveRequest("north"), midsQuest.moveRequest("north"));
+        assertNotSame(midsQuest.moveRequest("northeast"), midsQuest.moveRequest("northeast"));
+        assertEquals(URI.create(baseUrl + "/look"), look.uri());
+        assertEquals("abc123", look.headers().firstValue("session-token").orElseThrow());
+
+        // A new session token gets freshly prepared requests
+        midsQuest.setToken("def456");
+        assertEquals("def456", midsQuest.lookRequest().headers().firstValue("session-token").orElseThrow());
+        assertEquals("def456", midsQuest.moveRequest("north").headers().firstValue("session-token").orElseThrow());
+    }
 
-        int createCode = real.createUser(username, password);
-        assertEquals(200, createCode);
+    @Test
+    @Tag("unit")
+    public void testResponsesGoToOutputSink() throws Exception {
+        List<String> reported = new ArrayList<>();
+        midsQuest.setOutputSink(new OutputSink() {
+            public void response(String endpoint, int statusCode, String body) {
+                reported.add(endpoint + " " + statusCode + " " + body);
+            }
+
+            public void error(String message) {
+                reported.add("ERROR " + message);
+            }
+        });
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(ResponseBody.of("{\"message\": \"User created\"}".getBytes(StandardCharsets.UTF_8)));
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(mockResponse);
 
-        int loginCode = real.login(username, password);
-        assertEquals(200, loginCode);
+        midsQuest.createUser("testUser", "pass123");
+        midsQuest.look();
+        assertEquals(List.of("/user 200 {\"message\": \"User created\"}",
+                "ERROR Cannot make authenticated request: Not logged in."), reported);
+    }
 
-        int lookCode = real.look();
-        assertEquals(200, lookCode);
+    @Test
+    @Tag("it")
+    public void integrationTestFullSequence() throws IOException, InterruptedException {
+        // An embedded server on a free port, so this runs offline
+        ServerModel server = new ServerModel();
+        server.start(0);
+        try {
+            // HTTP/1.1 unless run with -Dmidsquest.http2=true
+            HttpClient realClient = HttpClientFactory.create(new TransportConfig());
+            MidsQuest real = new MidsQuest(server.getBaseUrl(), realClient);
+
+            String username = "player_" + System.currentTimeMillis();
+            String password = "pw123";
+
+            int createCode = real.createUser(username, password);
+            assertEquals(200, createCode);
+
+            int loginCode = real.login(username, password);
+            assertEquals(200, loginCode);
+
+            int lookCode = real.look();
+            assertEquals(200, lookCode);
+        } finally {
+            server.stop();
+        }
     }
 }
 
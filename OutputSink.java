@@ -0,0 +1,79 @@
+/**
+ * Where a {@link MidsQuest} client reports server responses and client-side errors.
+ *
+ * Implementations must be safe to call from many threads at once.
+ * Available sinks:
+ * - {@link #console()}: prints every response body (the default behavior)
+ * - {@link #none()}: discards everything
+ * - {@link RingBufferSink}: hands records to a background thread through a bounded buffer
+ * - {@link FileSink}: appends batched records to a file
+ */
+public interface OutputSink extends AutoCloseable {
+
+    /**
+     * Reports a response from the server.
+     *
+     * @param endpoint   The API endpoint (e.g., "/look").
+     * @param statusCode The HTTP status code.
+     * @param body       The response body.
+     */
+    void response(String endpoint, int statusCode, String body);
+
+    /**
+     * Reports a client-side error (e.g., "Not logged in").
+     */
+    void error(String message);
+
+    /**
+     * Flushes and releases anything the sink holds. The default does nothing.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @return A sink that discards everything.
+     */
+    static OutputSink none() {
+        return NoOp.INSTANCE;
+    }
+
+    /**
+     * @return A sink that prints response bodies to System.out and errors to System.err.
+     */
+    static OutputSink console() {
+        return Console.INSTANCE;
+    }
+
+    final class NoOp implements OutputSink {
+        private static final NoOp INSTANCE = new NoOp();
+
+        private NoOp() {
+        }
+
+        @Override
+        public void response(String endpoint, int statusCode, String body) {
+        }
+
+        @Override
+        public void error(String message) {
+        }
+    }
+
+    final class Console implements OutputSink {
+        private static final Console INSTANCE = new Console();
+
+        private Console() {
+        }
+
+        @Override
+        public void response(String endpoint, int statusCode, String body) {
+            System.out.println(body); // Print response to screen
+        }
+
+        @Override
+        public void error(String message) {
+            System.err.println(message);
+        }
+    }
+}
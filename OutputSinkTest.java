@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputSinkTest {
+
+    /** Collects records, optionally blocking until released. */
+    private static class CollectingSink implements OutputSink {
+        final List<String> records = new CopyOnWriteArrayList<>();
+        final CountDownLatch release;
+
+        CollectingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void response(String endpoint, int statusCode, String body) {
+            await();
+            records.add(endpoint + " " + statusCode + " " + body);
+        }
+
+        @Override
+        public void error(String message) {
+            await();
+            records.add("ERROR " + message);
+        }
+
+        private void await() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testRingBufferDrainsInOrder() {
+        CollectingSink target = new CollectingSink(new CountDownLatch(0));
+        RingBufferSink sink = new RingBufferSink(target, 1024);
+        for (int i = 0; i < 100; i++) {
+            sink.response("/look", 200, "body" + i);
+        }
+        sink.error("Not logged in");
+        sink.close();
+
+        assertEquals(101, target.records.size());
+        assertEquals("/look 200 body0", target.records.get(0));
+        assertEquals("/look 200 body99", target.records.get(99));
+        assertEquals("ERROR Not logged in", target.records.get(100));
+        assertEquals(0, sink.getDropped());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testRingBufferDropsInsteadOfBlocking() {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingSink target = new CollectingSink(release);
+        RingBufferSink sink = new RingBufferSink(target, 4);
+        for (int i = 0; i < 50; i++) {
+            sink.response("/look", 200, "body" + i);
+        }
+        assertTrue(sink.getDropped() > 0, "a full buffer drops records");
+        release.countDown();
+        sink.close();
+        assertEquals(50, target.records.size() + sink.getDropped());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testFileSinkWritesEscapedBatches() throws Exception {
+        Path file = Files.createTempFile("midsquest-sink", ".tsv");
+        try {
+            FileSink sink = new FileSink(file, 2);
+            sink.response("/look", 200, "{\"a\":\n1}");
+            assertEquals(0, Files.size(file), "nothing is written before the batch fills");
+            sink.error("Not logged in");
+            sink.response("/move", 400, "bad");
+            sink.close();
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(3, lines.size());
+            assertTrue(lines.get(0).endsWith("\t/look\t200\t{\"a\":\\n1}"), lines.get(0));
+            assertTrue(lines.get(1).endsWith("\tERROR\t0\tNot logged in"), lines.get(1));
+            assertTrue(lines.get(2).endsWith("\t/move\t400\tbad"), lines.get(2));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces requests from any number of {@link MidsQuest} clients.
+ *
+ * Two independent controls, both optional:
+ *
+ * - Token buckets, one global and one per endpoint. Each is a single
+ *   AtomicLong holding its theoretical arrival time (the "generic cell
+ *   rate algorithm"), so taking a token is one CAS and a caller that has to
+ *   wait knows exactly how long. Blocking callers park for that long, which
+ *   unmounts a virtual thread instead of spinning; async callers are resumed
+ *   by CompletableFuture's delayed executor.
+ * - Adaptive concurrency: a cap on requests in flight, tuned by AIMD. Each
+ *   completed request adds 1/limit to the limit; a sign of overload (a failure,
+ *   a 429 or 5xx, or latency above twice the recent minimum) cuts it by 10%,
+ *   at most once per limit's worth of completions. The limit settles near the
+ *   most concurrency the server handles before queueing, so load stays at the
+ *   knee instead of tipping into errors. Other 4xx answers (e.g., "You can't
+ *   go that way.") are normal game responses and do not count.
+ *
+ * Usage:
+ *   RateLimiter limiter = new RateLimiter()
+ *           .globalRate(2_000, 100)
+ *           .endpointRate("/move", 500, 20)
+ *           .adaptiveConcurrency(16, 4, 512);
+ *   client.setRateLimiter(limiter); // every client can share one limiter
+ */
+public class RateLimiter {
+
+    private static final MidsQuest.Endpoint[] ENDPOINTS = MidsQuest.Endpoint.values();
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final int BASELINE_WINDOW = 1_000;
+
+    private volatile Bucket global;
+    private final Bucket[] endpoints = new Bucket[ENDPOINTS.length];
+
+    // --- Adaptive concurrency, guarded by lock ---
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean adaptive;
+    private int minLimit;
+    private int maxLimit;
+    private double limit;
+    private int inFlight;
+    private int completionsSinceDecrease;
+    private long baselineNanos = Long.MAX_VALUE;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    /**
+     * Constructs a limiter that lets everything through until configured.
+     */
+    public RateLimiter() {
+    }
+
+    /**
+     * Limits all requests together.
+     *
+     * @param requestsPerSecond The sustained rate.
+     * @param burst             How many requests may start at once after an idle period.
+     */
+    public RateLimiter globalRate(double requestsPerSecond, int burst) {
+        this.global = new Bucket(requestsPerSecond, burst);
+        return this;
+    }
+
+    /**
+     * Limits the requests to one endpoint (e.g., "/move").
+     */
+    public RateLimiter endpointRate(String path, double requestsPerSecond, int burst) {
+        endpoints[endpointOf(path).ordinal()] = new Bucket(requestsPerSecond, burst);
+        return this;
+    }
+
+    /**
+     * Caps requests in flight with an AIMD-tuned limit.
+     *
+     * @param initial The starting limit.
+     * @param min     The limit never drops below this.
+     * @param max     The limit never grows above this.
+     */
+    public RateLimiter adaptiveConcurrency(int initial, int min, int max) {
+        if (min < 1 || initial < min || max < initial) {
+            throw new IllegalArgumentException("Need 1 <= min <= initial <= max");
+        }
+        lock.lock();
+        try {
+            this.minLimit = min;
+            this.maxLimit = max;
+            this.limit = initial;
+            this.adaptive = true;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * @return The current concurrency limit, or 0 if adaptive concurrency is off.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return adaptive ? (int) limit : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of requests holding a concurrency slot.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Used by MidsQuest's send path ---
+
+    /**
+     * Waits, parking the calling thread, until a request to the endpoint may start.
+     */
+    void acquire(MidsQuest.Endpoint endpoint) throws InterruptedException {
+        long deadline = System.nanoTime() + reserve(endpoint);
+        for (long wait = deadline - System.nanoTime(); wait > 0; wait = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        if (!adaptive) {
+            return;
+        }
+        CompletableFuture<Void> slot = acquireSlot();
+        try {
+            slot.get();
+        } catch (InterruptedException e) {
+            if (!slot.cancel(false)) {
+                releaseSlot(); // Granted just as we were interrupted
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return A future that completes when a request to the endpoint may start.
+     */
+    CompletableFuture<Void> acquireAsync(MidsQuest.Endpoint endpoint) {
+        long wait = reserve(endpoint);
+        CompletableFuture<Void> paced = wait <= 0 ? READY
+                : CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+        return adaptive ? paced.thenCompose(ignored -> acquireSlot()) : paced;
+    }
+
+    /**
+     * Starts a request only if that needs no waiting (used for optional extra
+     * requests such as hedges).
+     */
+    boolean tryAcquire(MidsQuest.Endpoint endpoint) {
+        long now = System.nanoTime();
+        Bucket g = global;
+        Bucket e = endpoints[endpoint.ordinal()];
+        // Check both before taking either, so a refusal costs nothing
+        if ((g != null && !g.available(now)) || (e != null && !e.available(now))) {
+            return false;
+        }
+        if (adaptive) {
+            lock.lock();
+            try {
+                if (inFlight >= (int) limit) {
+                    return false;
+                }
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (g != null) {
+            g.reserve(now);
+        }
+        if (e != null) {
+            e.reserve(now);
+        }
+        return true;
+    }
+
+    /**
+     * Ends a request started by acquire, acquireAsync or tryAcquire.
+     *
+     * @param nanos      How long the request took.
+     * @param statusCode The response status, or 0 if the request failed without one.
+     */
+    void release(MidsQuest.Endpoint endpoint, long nanos, int statusCode) {
+        if (!adaptive) {
+            return;
+        }
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            adjustLimit(nanos, statusCode);
+            granted = grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    /**
+     * Ends a request that was abandoned (e.g., a losing hedge) without
+     * counting it as a latency sample.
+     */
+    void cancel(MidsQuest.Endpoint endpoint) {
+        if (adaptive) {
+            releaseSlot();
+        }
+    }
+
+    // --- Internals ---
+
+    /**
+     * Takes a token from the global and endpoint buckets.
+     *
+     * @return How long the caller must wait before starting, in nanoseconds.
+     */
+    private long reserve(MidsQuest.Endpoint endpoint) {
+        long now = System.nanoTime();
+        long wait = 0;
+        Bucket g = global;
+        if (g != null) {
+            wait = g.reserve(now);
+        }
+        Bucket e = endpoints[endpoint.ordinal()];
+        if (e != null) {
+            wait = Math.max(wait, e.reserve(now));
+        }
+        return wait;
+    }
+
+    private CompletableFuture<Void> acquireSlot() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && waiters.isEmpty()) {
+                inFlight++;
+                return READY;
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot() {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            granted = grantWaiters();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    /** Caller holds lock. */
+    private void adjustLimit(long nanos, int statusCode) {
+        windowMinNanos = Math.min(windowMinNanos, nanos);
+        if (++windowSamples >= BASELINE_WINDOW || baselineNanos == Long.MAX_VALUE) {
+            // Re-learn the no-load latency each window, so a slower server is not
+            // read as permanently overloaded
+            baselineNanos = windowMinNanos;
+            windowMinNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        boolean overloaded = statusCode == 0 || statusCode == 429 || statusCode >= 500
+                || nanos > baselineNanos * LATENCY_TOLERANCE;
+        completionsSinceDecrease++;
+        if (overloaded) {
+            // One cut per round of requests; the rest of that round saw the same overload
+            if (completionsSinceDecrease >= limit) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                completionsSinceDecrease = 0;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /** Caller holds lock. Hands free slots to queued waiters. */
+    private List<CompletableFuture<Void>> grantWaiters() {
+        List<CompletableFuture<Void>> granted = null;
+        while (inFlight < (int) limit && !waiters.isEmpty()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter.isDone()) {
+                continue; // Cancelled while queued
+            }
+            inFlight++;
+            if (granted == null) {
+                granted = new ArrayList<>();
+            }
+            granted.add(waiter);
+        }
+        return granted;
+    }
+
+    /** Completes granted waiters outside the lock, since completing runs their requests. */
+    private void complete(List<CompletableFuture<Void>> granted) {
+        if (granted == null) {
+            return;
+        }
+        for (CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                releaseSlot(); // Cancelled after being granted; pass the slot on
+            }
+        }
+    }
+
+    private static MidsQuest.Endpoint endpointOf(String path) {
+        for (MidsQuest.Endpoint endpoint : ENDPOINTS) {
+            if (endpoint.path().equals(path)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint: " + path);
+    }
+
+    /**
+     * A token bucket kept as the "theoretical arrival time": the time the
+     * bucket would be full again if no more tokens were taken.
+     */
+    private static final class Bucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE / 2);
+
+        Bucket(double requestsPerSecond, int burst) {
+            if (requestsPerSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Need a positive rate and burst");
+            }
+            this.intervalNanos = Math.max(1, (long) (Duration.ofSeconds(1).toNanos() / requestsPerSecond));
+            this.burstNanos = intervalNanos * (burst - 1);
+        }
+
+        /**
+         * Takes a token.
+         *
+         * @return How long the caller must wait before using it.
+         */
+        long reserve(long now) {
+            while (true) {
+                long current = arrival.get();
+                if (arrival.compareAndSet(current, Math.max(current, now) + intervalNanos)) {
+                    return Math.max(0, current - burstNanos - now);
+                }
+            }
+        }
+
+        boolean available(long now) {
+            return arrival.get() - burstNanos <= now;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final MidsQuest.Endpoint LOOK = MidsQuest.Endpoint.LOOK;
+    private static final MidsQuest.Endpoint MOVE = MidsQuest.Endpoint.MOVE;
+
+    @Test
+    @Tag("unit")
+    public void testBurstThenSteadyRate() throws Exception {
+        RateLimiter limiter = new RateLimiter().globalRate(200, 10);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(LOOK);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20), "the burst is immediate");
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(LOOK);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 90, "20 more requests at 200/s take ~100 ms, took " + elapsedMillis);
+    }
+
+    @Test
+    @Tag("unit")
+    public void testEndpointRatesAreSeparate() {
+        RateLimiter limiter = new RateLimiter().endpointRate("/move", 1, 1);
+        assertTrue(limiter.tryAcquire(MOVE));
+        assertFalse(limiter.tryAcquire(MOVE), "/move is out of tokens");
+        assertTrue(limiter.tryAcquire(LOOK), "/look is not limited");
+        assertThrows(IllegalArgumentException.class, () -> limiter.endpointRate("/nowhere", 1, 1));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testConcurrencyLimitQueuesWaiters() {
+        RateLimiter limiter = new RateLimiter().adaptiveConcurrency(2, 1, 2);
+        assertTrue(limiter.acquireAsync(LOOK).isDone());
+        assertTrue(limiter.acquireAsync(LOOK).isDone());
+        CompletableFuture<Void> third = limiter.acquireAsync(LOOK);
+        assertFalse(third.isDone());
+        assertFalse(limiter.tryAcquire(LOOK));
+
+        limiter.release(LOOK, 1_000_000, 200);
+        assertTrue(third.isDone(), "a released slot goes to the oldest waiter");
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLimitGrowsWhileHealthyAndBacksOffUnderOverload() throws Exception {
+        RateLimiter limiter = new RateLimiter().adaptiveConcurrency(4, 2, 64);
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire(LOOK);
+            limiter.release(LOOK, 1_000_000, 200);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit grew to " + grown);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire(LOOK);
+            limiter.release(LOOK, 1_000_000, 503);
+        }
+        assertEquals(2, limiter.getLimit(), "errors push the limit to its floor");
+
+        for (int i = 0; i < 200; i++) {
+            limiter.acquire(MOVE);
+            limiter.release(MOVE, 1_000_000, 400);
+        }
+        assertTrue(limiter.getLimit() > 2, "4xx game answers are not overload");
+    }
+
+    @Test
+    @Tag("it")
+    public void testSharedLimiterCapsInFlightRequestsAgainstLocalServer() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        RateLimiter limiter = new RateLimiter().adaptiveConcurrency(3, 1, 3);
+        AtomicInteger maxSeen = new AtomicInteger();
+        try {
+            List<Thread> players = new ArrayList<>();
+            for (int p = 0; p < 12; p++) {
+                String name = "player" + p;
+                players.add(Thread.ofVirtual().start(() -> {
+                    MidsQuest client = new MidsQuest(server.getBaseUrl(), httpClient);
+                    client.setOutputSink(OutputSink.none());
+                    client.setRateLimiter(limiter);
+                    try {
+                        client.createUser(name, "pw");
+                        client.login(name, "pw");
+                        for (int i = 0; i < 20; i++) {
+                            assertEquals(200, client.look());
+                            maxSeen.accumulateAndGet(limiter.getInFlight(), Math::max);
+                        }
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                }));
+            }
+            for (Thread player : players) {
+                player.join();
+            }
+        } finally {
+            server.stop();
+        }
+        assertTrue(maxSeen.get() <= 3, "in flight peaked at " + maxSeen.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,268 @@
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry, circuit-breaker and hedging settings for {@link MidsQuest} clients.
+ *
+ * - Retries: idempotent calls (/look) that fail with an IOException or a 5xx
+ *   are retried a bounded number of times, sleeping a random time between 0
+ *   and an exponentially growing cap ("full jitter") so retrying bots spread out.
+ * - Circuit breakers: one per endpoint. After a run of consecutive failures the
+ *   breaker opens and calls fail fast with status 503 without being sent. Once
+ *   the open period ends a single probe is let through; its result closes or
+ *   re-opens the breaker.
+ * - Hedging (off by default): if a /look has not answered after the endpoint's
+ *   current p95 latency, a second copy is sent and whichever finishes first
+ *   wins. Hedges are capped at a fraction of /look requests, so a slow server
+ *   never sees more than that much extra load.
+ *
+ * One policy can be shared by many clients; they then share the breakers and
+ * hedge budget, which is usually what a fleet of bots wants.
+ *
+ * Usage:
+ *   ResiliencePolicy policy = new ResiliencePolicy()
+ *           .retries(2, Duration.ofMillis(20), Duration.ofMillis(500))
+ *           .hedgeLooks(95, Duration.ofMillis(2), 0.05);
+ *   client.setResiliencePolicy(policy);
+ */
+public class ResiliencePolicy {
+
+    private static final MidsQuest.Endpoint[] ENDPOINTS = MidsQuest.Endpoint.values();
+
+    private int maxRetries = 2;
+    private long baseBackoffNanos = Duration.ofMillis(20).toNanos();
+    private long maxBackoffNanos = Duration.ofSeconds(1).toNanos();
+
+    private int failureThreshold = 5;
+    private long openNanos = Duration.ofSeconds(5).toNanos();
+    private final CircuitBreaker[] breakers = new CircuitBreaker[ENDPOINTS.length];
+
+    private boolean hedging;
+    private double hedgePercentile = 95;
+    private long minHedgeDelayNanos = Duration.ofMillis(1).toNanos();
+    private double hedgeBudget = 0.05;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+    private final LongAdder hedgeable = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    /**
+     * Constructs a policy with 2 retries (20 ms base, 1 s max backoff), breakers
+     * that open for 5 s after 5 consecutive failures, and no hedging.
+     */
+    public ResiliencePolicy() {
+        rebuildBreakers();
+    }
+
+    /**
+     * Sets how idempotent calls are retried.
+     *
+     * @param maxRetries  Retries after the first attempt (0 disables retrying).
+     * @param baseBackoff The backoff cap before the first retry; doubles each retry.
+     * @param maxBackoff  The largest backoff cap.
+     */
+    public ResiliencePolicy retries(int maxRetries, Duration baseBackoff, Duration maxBackoff) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative: " + maxRetries);
+        }
+        this.maxRetries = maxRetries;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = Math.max(baseBackoffNanos, maxBackoff.toNanos());
+        return this;
+    }
+
+    /**
+     * Sets when the per-endpoint circuit breakers open. Resets their state.
+     *
+     * @param failureThreshold Consecutive failures that open a breaker.
+     * @param openFor          How long a breaker fails fast before letting a probe through.
+     */
+    public ResiliencePolicy circuitBreaker(int failureThreshold, Duration openFor) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("failureThreshold must be positive: " + failureThreshold);
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openFor.toNanos();
+        rebuildBreakers();
+        return this;
+    }
+
+    /**
+     * Turns on hedged /look requests.
+     *
+     * @param percentile The /look latency percentile to wait before hedging (e.g., 95).
+     * @param minDelay   The shortest wait, used until enough latencies are recorded.
+     * @param budget     The largest fraction of /look requests that may be hedged (e.g., 0.05).
+     */
+    public ResiliencePolicy hedgeLooks(double percentile, Duration minDelay, double budget) {
+        this.hedging = true;
+        this.hedgePercentile = percentile;
+        this.minHedgeDelayNanos = minDelay.toNanos();
+        this.hedgeBudget = budget;
+        return this;
+    }
+
+    /**
+     * @return The number of retries sent.
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return The number of calls failed fast by an open breaker.
+     */
+    public long getShortCircuits() {
+        return shortCircuits.sum();
+    }
+
+    /**
+     * @return The number of hedge requests sent.
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return Whether an endpoint's breaker is currently failing calls fast.
+     */
+    public boolean isOpen(String path) {
+        for (MidsQuest.Endpoint endpoint : ENDPOINTS) {
+            if (endpoint.path().equals(path)) {
+                return breakers[endpoint.ordinal()].state.get() != CircuitBreaker.CLOSED;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint: " + path);
+    }
+
+    // --- Used by MidsQuest's send path ---
+
+    /**
+     * @return The total attempts allowed for one call.
+     */
+    int attempts(MidsQuest.Endpoint endpoint) {
+        return endpoint.idempotent() ? maxRetries + 1 : 1;
+    }
+
+    /**
+     * @return A random backoff before the given retry (1 = first retry).
+     */
+    long backoffNanos(int retry) {
+        long cap = baseBackoffNanos << Math.min(retry - 1, 30);
+        if (cap <= 0 || cap > maxBackoffNanos) {
+            cap = maxBackoffNanos;
+        }
+        retries.increment();
+        return cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * @return Whether a response counts against the endpoint's breaker and may be retried.
+     */
+    static boolean isFailure(int statusCode) {
+        return statusCode >= 500;
+    }
+
+    /**
+     * @return Whether a call may be sent; false (and counted) if its breaker is open.
+     */
+    boolean tryAcquire(MidsQuest.Endpoint endpoint) {
+        if (breakers[endpoint.ordinal()].tryAcquire()) {
+            return true;
+        }
+        shortCircuits.increment();
+        return false;
+    }
+
+    void onSuccess(MidsQuest.Endpoint endpoint) {
+        breakers[endpoint.ordinal()].onSuccess();
+    }
+
+    void onFailure(MidsQuest.Endpoint endpoint) {
+        breakers[endpoint.ordinal()].onFailure();
+    }
+
+    boolean hedges(MidsQuest.Endpoint endpoint) {
+        return hedging && endpoint == MidsQuest.Endpoint.LOOK;
+    }
+
+    /**
+     * @return How long to wait for a response before hedging, from the endpoint's latencies.
+     */
+    long hedgeDelayNanos(LatencyHistogram latency) {
+        hedgeable.increment();
+        return Math.max(minHedgeDelayNanos, latency.percentile(hedgePercentile));
+    }
+
+    /**
+     * Takes one hedge from the budget.
+     *
+     * @return False if hedging now would go over the budget.
+     */
+    boolean tryHedge() {
+        if (hedges.sum() > hedgeable.sum() * hedgeBudget) {
+            return false;
+        }
+        hedges.increment();
+        return true;
+    }
+
+    private void rebuildBreakers() {
+        for (int i = 0; i < breakers.length; i++) {
+            breakers[i] = new CircuitBreaker(failureThreshold, openNanos);
+        }
+    }
+
+    /**
+     * A consecutive-failure circuit breaker: CLOSED lets everything through,
+     * OPEN fails fast until its time is up, then HALF_OPEN admits one probe.
+     */
+    private static final class CircuitBreaker {
+        static final int CLOSED = 0;
+        static final int OPEN = 1;
+        static final int HALF_OPEN = 2;
+
+        private final int threshold;
+        private final long openNanos;
+        final AtomicInteger state = new AtomicInteger(CLOSED);
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long openedAt;
+
+        CircuitBreaker(int threshold, long openNanos) {
+            this.threshold = threshold;
+            this.openNanos = openNanos;
+        }
+
+        boolean tryAcquire() {
+            int current = state.get();
+            if (current == CLOSED) {
+                return true;
+            }
+            // The first caller after the open period becomes the probe; everyone else fails fast
+            return current == OPEN
+                    && System.nanoTime() - openedAt >= openNanos
+                    && state.compareAndSet(OPEN, HALF_OPEN);
+        }
+
+        void onSuccess() {
+            // Only write when something changes, so the healthy path stays read-only
+            if (failures.get() != 0) {
+                failures.set(0);
+            }
+            if (state.get() != CLOSED) {
+                state.set(CLOSED);
+            }
+        }
+
+        void onFailure() {
+            if (state.get() == HALF_OPEN || failures.incrementAndGet() >= threshold) {
+                failures.set(0);
+                openedAt = System.nanoTime();
+                state.set(OPEN);
+            }
+        }
+    }
+}
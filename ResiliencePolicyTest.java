@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResiliencePolicyTest {
+
+    private HttpClient mockHttpClient;
+    private MidsQuest client;
+
+    @BeforeEach
+    public void setUp() {
+        mockHttpClient = mock(HttpClient.class);
+        client = new MidsQuest("http://localhost:8000", mockHttpClient);
+        client.setOutputSink(OutputSink.none());
+        client.setToken("token");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<ResponseBody> response(int status) {
+        HttpResponse<ResponseBody> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(ResponseBody.of("{}".getBytes(StandardCharsets.UTF_8)));
+        return response;
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLookIsRetriedAfterServerError() throws Exception {
+        HttpResponse<ResponseBody> unavailable = response(503);
+        HttpResponse<ResponseBody> ok = response(200);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(unavailable))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("reset")))
+                .thenReturn(CompletableFuture.completedFuture(ok));
+        ResiliencePolicy policy = new ResiliencePolicy().retries(2, Duration.ofMillis(1), Duration.ofMillis(2));
+        client.setResiliencePolicy(policy);
+
+        assertEquals(200, client.look());
+        assertEquals(2, policy.getRetries());
+        verify(mockHttpClient, times(3)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testMovesAreNotRetried() throws Exception {
+        HttpResponse<ResponseBody> unavailable = response(503);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(unavailable));
+        client.setResiliencePolicy(new ResiliencePolicy().retries(3, Duration.ofMillis(1), Duration.ofMillis(2)));
+
+        assertEquals(503, client.move("north"));
+        verify(mockHttpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testOpenBreakerFailsFastThenProbes() throws Exception {
+        HttpResponse<ResponseBody> unavailable = response(500);
+        HttpResponse<ResponseBody> ok = response(200);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(unavailable))
+                .thenReturn(CompletableFuture.completedFuture(unavailable))
+                .thenReturn(CompletableFuture.completedFuture(ok));
+        ResiliencePolicy policy = new ResiliencePolicy()
+                .retries(0, Duration.ZERO, Duration.ZERO)
+                .circuitBreaker(2, Duration.ofMillis(50));
+        client.setResiliencePolicy(policy);
+
+        assertEquals(500, client.setDoing("resting"));
+        assertEquals(500, client.setDoing("resting"));
+        assertTrue(policy.isOpen("/doing"));
+        assertEquals(503, client.setDoing("resting"), "an open breaker fails fast");
+        assertEquals(503, client.setDoingAsync("resting").get());
+        assertEquals(2, policy.getShortCircuits());
+        verify(mockHttpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+
+        Thread.sleep(60);
+        assertEquals(200, client.setDoing("resting"), "the probe goes through");
+        assertFalse(policy.isOpen("/doing"));
+        assertFalse(policy.isOpen("/look"), "breakers are per endpoint");
+    }
+
+    @Test
+    @Tag("unit")
+    public void testSlowLookIsHedged() throws Exception {
+        HttpResponse<ResponseBody> ok = response(200);
+        CompletableFuture<HttpResponse<ResponseBody>> stuck = new CompletableFuture<>();
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(stuck)
+                .thenReturn(CompletableFuture.completedFuture(ok));
+        ResiliencePolicy policy = new ResiliencePolicy().hedgeLooks(95, Duration.ofMillis(5), 0.5);
+        client.setResiliencePolicy(policy);
+
+        assertEquals(200, client.lookAsync().get());
+        assertEquals(1, policy.getHedges());
+        // The losing copy is abandoned (cancelled just after the winner completes)
+        assertThrows(CancellationException.class, () -> stuck.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testHedgesStayWithinBudget() throws Exception {
+        HttpResponse<ResponseBody> ok = response(200);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenAnswer(invocation -> CompletableFuture.supplyAsync(() -> ok,
+                        CompletableFuture.delayedExecutor(3, TimeUnit.MILLISECONDS)));
+        ResiliencePolicy policy = new ResiliencePolicy().hedgeLooks(50, Duration.ofMillis(1), 0.1);
+        client.setResiliencePolicy(policy);
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals(200, client.look());
+        }
+        assertTrue(policy.getHedges() <= 5, "hedges: " + policy.getHedges());
+    }
+}
@@ -0,0 +1,192 @@
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * A response body as read by {@link MidsQuest}, straight from the buffers
+ * the HttpClient delivers.
+ *
+ * {@link #whole()} keeps the body. Each arriving buffer is copied once into
+ * the result; when the server sends a Content-Length (the embedded
+ * {@link ServerModel} always does) that is the only allocation, with no list
+ * of chunks and no join at the end as with BodyHandlers.ofByteArray().
+ *
+ * {@link #fieldsOnly(JsonReader.Fields)} is for calls whose caller only needs
+ * the status, and perhaps a field or two (e.g., the token of a /login). The
+ * body is read into a pooled scratch buffer, the wanted fields are pulled out
+ * of its UTF-8 bytes, and the buffer goes back to the pool. Nothing of the
+ * body outlives the call, so steady-state polling allocates no body at all.
+ * The pool is bounded, and bodies larger than {@link #MAX_POOLED} use a
+ * buffer that is not kept.
+ */
+final class ResponseBody {
+
+    static final int MAX_POOLED = 64 * 1024;
+    private static final int INITIAL_BUFFER = 4 * 1024;
+    private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(256);
+    private static final HttpResponse.BodyHandler<ResponseBody> WHOLE = info -> new Reader(info, null, false);
+
+    private final byte[] bytes;
+    private final int length;
+    private final String[] fields;
+
+    private ResponseBody(byte[] bytes, int length, String[] fields) {
+        this.bytes = bytes;
+        this.length = length;
+        this.fields = fields;
+    }
+
+    /**
+     * @return A body holding these bytes (e.g., for a response built by hand).
+     */
+    static ResponseBody of(byte[] bytes) {
+        return new ResponseBody(bytes, bytes.length, null);
+    }
+
+    /**
+     * @return A handler that keeps the whole body.
+     */
+    static HttpResponse.BodyHandler<ResponseBody> whole() {
+        return WHOLE;
+    }
+
+    /**
+     * @param fields The fields to extract, or null to only count the bytes.
+     * @return A handler that extracts fields and drops the body.
+     */
+    static HttpResponse.BodyHandler<ResponseBody> fieldsOnly(JsonReader.Fields fields) {
+        return info -> new Reader(info, fields, true);
+    }
+
+    /**
+     * @return The body, or null if it was dropped.
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return The size of the body in bytes, whether or not it was kept.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * @return The extracted fields (each null if absent, all null if the body
+     *         was not JSON), or null if the body was kept or no fields were
+     *         asked for.
+     */
+    String[] fields() {
+        return fields;
+    }
+
+    /**
+     * Copies each buffer into one array as it arrives.
+     */
+    private static final class Reader implements HttpResponse.BodySubscriber<ResponseBody> {
+        private final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+        private final JsonReader.Fields fields;
+        private final boolean drop;
+        private final boolean pooled;
+        private byte[] buffer;
+        private int length;
+
+        Reader(HttpResponse.ResponseInfo info, JsonReader.Fields fields, boolean drop) {
+            this.fields = fields;
+            this.drop = drop;
+            long declared = drop ? -1 : contentLength(info);
+            if (declared >= 0 && declared <= Integer.MAX_VALUE) {
+                buffer = new byte[(int) declared]; // Exactly the result; nothing to pool
+                pooled = false;
+            } else {
+                buffer = POOL.poll();
+                if (buffer == null) {
+                    buffer = new byte[INITIAL_BUFFER];
+                }
+                pooled = true;
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            for (ByteBuffer item : items) {
+                int remaining = item.remaining();
+                if (length + remaining > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + remaining));
+                }
+                item.get(buffer, length, remaining);
+                length += remaining;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            release();
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            ResponseBody body;
+            if (drop) {
+                body = new ResponseBody(null, length, extract());
+            } else if (!pooled && length == buffer.length) {
+                body = new ResponseBody(buffer, length, null);
+            } else {
+                body = new ResponseBody(Arrays.copyOf(buffer, length), length, null);
+            }
+            release();
+            result.complete(body);
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        /**
+         * @return The declared Content-Length, or -1. Read from the header map
+         *         directly, since HttpHeaders.firstValueAsLong streams.
+         */
+        private static long contentLength(HttpResponse.ResponseInfo info) {
+            List<String> values = info.headers().map().get("content-length");
+            if (values == null || values.isEmpty()) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(values.get(0));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private String[] extract() {
+            if (fields == null) {
+                return null;
+            }
+            try {
+                return fields.from(buffer, 0, length);
+            } catch (IllegalArgumentException e) {
+                return new String[fields.size()]; // Not JSON: every field is absent
+            }
+        }
+
+        private void release() {
+            if (pooled && buffer != null && buffer.length <= MAX_POOLED) {
+                POOL.offer(buffer);
+            }
+            buffer = null;
+        }
+    }
+}
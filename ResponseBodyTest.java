@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseBodyTest {
+
+    private static final String LOGIN = "{\"session_token\": \"t\\u00e9st\", \"detail\": null}";
+
+    private static HttpResponse.ResponseInfo info(Long contentLength) {
+        HttpHeaders headers = HttpHeaders.of(contentLength == null ? Map.of()
+                : Map.of("content-length", List.of(contentLength.toString())), (name, value) -> true);
+        return new HttpResponse.ResponseInfo() {
+            public int statusCode() {
+                return 200;
+            }
+
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+    }
+
+    /** Delivers the body in small chunks, the way the HttpClient hands it over. */
+    private static ResponseBody read(HttpResponse.BodyHandler<ResponseBody> handler, String body, boolean declareLength) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        HttpResponse.BodySubscriber<ResponseBody> subscriber =
+                handler.apply(info(declareLength ? (long) bytes.length : null));
+        subscriber.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {
+            }
+
+            public void cancel() {
+            }
+        });
+        for (int at = 0; at < bytes.length; at += 7) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(bytes, at, Math.min(7, bytes.length - at))));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    @Test
+    @Tag("unit")
+    public void testWholeBodyWithAndWithoutContentLength() {
+        for (boolean declared : new boolean[]{true, false}) {
+            ResponseBody body = read(ResponseBody.whole(), LOGIN, declared);
+            assertEquals(LOGIN, new String(body.bytes(), StandardCharsets.UTF_8));
+            assertEquals(LOGIN.getBytes(StandardCharsets.UTF_8).length, body.length());
+            assertNull(body.fields());
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testFieldsOnlyDropsTheBody() {
+        ResponseBody body = read(ResponseBody.fieldsOnly(JsonReader.fields("session_token", "detail")), LOGIN, true);
+        assertNull(body.bytes());
+        assertEquals(LOGIN.getBytes(StandardCharsets.UTF_8).length, body.length());
+        assertArrayEquals(new String[]{"tést", null}, body.fields());
+
+        ResponseBody counted = read(ResponseBody.fieldsOnly(null), LOGIN, true);
+        assertNull(counted.bytes());
+        assertNull(counted.fields());
+        assertEquals(body.length(), counted.length());
+
+        ResponseBody notJson = read(ResponseBody.fieldsOnly(JsonReader.fields("detail")), "{\"detail\": oops", false);
+        assertArrayEquals(new String[1], notJson.fields(), "a body that is not JSON has no fields");
+    }
+
+    @Test
+    @Tag("unit")
+    public void testBodiesLargerThanThePooledBuffer() {
+        String large = "{\"message\": \"" + "x".repeat(ResponseBody.MAX_POOLED * 2) + "\"}";
+        ResponseBody body = read(ResponseBody.fieldsOnly(JsonReader.fields("message")), large, false);
+        assertEquals(ResponseBody.MAX_POOLED * 2, body.fields()[0].length());
+        assertEquals(large, new String(read(ResponseBody.whole(), large, false).bytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @Tag("it")
+    public void testStatusOnlyCallsAgainstLocalServer() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        try {
+            MidsQuest client = new MidsQuest(server.getBaseUrl(), HttpClientFactory.create(new TransportConfig()));
+            client.setOutputSink(OutputSink.none());
+            assertEquals(200, client.createUser("streamer", "pw"));
+            assertEquals(200, client.login("streamer", "pw"));
+            assertNotNull(client.getToken(), "the token is pulled out of a dropped /login body");
+            assertEquals(200, client.look());
+            assertTrue(client.lookResponse().exits().contains("north"), "typed calls still keep the body");
+
+            // Bytes are counted even when the body is dropped
+            ClientMetrics.Snapshot metrics = client.getMetrics().snapshot();
+            assertTrue(metrics.endpoint("/look").bytesIn() > 0);
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link OutputSink} that hands records to a background thread.
+ *
+ * Callers only claim a slot in a bounded ring buffer and return; a single
+ * daemon thread drains the buffer into a target sink (e.g., the console or a
+ * {@link FileSink}). When the buffer is full new records are dropped and
+ * counted instead of blocking the caller, so game traffic never waits on output.
+ */
+public final class RingBufferSink implements OutputSink {
+
+    private static final long IDLE_PARK_NANOS = 1_000_000; // 1 ms
+
+    private final OutputSink target;
+    private final AtomicReferenceArray<Record> slots;
+    private final int mask;
+
+    /**
+     * Next slot to claim (producers) and next slot to drain (the drain thread only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private final Thread drainThread;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new RingBufferSink and starts its drain thread.
+     *
+     * @param target   The sink records are drained into.
+     * @param capacity The number of buffered records; rounded up to a power of two.
+     */
+    public RingBufferSink(OutputSink target, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.target = target;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.drainThread = new Thread(this::drainLoop, "ring-buffer-sink");
+        this.drainThread.setDaemon(true);
+        // Last, so the drain thread only ever sees a fully built sink
+        this.drainThread.start();
+    }
+
+    @Override
+    public void response(String endpoint, int statusCode, String body) {
+        offer(new Record(endpoint, statusCode, body));
+    }
+
+    @Override
+    public void error(String message) {
+        offer(new Record(null, 0, message));
+    }
+
+    /**
+     * @return The number of records dropped because the buffer was full.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting records, drains what is buffered, and closes the target.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+
+    private void offer(Record record) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        while (true) {
+            long claim = tail.get();
+            if (claim - head >= slots.length()) {
+                dropped.increment();
+                return;
+            }
+            if (tail.compareAndSet(claim, claim + 1)) {
+                slots.set((int) claim & mask, record);
+                return;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            boolean wasClosed = closed;
+            if (drainAvailable() == 0) {
+                if (wasClosed && head == tail.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Drains every published record. A slot that has been claimed but not
+     * yet written stops the drain until the next pass, to keep ordering.
+     */
+    private int drainAvailable() {
+        int drained = 0;
+        long next = head;
+        while (next < tail.get()) {
+            int index = (int) next & mask;
+            Record record = slots.get(index);
+            if (record == null) {
+                break;
+            }
+            slots.set(index, null);
+            head = ++next;
+            try {
+                if (record.endpoint == null) {
+                    target.error(record.body);
+                } else {
+                    target.response(record.endpoint, record.statusCode, record.body);
+                }
+            } catch (RuntimeException e) {
+                // A failing target must not kill the drain thread
+                dropped.increment();
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    private record Record(String endpoint, int statusCode, String body) {
+    }
+}
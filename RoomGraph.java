@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A map of the game world as seen from the client, built by {@link MapCrawler}.
+ *
+ * Rooms are numbered 0..roomCount-1. Exits live in one flat int table indexed
+ * by room * 6 + direction (north, south, east, west, up, down), holding the
+ * room the exit leads to or -1, so following an exit is one array read and a
+ * whole map of a million rooms takes 24 MB. Rooms are found by identity hash
+ * through an open-addressing table of primitive arrays.
+ *
+ * Saved graphs are a small header followed by the exit table, the room
+ * hashes and the room names. {@link #load} maps the file and reads the exit
+ * table and hashes straight from the mapping, so a large map opens without
+ * being parsed or copied onto the heap.
+ *
+ * Usage:
+ *   RoomGraph map = RoomGraph.load(Path.of("world.graph"));
+ *   for (String direction : map.route(here, map.find("Tower", "A windy lookout..."))) {
+ *       client.move(direction);
+ *   }
+ */
+public final class RoomGraph {
+
+    public static final String[] DIRECTIONS = {"north", "south", "east", "west", "up", "down"};
+    public static final int NO_EXIT = -1;
+
+    private static final int MAGIC = 0x4D514731; // "MQG1"
+    private static final int HEADER_BYTES = 8;
+
+    private final int roomCount;
+    private final IntBuffer exits;
+    private final LongBuffer hashes;
+    private final String[] names;
+    private final long[] indexKeys;
+    private final int[] indexRooms;
+
+    /**
+     * Constructs a graph from its tables. The arrays are used, not copied.
+     *
+     * @param names  Room names, by room.
+     * @param hashes Room identity hashes (see {@link #hash}), by room.
+     * @param exits  The exit table, roomCount * 6 entries.
+     */
+    public RoomGraph(String[] names, long[] hashes, int[] exits) {
+        this(names, LongBuffer.wrap(hashes), IntBuffer.wrap(exits));
+    }
+
+    private RoomGraph(String[] names, LongBuffer hashes, IntBuffer exits) {
+        if (hashes.limit() != names.length || exits.limit() != names.length * DIRECTIONS.length) {
+            throw new IllegalArgumentException("Table sizes do not match " + names.length + " rooms");
+        }
+        this.roomCount = names.length;
+        this.names = names;
+        this.hashes = hashes;
+        this.exits = exits;
+        // An open-addressing hash -> room table, so lookups box nothing
+        int capacity = Integer.highestOneBit(Math.max(1, roomCount) * 2) * 2;
+        this.indexKeys = new long[capacity];
+        this.indexRooms = new int[capacity];
+        Arrays.fill(indexRooms, -1);
+        for (int room = 0; room < roomCount; room++) {
+            long hash = hashes.get(room);
+            int slot = slotOf(hash);
+            while (indexRooms[slot] != -1 && indexKeys[slot] != hash) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (indexRooms[slot] == -1) {
+                indexKeys[slot] = hash;
+                indexRooms[slot] = room;
+            }
+        }
+    }
+
+    /**
+     * The identity of a room: a 64-bit FNV-1a hash of its name and description.
+     * Player lists and items are left out, since they change while crawling.
+     */
+    public static long hash(String name, String description) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, name);
+        h = (h ^ 0xFF) * 0x100000001b3L; // Separator, so ("ab", "c") and ("a", "bc") differ
+        return fnv(h, description);
+    }
+
+    /**
+     * @return The direction's index into {@link #DIRECTIONS}, or -1.
+     */
+    public static int directionIndex(String direction) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            if (DIRECTIONS[dir].equals(direction)) {
+                return dir;
+            }
+        }
+        return -1;
+    }
+
+    public int roomCount() {
+        return roomCount;
+    }
+
+    public String name(int room) {
+        return names[room];
+    }
+
+    public long hashOf(int room) {
+        return hashes.get(room);
+    }
+
+    /**
+     * @return The room an exit leads to, or {@link #NO_EXIT}.
+     */
+    public int exit(int room, int direction) {
+        return exits.get(room * DIRECTIONS.length + direction);
+    }
+
+    /**
+     * @return The room with the given identity hash, or -1.
+     */
+    public int find(long hash) {
+        for (int slot = slotOf(hash); indexRooms[slot] != -1; slot = (slot + 1) & (indexRooms.length - 1)) {
+            if (indexKeys[slot] == hash) {
+                return indexRooms[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The room with the given name and description, or -1.
+     */
+    public int find(String name, String description) {
+        return find(hash(name, description));
+    }
+
+    /**
+     * Plans the shortest walk between two rooms with a breadth-first search.
+     * Every move costs the same and rooms have no coordinates to guide an A*
+     * heuristic, so BFS already visits the fewest rooms.
+     *
+     * @return The directions to move in, in order (empty if from == to), or
+     *         null if the target cannot be reached.
+     */
+    public String[] route(int from, int to) {
+        if (from == to) {
+            return new String[0];
+        }
+        // parent[room] = the room * 6 + direction that first reached it
+        int[] parent = new int[roomCount];
+        Arrays.fill(parent, NO_EXIT);
+        int[] queue = new int[roomCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        parent[from] = from * DIRECTIONS.length;
+        while (head < tail) {
+            int room = queue[head++];
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                int next = exit(room, dir);
+                if (next == NO_EXIT || parent[next] != NO_EXIT) {
+                    continue;
+                }
+                parent[next] = room * DIRECTIONS.length + dir;
+                if (next == to) {
+                    return unwind(parent, from, to);
+                }
+                queue[tail++] = next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the graph to a file, replacing it.
+     */
+    public void save(Path file) throws IOException {
+        byte[][] utf8Names = new byte[roomCount][];
+        long size = HEADER_BYTES + (long) roomCount * DIRECTIONS.length * Integer.BYTES
+                + (long) roomCount * Long.BYTES;
+        for (int room = 0; room < roomCount; room++) {
+            utf8Names[room] = names[room].getBytes(StandardCharsets.UTF_8);
+            size += Integer.BYTES + utf8Names[room].length;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putInt(roomCount);
+            for (int i = 0; i < exits.limit(); i++) {
+                out.putInt(exits.get(i));
+            }
+            for (int room = 0; room < roomCount; room++) {
+                out.putLong(hashes.get(room));
+            }
+            for (byte[] name : utf8Names) {
+                out.putInt(name.length).put(name);
+            }
+            out.force();
+        }
+    }
+
+    /**
+     * Maps a graph written by {@link #save}. The exit table and hashes are
+     * read from the mapping for as long as the graph is in use.
+     *
+     * @throws IOException If the file cannot be read or is not a saved graph.
+     */
+    public static RoomGraph load(Path file) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.limit() < HEADER_BYTES || in.getInt(0) != MAGIC) {
+            throw new IOException("Not a room graph: " + file);
+        }
+        int rooms = in.getInt(4);
+        long exitTable = (long) rooms * DIRECTIONS.length * Integer.BYTES;
+        long hashTable = (long) rooms * Long.BYTES;
+        // Every room also has at least a name length, so a corrupt count fails here, before allocating
+        if (rooms < 0 || HEADER_BYTES + exitTable + hashTable + (long) rooms * Integer.BYTES > in.limit()) {
+            throw new IOException("Truncated room graph: " + file);
+        }
+        int exitBytes = (int) exitTable;
+        int hashBytes = (int) hashTable;
+        IntBuffer exits = in.slice(HEADER_BYTES, exitBytes).asIntBuffer();
+        LongBuffer hashes = in.slice(HEADER_BYTES + exitBytes, hashBytes).asLongBuffer();
+
+        ByteBuffer tail = in.slice(HEADER_BYTES + exitBytes + hashBytes, in.limit() - HEADER_BYTES - exitBytes - hashBytes);
+        String[] names = new String[rooms];
+        try {
+            for (int room = 0; room < rooms; room++) {
+                byte[] name = new byte[tail.getInt()];
+                tail.get(name);
+                names[room] = new String(name, StandardCharsets.UTF_8);
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Truncated room graph: " + file);
+        }
+        return new RoomGraph(names, hashes, exits);
+    }
+
+    // --- Internals ---
+
+    private String[] unwind(int[] parent, int from, int to) {
+        int steps = 0;
+        for (int room = to; room != from; room = parent[room] / DIRECTIONS.length) {
+            steps++;
+        }
+        String[] route = new String[steps];
+        for (int room = to; room != from; room = parent[room] / DIRECTIONS.length) {
+            route[--steps] = DIRECTIONS[parent[room] % DIRECTIONS.length];
+        }
+        return route;
+    }
+
+    private int slotOf(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (indexRooms.length - 1);
+    }
+
+    private static long fnv(long h, String text) {
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return h;
+    }
+}
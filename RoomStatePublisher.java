@@ -0,0 +1,341 @@
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes a player's /look response whenever it changes.
+ *
+ * One poller per publisher calls {@link MidsQuest#lookResponseAsync()} and
+ * emits the body only when a 64-bit hash of its raw bytes differs from the
+ * last one seen; unchanged bodies are never decoded. The poll
+ * interval adapts: it doubles (up to a maximum) after every poll that saw no
+ * change, and drops back to the minimum when something changes. A successful
+ * move, setDoing or useItem on the client triggers a poll right away, so the
+ * player's own actions show up without waiting out a long interval.
+ *
+ * Backpressure: nothing is polled while no subscriber has outstanding demand.
+ * A subscriber that falls behind is not queued every state; it is handed the
+ * newest one when it next requests (later states replace older ones that were
+ * never delivered). A new subscriber gets the current state first.
+ *
+ * Polls that fail or answer anything but 200 are skipped and back off like an
+ * unchanged poll. Subscribers are called on HttpClient threads, one signal at
+ * a time each, and should hand long work to their own executor.
+ *
+ * Usage:
+ *   RoomStatePublisher states = new RoomStatePublisher(client,
+ *           Duration.ofMillis(50), Duration.ofSeconds(5));
+ *   states.subscribe(dashboardSubscriber);
+ */
+public class RoomStatePublisher implements Flow.Publisher<String>, AutoCloseable {
+
+    private final MidsQuest client;
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final CopyOnWriteArrayList<RoomSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Runnable onStateChange = this::stateChanged;
+
+    // --- Poller state, guarded by lock ---
+    private final ReentrantLock lock = new ReentrantLock();
+    private long intervalNanos;
+    private long epoch;
+    private boolean inFlight;
+    private boolean idle = true;
+    private boolean changedInFlight;
+    private boolean closed;
+    private String latest;
+    private long latestHash;
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder emissions = new LongAdder();
+
+    /**
+     * Constructs a publisher for a logged-in client.
+     *
+     * @param minInterval The poll interval right after a change.
+     * @param maxInterval The longest interval polling backs off to.
+     */
+    public RoomStatePublisher(MidsQuest client, Duration minInterval, Duration maxInterval) {
+        if (minInterval.isNegative() || minInterval.isZero() || maxInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("Need 0 < minInterval <= maxInterval");
+        }
+        this.client = client;
+        this.minIntervalNanos = minInterval.toNanos();
+        this.maxIntervalNanos = maxInterval.toNanos();
+        this.intervalNanos = minIntervalNanos;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        RoomSubscription subscription = new RoomSubscription(subscriber);
+        boolean open;
+        lock.lock();
+        try {
+            open = !closed;
+            if (open) {
+                if (subscriptions.isEmpty()) {
+                    client.addStateListener(onStateChange);
+                }
+                // Listed before onSubscribe, so a request made from there can start the poller
+                subscriptions.add(subscription);
+                if (latest != null) {
+                    subscription.offer(latest);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        subscriber.onSubscribe(subscription);
+        if (open) {
+            subscription.drain();
+        } else {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Stops polling and completes every subscriber.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            epoch++;
+        } finally {
+            lock.unlock();
+        }
+        client.removeStateListener(onStateChange);
+        for (RoomSubscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions.clear();
+    }
+
+    /**
+     * @return The number of /look requests sent.
+     */
+    public long getPolls() {
+        return polls.sum();
+    }
+
+    /**
+     * @return The number of changed states found (each delivered to every subscriber).
+     */
+    public long getEmissions() {
+        return emissions.sum();
+    }
+
+    // --- Poller ---
+
+    /**
+     * Starts a poll after a delay. Scheduling again before it runs replaces it.
+     */
+    private void schedule(long delayNanos) {
+        long scheduled;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            scheduled = ++epoch;
+            idle = false;
+        } finally {
+            lock.unlock();
+        }
+        if (delayNanos <= 0) {
+            poll(scheduled);
+        } else {
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(() -> poll(scheduled));
+        }
+    }
+
+    private void poll(long scheduled) {
+        lock.lock();
+        try {
+            if (scheduled != epoch || inFlight || closed) {
+                return; // Superseded by a later schedule, or stopped
+            }
+            if (!hasDemand()) {
+                idle = true; // Until a subscriber requests more
+                return;
+            }
+            inFlight = true;
+        } finally {
+            lock.unlock();
+        }
+        polls.increment();
+        CompletableFuture<GameResponse> look;
+        try {
+            look = client.lookResponseAsync();
+        } catch (RuntimeException e) {
+            look = CompletableFuture.failedFuture(e);
+        }
+        look.whenComplete((response, failure) -> polled(response != null && response.isSuccess() ? response : null));
+    }
+
+    private void polled(GameResponse response) {
+        String changed = null;
+        long delay;
+        lock.lock();
+        try {
+            inFlight = false;
+            long bodyHash = response != null ? hash(response.bytes()) : 0;
+            if (response != null && (latest == null || bodyHash != latestHash)) {
+                latest = changed = response.body();
+                latestHash = bodyHash;
+                intervalNanos = minIntervalNanos;
+            } else {
+                intervalNanos = Math.min(maxIntervalNanos, intervalNanos * 2);
+            }
+            // A move that finished while this poll was out may not be reflected yet
+            delay = changedInFlight ? 0 : intervalNanos;
+            changedInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+        if (changed != null) {
+            emissions.increment();
+            for (RoomSubscription subscription : subscriptions) {
+                subscription.offer(changed);
+                subscription.drain();
+            }
+        }
+        schedule(delay);
+    }
+
+    private void stateChanged() {
+        lock.lock();
+        try {
+            intervalNanos = minIntervalNanos;
+            if (inFlight) {
+                changedInFlight = true;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        schedule(0);
+    }
+
+    /**
+     * Restarts the poller if it went idle for lack of demand.
+     */
+    private void wake() {
+        lock.lock();
+        try {
+            if (!idle) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        schedule(0);
+    }
+
+    /** Caller holds lock. */
+    private boolean hasDemand() {
+        for (RoomSubscription subscription : subscriptions) {
+            if (subscription.demand.get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void cancelled(RoomSubscription subscription) {
+        if (subscriptions.remove(subscription) && subscriptions.isEmpty()) {
+            client.removeStateListener(onStateChange);
+        }
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the raw body.
+     */
+    private static long hash(byte[] body) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : body) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * One subscriber's demand and undelivered state. Signals go out through a
+     * drain loop, so only one thread calls the subscriber at a time.
+     */
+    private final class RoomSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super String> subscriber;
+        final AtomicLong demand = new AtomicLong();
+        private final AtomicReference<String> pending = new AtomicReference<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+        private volatile boolean completing;
+        private volatile Throwable error;
+
+        RoomSubscription(Flow.Subscriber<? super String> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " items (must be positive)");
+                drain();
+                return;
+            }
+            demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            drain();
+            wake();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            cancelled(this);
+        }
+
+        void offer(String state) {
+            pending.set(state);
+        }
+
+        void complete() {
+            completing = true;
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done && demand.get() > 0) {
+                    String state = pending.getAndSet(null);
+                    if (state == null) {
+                        break;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(state);
+                }
+                if (!done && error != null) {
+                    done = true;
+                    cancelled(this);
+                    subscriber.onError(error);
+                } else if (!done && completing) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoomStatePublisherTest {
+
+    private ServerModel server;
+    private MidsQuest client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new ServerModel();
+        server.start(0);
+        client = new MidsQuest(server.getBaseUrl(), HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build());
+        client.setOutputSink(OutputSink.none());
+        assertEquals(200, client.createUser("watcher", "pw"));
+        assertEquals(200, client.login("watcher", "pw"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @Tag("it")
+    public void testEmitsOnlyChangesAndBacksOff() throws Exception {
+        try (RoomStatePublisher states = new RoomStatePublisher(client, Duration.ofMillis(5), Duration.ofSeconds(10))) {
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            states.subscribe(recorder);
+
+            String first = recorder.states.poll(5, TimeUnit.SECONDS);
+            assertTrue(first.contains("Great Hall"), first);
+
+            // Unchanged polls back off (5, 10, 20, 40 ... ms) instead of polling every 5 ms
+            Thread.sleep(600);
+            assertTrue(states.getPolls() < 12, "polls while idle: " + states.getPolls());
+            assertNull(recorder.states.poll());
+
+            // A move is picked up right away, not after the backed-off interval
+            long moved = System.nanoTime();
+            assertEquals(200, client.move("north"));
+            String second = recorder.states.poll(5, TimeUnit.SECONDS);
+            assertTrue(second.contains("Library"), second);
+            assertTrue(System.nanoTime() - moved < TimeUnit.SECONDS.toNanos(2));
+            assertEquals(2, states.getEmissions());
+        }
+    }
+
+    @Test
+    @Tag("it")
+    public void testHonorsDemandAndHandsOverNewestState() throws Exception {
+        RoomStatePublisher states = new RoomStatePublisher(client, Duration.ofMillis(5), Duration.ofMillis(20));
+        Recorder recorder = new Recorder(1);
+        states.subscribe(recorder);
+        assertTrue(recorder.states.poll(5, TimeUnit.SECONDS).contains("Great Hall"));
+
+        // No demand: nothing is polled, even after moves
+        Thread.sleep(50);
+        long polls = states.getPolls();
+        assertEquals(200, client.move("north"));
+        assertEquals(200, client.move("east"));
+        Thread.sleep(100);
+        assertEquals(polls, states.getPolls());
+
+        // Asking again delivers the newest state only
+        recorder.subscription.request(1);
+        assertTrue(recorder.states.poll(5, TimeUnit.SECONDS).contains("Tower"));
+        assertNull(recorder.states.poll(100, TimeUnit.MILLISECONDS));
+
+        states.close();
+        assertTrue(recorder.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Tag("it")
+    public void testRejectsNonPositiveRequests() throws Exception {
+        RoomStatePublisher states = new RoomStatePublisher(client, Duration.ofMillis(5), Duration.ofMillis(20));
+        Recorder recorder = new Recorder(0);
+        states.subscribe(recorder);
+        recorder.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, recorder.error);
+        states.close();
+    }
+
+    private static final class Recorder implements Flow.Subscriber<String> {
+        final LinkedBlockingQueue<String> states = new LinkedBlockingQueue<>();
+        final java.util.concurrent.CountDownLatch completed = new java.util.concurrent.CountDownLatch(1);
+        final long initialDemand;
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        Recorder(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(String item) {
+            states.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -1,17 +1,79 @@
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A model of the Mids Quest game server.
+ *
+ * The first half is the original exploratory client for the remote server.
+ * The second half is an embedded, in-process stand-in for that server, built
+ * on the JDK's com.sun.net.httpserver and running every exchange on a virtual
+ * thread. It implements /user, /login, /move, /look, /doing and /use with the
+ * same JSON shapes and session-token header as the real API, so load tests,
+ * benchmarks and integration tests can run against localhost. Game state
+ * lives in a {@link WorldEngine}.
+ *
+ * A server made with {@link #open(Path)} is durable: every account, move,
+ * doing update and item use is appended to a {@link Journal} and committed
+ * before the reply is sent, and a compact snapshot of all players is written
+ * every million journal records. Reopening the same directory loads the
+ * snapshot and replays only the journal records after it. Session tokens are
+ * not saved; clients log in again after a restart.
+ *
+ *   ServerModel server = new ServerModel();
+ *   int port = server.start(0);
+ *   MidsQuest client = new MidsQuest(server.getBaseUrl(), httpClient);
+ *   ...
+ *   server.stop();
+ */
 public class ServerModel
 {
   //private Player;
   private String sessionToken;
   private String homeURL = "http://lnx1073302govt:8000";
-  private HttpClient client = HttpClient.newHttpClient();
-  
+  private HttpClient client;
+
+  /**
+   * Sets the HttpClient the exploratory client uses. Without one it uses
+   * {@link HttpClientFactory#shared()}, so every ServerModel shares one pool.
+   */
+  public void setHttpClient(HttpClient client)
+  {
+    this.client = client;
+  }
+
+  private HttpClient client()
+  {
+    if (client == null) {
+      client = HttpClientFactory.shared();
+    }
+    return client;
+  }
+
   public void init()
   {
     HttpRequest req = HttpRequest.newBuilder()
@@ -20,7 +82,7 @@ public class ServerModel
      .GET()
      .build();
     try {
-      HttpResponse<String> response = client.send(req, HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> response = client().send(req, HttpResponse.BodyHandlers.ofString());
       System.out.println("Status Code: " + response.statusCode());
       System.out.println("Response Body: ");
       System.out.println(response.body());
@@ -42,7 +104,7 @@ public class ServerModel
    try {
             // .send() is synchronous (waits for the response)
             // .BodyHandlers.ofString() means we expect the response body as a String
-            HttpResponse<String> response = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> response = client().send(req, BodyHandlers.ofString());
 
             // 5. Print the response information
             System.out.println("Status Code: " + response.statusCode());
@@ -69,7 +131,7 @@ public class ServerModel
     try {
             // .send() is synchronous (waits for the response)
             // .BodyHandlers.ofString() means we expect the response body as a String
-            HttpResponse<String> response = client.send(req, BodyHandlers.ofString());
+            HttpResponse<String> response = client().send(req, BodyHandlers.ofString());
 
             // 5. Print the response information
             System.out.println("Status Code: " + response.statusCode());
@@ -83,16 +145,13 @@ public class ServerModel
             e.printStackTrace();
         }
 
-    String content = jsonInput.substring(1, jsonInput.length() - 1);
-
-    // 2. Split the string into two parts at the colon
-    // The '2' limit ensures it only splits on the first colon
-    String[] parts = content.split(":", 2);
-
-    // 3. Clean up the key and value
-    // .trim() removes whitespace
-    // .substring(1, length-1) removes the first and last character (the quotes)
-    String value = parts[1].trim().substring(1, parts[1].trim().length() - 1);
+    // Pull the token out of {"session_token": "..."}
+    String value;
+    try {
+      value = JsonReader.extract(jsonInput, "session_token");
+    } catch (IllegalArgumentException e) {
+      value = null;
+    }
 
     // 4. Print the results
     sessionToken = value;
@@ -100,21 +159,409 @@ public class ServerModel
 
   }
 
-  public void move(String dir)
+  // --- Embedded server ---
+
+  private final WorldEngine world;
+  private final Map<String, String> passwords = new ConcurrentHashMap<>();
+  private final Map<String, Integer> playerIds = new ConcurrentHashMap<>();
+  private final SessionStore sessions;
+
+  // --- Durability (null journal when in-memory only) ---
+  private static final long SNAPSHOT_EVERY = 1 << 20;
+  private static final int SNAPSHOT_MAGIC = 0x4D515331; // "MQS1"
+  private Path dataDir;
+  private Journal journal;
+  private final Object createLock = new Object();
+  private final AtomicBoolean snapshotting = new AtomicBoolean();
+  private volatile long snapshotSeq;
+
+  // Thousands of bots connecting at once overflow the default backlog of 50
+  // and get their connections reset; the kernel caps this at somaxconn.
+  private static final int ACCEPT_BACKLOG = 4096;
+  private HttpServer server;
+  private ExecutorService executor;
+
+  static {
+    // The JDK server writes headers and body separately; without TCP_NODELAY,
+    // Nagle plus delayed ACKs add ~40 ms to every small reply. Read once, when
+    // the first HttpServer is created.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  /**
+   * Constructs a server over the standard four-room world.
+   */
+  public ServerModel()
+  {
+    this(WorldEngine.standard(1 << 16), new SessionStore(Duration.ofMinutes(30)));
+  }
+
+  /**
+   * Constructs a server over the given world and session store.
+   */
+  public ServerModel(WorldEngine world, SessionStore sessions)
   {
-    
+    this.world = world;
+    this.sessions = sessions;
+  }
 
+  /**
+   * Opens a durable server whose state is kept in a directory, restoring
+   * whatever an earlier server saved there.
+   *
+   * @param dataDir The directory holding snapshot.bin and journal.bin. Created if missing.
+   */
+  public static ServerModel open(Path dataDir) throws IOException
+  {
+    Files.createDirectories(dataDir);
+    ServerModel model = new ServerModel();
+    model.dataDir = dataDir;
+    model.snapshotSeq = model.loadSnapshot(dataDir.resolve("snapshot.bin"));
+    model.journal = Journal.open(dataDir.resolve("journal.bin"), model.snapshotSeq, model::replay);
+    return model;
+  }
+
+  /**
+   * @return The world this server plays in.
+   */
+  public WorldEngine getWorld()
+  {
+    return world;
   }
 
-  public void look()
+  /**
+   * Starts serving the game API on localhost.
+   *
+   * @param port The port to listen on, or 0 for any free port.
+   * @return The port actually bound.
+   */
+  public synchronized int start(int port) throws IOException
   {
+    if (server != null) {
+      throw new IllegalStateException("Server already started");
+    }
+    server = HttpServer.create(new InetSocketAddress("localhost", port), ACCEPT_BACKLOG);
+    server.createContext("/user", exchange -> handle(exchange, "POST", false, this::createUser));
+    server.createContext("/login", exchange -> handle(exchange, "POST", false, this::loginUser));
+    server.createContext("/move", exchange -> handle(exchange, "POST", true, this::movePlayer));
+    server.createContext("/look", exchange -> handle(exchange, "GET", true, this::lookAround));
+    server.createContext("/doing", exchange -> handle(exchange, "POST", true, this::setDoing));
+    server.createContext("/use", exchange -> handle(exchange, "POST", true, this::useItem));
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.start();
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops the server, waiting briefly for in-flight exchanges. A durable
+   * server also commits and closes its journal, so it cannot be restarted;
+   * open its directory again instead.
+   */
+  public synchronized void stop()
+  {
+    if (server != null) {
+      server.stop(0);
+      executor.close();
+      server = null;
+    }
+    if (journal != null) {
+      try {
+        journal.close();
+      } catch (IOException e) {
+        System.out.println("Could not close journal: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * @return The base URL of the running server (e.g., "http://localhost:54321").
+   */
+  public String getBaseUrl()
+  {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  /**
+   * The result of one API call: a status code and a JSON body.
+   */
+  private record Reply(int status, String json) { }
+
+  @FunctionalInterface
+  private interface Action
+  {
+    Reply apply(int player, String body);
+  }
+
+  private void handle(HttpExchange exchange, String method, boolean requireAuth, Action action) throws IOException
+  {
+    try (exchange) {
+      Reply reply;
+      if (!method.equals(exchange.getRequestMethod())) {
+        reply = error(405, "Method Not Allowed");
+      } else {
+        Integer player = null;
+        if (requireAuth) {
+          String token = exchange.getRequestHeaders().getFirst("session-token");
+          int id = sessions.validate(token);
+          player = id < 0 ? null : id;
+        }
+        if (requireAuth && player == null) {
+          reply = error(401, "Invalid or missing session token");
+        } else {
+          String body;
+          try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+          }
+          try {
+            reply = action.apply(player == null ? -1 : player, body);
+          } catch (IllegalArgumentException e) {
+            reply = error(422, "Malformed request body");
+          }
+        }
+      }
+
+      byte[] bytes = reply.json().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(reply.status(), bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    }
+  }
+
+  private Reply createUser(int none, String body)
+  {
+    String[] fields = JsonReader.extract(body, "username", "password");
+    if (fields[0] == null || fields[1] == null || fields[0].isEmpty()) {
+      return error(422, "username and password are required");
+    }
+    if (journal != null && !Journal.fits(fields[0], fields[1])) {
+      return error(422, "username and password are too long");
+    }
+    if (passwords.putIfAbsent(fields[0], fields[1]) != null) {
+      return error(400, "Username already exists");
+    }
+    long seq;
+    // Ids are handed out in journal order, so replaying CREATE records reproduces them
+    synchronized (createLock) {
+      int player;
+      try {
+        player = world.addPlayer(fields[0]);
+      } catch (IllegalStateException e) {
+        passwords.remove(fields[0]);
+        return error(503, "The world is full");
+      }
+      playerIds.put(fields[0], player);
+      seq = journal == null ? -1 : journal.append(Journal.Type.CREATE, player, 0, fields[0], fields[1]);
+    }
+    commit(seq);
+    return message("User created");
   }
 
+  private Reply loginUser(int none, String body)
+  {
+    String[] fields = JsonReader.extract(body, "username", "password");
+    String expected = fields[0] == null ? null : passwords.get(fields[0]);
+    // The password is published before the id, so a user still being created has no id yet
+    Integer player = expected == null ? null : playerIds.get(fields[0]);
+    if (player == null || !expected.equals(fields[1])) {
+      return error(400, "Invalid username or password");
+    }
+    String token = sessions.issue(player);
+    return new Reply(200, "{\"session_token\": \"" + token + "\"}");
+  }
+
+  private Reply movePlayer(int player, String body)
+  {
+    String direction = JsonReader.extract(body, "direction");
+    if (journal == null) {
+      int next = world.move(player, direction);
+      return next < 0 ? error(400, "You can't go that way.")
+          : message("You move " + direction + " to the " + world.roomName(next) + ".");
+    }
+    // Journaled under the world's lock, so one player's moves replay in the order they happened
+    long[] seq = {-1};
+    int next = world.move(player, direction,
+        room -> seq[0] = journal.append(Journal.Type.MOVE, player, room, direction, null));
+    if (next < 0) {
+      return error(400, "You can't go that way.");
+    }
+    commit(seq[0]);
+    return message("You move " + direction + " to the " + world.roomName(next) + ".");
+  }
+
+  private Reply lookAround(int player, String body)
+  {
+    return new Reply(200, world.look(player));
+  }
+
+  private Reply setDoing(int player, String body)
+  {
+    String action = JsonReader.extract(body, "action");
+    if (action == null) {
+      return error(422, "action is required");
+    }
+    if (journal != null && !Journal.fits(action, null)) {
+      return error(422, "action is too long");
+    }
+    if (journal == null) {
+      world.setDoing(player, action);
+    } else {
+      long[] seq = {-1};
+      world.setDoing(player, action, () -> seq[0] = journal.append(Journal.Type.DOING, player, 0, action, null));
+      commit(seq[0]);
+    }
+    return message("You are now " + action + ".");
+  }
+
+  private Reply useItem(int player, String body)
+  {
+    String item = JsonReader.extract(body, "item");
+    if (item == null || !world.hasItem(player, item)) {
+      return error(400, "There is no " + item + " here.");
+    }
+    record(Journal.Type.USE, player, 0, item);
+    return message("You use the " + item + ".");
+  }
+
+  // --- Journal and snapshots ---
+
+  /**
+   * Journals an event that changes no state (so its order does not matter
+   * for replay), then waits for it to be committed. Does nothing on an
+   * in-memory server.
+   */
+  private void record(Journal.Type type, int player, int room, String text)
+  {
+    if (journal != null) {
+      commit(journal.append(type, player, room, text, null));
+    }
+  }
+
+  private void commit(long seq)
+  {
+    if (seq < 0) {
+      return;
+    }
+    if (seq - snapshotSeq >= SNAPSHOT_EVERY && snapshotting.compareAndSet(false, true)) {
+      Thread.ofVirtual().start(() -> {
+        try {
+          snapshot();
+        } catch (IOException e) {
+          System.out.println("Snapshot failed: " + e.getMessage());
+        } finally {
+          snapshotting.set(false);
+        }
+      });
+    }
+    journal.awaitCommit(seq);
+  }
+
+  private void replay(Journal.Entry entry)
+  {
+    switch (entry.type()) {
+      case CREATE -> {
+        // A fuzzy snapshot may already include players created just after it began
+        if (entry.player() >= world.playerCount()) {
+          int player = world.addPlayer(entry.first());
+          passwords.put(entry.first(), entry.second());
+          playerIds.put(entry.first(), player);
+        }
+      }
+      case MOVE -> world.place(entry.player(), entry.room());
+      case DOING -> world.setDoing(entry.player(), entry.first());
+      case USE -> { }
+    }
+  }
+
+  /**
+   * Writes every player's account, room and doing to snapshot.bin, so the
+   * next open only replays journal records after this point. Runs alongside
+   * requests: the journal records are absolute, so replaying ones the
+   * snapshot already reflects is harmless.
+   */
+  public void snapshot() throws IOException
+  {
+    if (journal == null) {
+      throw new IllegalStateException("In-memory servers have no snapshots");
+    }
+    long seq;
+    int players;
+    synchronized (createLock) {
+      seq = journal.position();
+      players = world.playerCount();
+    }
+    Path tmp = dataDir.resolve("snapshot.tmp");
+    try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeLong(seq);
+      out.writeInt(players);
+      for (int player = 0; player < players; player++) {
+        String username = world.getUsername(player);
+        out.writeUTF(username);
+        out.writeUTF(passwords.get(username));
+        out.writeInt(world.roomOf(player));
+        out.writeUTF(world.getDoing(player));
+      }
+      out.flush();
+      file.getFD().sync();
+    }
+    Files.move(tmp, dataDir.resolve("snapshot.bin"),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    snapshotSeq = seq;
+  }
+
+  /**
+   * @return The journal sequence the snapshot covers up to, or 0 if there is none.
+   */
+  private long loadSnapshot(Path file) throws IOException
+  {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+      if (in.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException("Not a snapshot: " + file);
+      }
+      long seq = in.readLong();
+      int players = in.readInt();
+      for (int i = 0; i < players; i++) {
+        String username = in.readUTF();
+        String password = in.readUTF();
+        int room = in.readInt();
+        String doing = in.readUTF();
+        int player = world.addPlayer(username);
+        passwords.put(username, password);
+        playerIds.put(username, player);
+        world.place(player, room);
+        world.setDoing(player, doing);
+      }
+      return seq;
+    }
+  }
+
+  private static Reply message(String message)
+  {
+    return new Reply(200, "{\"message\": \"" + MidsQuest.escapeJsonString(message) + "\"}");
+  }
+
+  private static Reply error(int status, String detail)
+  {
+    return new Reply(status, "{\"detail\": \"" + MidsQuest.escapeJsonString(detail) + "\"}");
+  }
 
-  public static void main(String[] args)
+  /**
+   * Runs the embedded server until the process is killed.
+   * Usage: java ServerModel [port]
+   */
+  public static void main(String[] args) throws IOException
   {
     ServerModel m = new ServerModel();
-    m.init();
-    m.login("TateM", "burger");
+    int port = m.start(args.length > 0 ? Integer.parseInt(args[0]) : 8000);
+    System.out.println("Mids Quest stand-in listening on http://localhost:" + port);
   }
 }
@@ -1,6 +1,162 @@
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ServerModelTest
 {
+  private ServerModel server;
+  private HttpClient httpClient;
+  private MidsQuest client;
+
+  @BeforeEach
+  public void setUp() throws Exception
+  {
+    server = new ServerModel();
+    server.start(0);
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    client = new MidsQuest(server.getBaseUrl(), httpClient);
+    client.setOutputSink(OutputSink.none());
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    server.stop();
+  }
+
+  @Test
+  @Tag("unit")
+  public void testFullSequenceAgainstLocalServer() throws Exception
+  {
+    assertEquals(200, client.createUser("alice", "pw"));
+    assertEquals(400, client.createUser("alice", "pw"), "usernames are unique");
+    assertEquals(400, client.login("alice", "wrong"));
+    assertEquals(200, client.login("alice", "pw"));
+    assertEquals(200, client.look());
+    assertEquals(200, client.move("north"));
+    assertEquals(400, client.move("north"), "the Library has no north exit");
+    assertEquals(200, client.setDoing("reading a book"));
+    assertEquals(200, client.useItem("book"));
+    assertEquals(400, client.useItem("torch"), "the torch is back in the Great Hall");
+  }
+
+  @Test
+  @Tag("unit")
+  public void testLookShowsRoomAndOtherPlayers() throws Exception
+  {
+    MidsQuest bob = new MidsQuest(server.getBaseUrl(), httpClient);
+    bob.setOutputSink(OutputSink.none());
+    client.createUser("alice", "pw");
+    client.login("alice", "pw");
+    bob.createUser("bob", "pw");
+    bob.login("bob", "pw");
+    bob.setDoing("resting");
+
+    HttpResponse<String> look = httpClient.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/look"))
+        .header("session-token", client.getToken()).GET().build(), HttpResponse.BodyHandlers.ofString());
+    String[] fields = JsonReader.extract(look.body(), "room", "exits", "items", "players");
+    assertEquals("Great Hall", fields[0]);
+    assertEquals("[\"north\", \"east\"]", fields[1]);
+    assertEquals("[\"torch\"]", fields[2]);
+    assertTrue(fields[3].contains("{\"username\": \"bob\", \"doing\": \"resting\"}"), fields[3]);
+  }
+
+  @Test
+  @Tag("unit")
+  public void testRejectsMissingOrUnknownToken() throws Exception
+  {
+    HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/look"))
+        .header("session-token", "not-a-token").GET().build(), HttpResponse.BodyHandlers.ofString());
+    assertEquals(401, response.statusCode());
+    assertTrue(JsonReader.extract(response.body(), "detail") != null);
+
+    response = httpClient.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/move"))
+        .POST(HttpRequest.BodyPublishers.ofString("{\"direction\": \"north\"}")).build(),
+        HttpResponse.BodyHandlers.ofString());
+    assertEquals(401, response.statusCode());
+  }
+
+  @Test
+  @Tag("unit")
+  public void testDurableServerRestoresPlayersAfterRestart(@TempDir Path dir) throws Exception
+  {
+    ServerModel durable = ServerModel.open(dir);
+    durable.start(0);
+    MidsQuest alice = new MidsQuest(durable.getBaseUrl(), httpClient);
+    alice.setOutputSink(OutputSink.none());
+    alice.createUser("alice", "pw");
+    alice.login("alice", "pw");
+    alice.move("north");
+    durable.snapshot();
+    alice.move("east");
+    alice.setDoing("stargazing");
+    durable.stop();
+
+    // Restart: the snapshot has alice in the Library, the journal tail moves her to the Tower
+    ServerModel restarted = ServerModel.open(dir);
+    restarted.start(0);
+    try {
+      MidsQuest again = new MidsQuest(restarted.getBaseUrl(), httpClient);
+      again.setOutputSink(OutputSink.none());
+      assertEquals(400, again.createUser("alice", "other"), "the account survived");
+      assertEquals(200, again.login("alice", "pw"));
+      WorldEngine world = restarted.getWorld();
+      assertEquals("Tower", world.roomName(world.roomOf(0)));
+      assertEquals("stargazing", world.getDoing(0));
+      assertEquals(200, again.useItem("telescope"));
+    } finally {
+      restarted.stop();
+    }
+  }
+
+  @Test
+  @Tag("unit")
+  public void testConcurrentChangesByOnePlayerReplayInOrder(@TempDir Path dir) throws Exception
+  {
+    ServerModel durable = ServerModel.open(dir);
+    durable.start(0);
+    MidsQuest alice = new MidsQuest(durable.getBaseUrl(), httpClient);
+    alice.setOutputSink(OutputSink.none());
+    alice.createUser("alice", "pw");
+    alice.login("alice", "pw");
+    String[] directions = {"north", "east", "south", "west"};
+    // Platform threads, so requests are preempted mid-handler even on one CPU
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int t = 0; t < 8; t++) {
+        int thread = t;
+        executor.submit(() -> {
+          for (int i = 0; i < 250; i++) {
+            alice.move(directions[(thread + i) % directions.length]);
+            alice.setDoing("thread " + thread + " step " + i);
+          }
+          return null;
+        });
+      }
+    }
+    WorldEngine world = durable.getWorld();
+    int room = world.roomOf(0);
+    String doing = world.getDoing(0);
+    durable.stop();
+
+    ServerModel restarted = ServerModel.open(dir);
+    try {
+      WorldEngine replayed = restarted.getWorld();
+      assertEquals(room, replayed.roomOf(0));
+      assertEquals(doing, replayed.getDoing(0));
+    } finally {
+      restarted.stop();
+    }
+  }
 }
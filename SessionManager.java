@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Manages many players' sessions over one shared HttpClient.
+ *
+ * Credentials and session tokens live in a concurrent map, one lightweight
+ * {@link PlayerHandle} per user. Handles log in on first use and, when the
+ * server answers 401, log in again and retry the call once. Logins are
+ * single-flight per user: a burst of calls that all see an expired token
+ * share one /login request instead of starting a login storm.
+ *
+ * With a {@link TokenCache}, a handle's first login reuses the token cached
+ * for its user when there is one, so restarting a fleet sends no /login at
+ * all until the server rejects a token.
+ *
+ * Usage:
+ *   SessionManager players = new SessionManager("http://localhost:8000", httpClient);
+ *   SessionManager.PlayerHandle alice = players.register("alice", "pw");
+ *   alice.move("north");
+ */
+public class SessionManager {
+
+    private final String apiBaseUrl;
+    private final HttpClient httpClient;
+    private final ClientMetrics metrics;
+    private final OutputSink outputSink;
+
+    private final ConcurrentHashMap<String, PlayerHandle> players = new ConcurrentHashMap<>();
+    private final LongAdder removedLogins = new LongAdder();
+    private volatile TokenCache tokenCache;
+
+    /**
+     * Constructs a SessionManager that discards response output and keeps its own metrics.
+     */
+    public SessionManager(String apiBaseUrl, HttpClient httpClient) {
+        this(apiBaseUrl, httpClient, new ClientMetrics(), OutputSink.none());
+    }
+
+    /**
+     * Constructs a new SessionManager.
+     *
+     * @param apiBaseUrl The base URL of the Mids Quest API.
+     * @param httpClient The HttpClient shared by every player.
+     * @param metrics    The metrics every player's requests are recorded into.
+     * @param outputSink Where every player's responses are reported.
+     */
+    public SessionManager(String apiBaseUrl, HttpClient httpClient, ClientMetrics metrics, OutputSink outputSink) {
+        this.apiBaseUrl = apiBaseUrl;
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.outputSink = outputSink;
+    }
+
+    /**
+     * Registers a player's credentials and returns their handle. Nothing is
+     * sent until the handle is first used. Registering an existing username
+     * returns the existing handle.
+     */
+    public PlayerHandle register(String username, String password) {
+        return players.computeIfAbsent(username, name -> new PlayerHandle(name, password));
+    }
+
+    /**
+     * @return The handle for a registered player, or null.
+     */
+    public PlayerHandle handle(String username) {
+        return players.get(username);
+    }
+
+    /**
+     * Forgets a player. Calls already running on their handle still complete.
+     */
+    public void remove(String username) {
+        PlayerHandle removed = players.remove(username);
+        if (removed != null) {
+            removedLogins.add(removed.client.relogins());
+        }
+    }
+
+    /**
+     * @return The number of registered players.
+     */
+    public int size() {
+        return players.size();
+    }
+
+    /**
+     * @return The number of /login requests sent so far, across all players.
+     */
+    public long getLogins() {
+        long logins = removedLogins.sum();
+        for (PlayerHandle handle : players.values()) {
+            logins += handle.client.relogins();
+        }
+        return logins;
+    }
+
+    /**
+     * Shares tokens through a token cache, or stops when null. Applies to
+     * handles registered afterwards.
+     */
+    public void setTokenCache(TokenCache cache) {
+        this.tokenCache = cache;
+    }
+
+    /**
+     * @return The metrics shared by every player.
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * One player's session. Safe to use from many threads at once.
+     */
+    public final class PlayerHandle {
+        private final String username;
+        private final MidsQuest client;
+
+        private PlayerHandle(String username, String password) {
+            this.username = username;
+            this.client = new MidsQuest(apiBaseUrl, httpClient, metrics);
+            this.client.setOutputSink(outputSink);
+            this.client.setTokenCache(tokenCache);
+            this.client.setCredentials(username, password);
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * @return The current session token, or null before the first login.
+         */
+        public String getToken() {
+            return client.getToken();
+        }
+
+        public int move(String direction) throws IOException, InterruptedException {
+            return call(c -> c.move(direction));
+        }
+
+        public int look() throws IOException, InterruptedException {
+            return call(MidsQuest::look);
+        }
+
+        public int setDoing(String action) throws IOException, InterruptedException {
+            return call(c -> c.setDoing(action));
+        }
+
+        public int useItem(String item) throws IOException, InterruptedException {
+            return call(c -> c.useItem(item));
+        }
+
+        public CompletableFuture<Integer> moveAsync(String direction) {
+            return callAsync(c -> c.moveAsync(direction));
+        }
+
+        public CompletableFuture<Integer> lookAsync() {
+            return callAsync(MidsQuest::lookAsync);
+        }
+
+        public CompletableFuture<Integer> setDoingAsync(String action) {
+            return callAsync(c -> c.setDoingAsync(action));
+        }
+
+        public CompletableFuture<Integer> useItemAsync(String item) {
+            return callAsync(c -> c.useItemAsync(item));
+        }
+
+        /**
+         * Runs a call, logging in first if needed. The client itself logs in
+         * again and retries once on a 401.
+         *
+         * @return The call's status code, or the /login status code if logging in failed.
+         */
+        private int call(BlockingCall call) throws IOException, InterruptedException {
+            if (client.getToken() == null) {
+                int loginStatus = MidsQuest.await(login(null));
+                if (loginStatus != 200) {
+                    return loginStatus;
+                }
+            }
+            return call.run(client);
+        }
+
+        private CompletableFuture<Integer> callAsync(Function<MidsQuest, CompletableFuture<Integer>> call) {
+            CompletableFuture<Integer> ready = client.getToken() == null
+                    ? login(null)
+                    : CompletableFuture.completedFuture(200);
+            return ready.thenCompose(loginStatus -> loginStatus != 200
+                    ? CompletableFuture.completedFuture(loginStatus)
+                    : call.apply(client));
+        }
+
+        /**
+         * Replaces a stale session token with a fresh one, through the
+         * client's single-flight {@link MidsQuest#relogin}.
+         *
+         * @param staleToken The token the caller saw rejected (null if none).
+         * @return A future holding the /login status (200 if no login was needed).
+         */
+        CompletableFuture<Integer> login(String staleToken) {
+            return client.relogin(staleToken);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockingCall {
+        int run(MidsQuest client) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SessionManagerTest {
+
+    @Mock
+    private HttpClient mockHttpClient;
+
+    private SessionManager manager;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        manager = new SessionManager("http://lnx1073302govt:8000", mockHttpClient);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<ResponseBody> response(int status, String body) {
+        HttpResponse<ResponseBody> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(ResponseBody.of(body.getBytes(StandardCharsets.UTF_8)));
+        return response;
+    }
+
+    private static HttpRequest to(String path) {
+        return argThat(request -> request != null && request.uri().getPath().equals(path));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLogsInOnFirstUseAndReloginsOn401() throws Exception {
+        HttpResponse<ResponseBody> first = response(200, "{\"session_token\": \"t1\"}");
+        HttpResponse<ResponseBody> second = response(200, "{\"session_token\": \"t2\"}");
+        when(mockHttpClient.sendAsync(to("/login"), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(first))
+                .thenReturn(CompletableFuture.completedFuture(second));
+        HttpResponse<ResponseBody> expired = response(401, "{\"detail\": \"Invalid session\"}");
+        HttpResponse<ResponseBody> ok = response(200, "{\"description\": \"A hall\"}");
+        when(mockHttpClient.send(to("/look"), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(ok).thenReturn(expired).thenReturn(ok);
+
+        SessionManager.PlayerHandle alice = manager.register("alice", "pw");
+        assertNull(alice.getToken(), "registering does not log in");
+
+        assertEquals(200, alice.look());
+        assertEquals("t1", alice.getToken());
+        assertEquals(200, alice.look(), "a 401 is retried after logging in again");
+        assertEquals("t2", alice.getToken());
+        assertEquals(2, manager.getLogins());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testConcurrentReloginsAreSingleFlight() throws Exception {
+        CompletableFuture<HttpResponse<ResponseBody>> pendingLogin = new CompletableFuture<>();
+        when(mockHttpClient.sendAsync(to("/login"), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(pendingLogin);
+
+        SessionManager.PlayerHandle bob = manager.register("bob", "pw");
+        List<CompletableFuture<Integer>> logins = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            logins.add(bob.login(null));
+        }
+        assertEquals(1, manager.getLogins(), "only one /login is sent for a burst of callers");
+
+        HttpResponse<ResponseBody> fresh = response(200, "{\"session_token\": \"fresh\"}");
+        pendingLogin.complete(fresh);
+        for (CompletableFuture<Integer> login : logins) {
+            assertEquals(200, login.get());
+        }
+        assertEquals("fresh", bob.getToken());
+
+        // A caller that saw an older token does not log in again
+        assertEquals(200, bob.login(null).get());
+        assertEquals(1, manager.getLogins());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testFailedLoginIsReported() throws Exception {
+        HttpResponse<ResponseBody> rejected = response(400, "{\"detail\": \"Bad credentials\"}");
+        when(mockHttpClient.sendAsync(to("/login"), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(rejected));
+
+        SessionManager.PlayerHandle eve = manager.register("eve", "wrong");
+        assertEquals(400, eve.move("north"));
+        assertEquals(400, eve.lookAsync().get());
+        verify(mockHttpClient, never()).send(to("/move"), any(HttpResponse.BodyHandler.class));
+        assertSame(eve, manager.register("eve", "other"));
+        assertEquals(1, manager.size());
+    }
+}
@@ -0,0 +1,177 @@
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Server-side session tokens for {@link ServerModel}.
+ *
+ * Tokens are 24 bytes from SecureRandom, base64url-encoded (32 characters).
+ * Each maps to a player id in a ConcurrentHashMap, so validating the
+ * session-token header is one hash lookup with no global lock.
+ *
+ * Idle sessions expire through a hashed timer wheel. Time is cut into ticks;
+ * each session sits in the wheel slot of the tick it would expire at if
+ * never used again. Using a session only writes its last-seen tick, it does
+ * not move it. Whenever a request notices the clock has passed into a new
+ * tick, one caller (chosen by CAS) sweeps just the slots that came due:
+ * sessions really past their deadline are removed, the rest are put back in
+ * the slot of their new deadline. No full scan ever happens.
+ *
+ * A session costs one small object, its token string, one map entry and one
+ * queue node, about 200 bytes, so a million sessions fit in roughly 200 MB.
+ */
+public class SessionStore {
+
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int TOKEN_BYTES = 24;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<ConcurrentLinkedQueue<Session>> wheel;
+    private final long tickNanos;
+    private final long ttlTicks;
+    private final LongSupplier clock;
+    private final long origin;
+    private final AtomicLong sweptTick = new AtomicLong();
+
+    /**
+     * Constructs a store whose sessions expire after the given idle time.
+     */
+    public SessionStore(Duration idleTimeout) {
+        this(idleTimeout, System::nanoTime);
+    }
+
+    /**
+     * Constructs a store on an explicit clock, for tests.
+     *
+     * @param idleTimeout How long a session may go unused before it expires.
+     * @param clock       A nanosecond clock, like System::nanoTime.
+     */
+    SessionStore(Duration idleTimeout, LongSupplier clock) {
+        long timeoutNanos = idleTimeout.toNanos();
+        if (timeoutNanos <= 0) {
+            throw new IllegalArgumentException("idleTimeout must be positive: " + idleTimeout);
+        }
+        // 64 ticks per timeout: sessions outlive their timeout by at most 1/64th
+        this.ttlTicks = 64;
+        this.tickNanos = Math.max(1, timeoutNanos / ttlTicks);
+        List<ConcurrentLinkedQueue<Session>> slots = new ArrayList<>((int) ttlTicks + 1);
+        for (int i = 0; i <= ttlTicks; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+        this.wheel = List.copyOf(slots);
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+    /**
+     * Issues a new session token for a player.
+     */
+    public String issue(int player) {
+        long now = advance();
+        byte[] raw = new byte[TOKEN_BYTES];
+        TOKEN_RANDOM.nextBytes(raw);
+        String token = TOKEN_ENCODER.encodeToString(raw);
+        Session session = new Session(token, player, now);
+        sessions.put(token, session);
+        wheel.get(slotOf(now + ttlTicks)).add(session);
+        return token;
+    }
+
+    /**
+     * Looks up a token and marks its session as used.
+     *
+     * @return The player id the token belongs to, or -1 if it is unknown or expired.
+     */
+    public int validate(String token) {
+        long now = advance();
+        if (token == null) {
+            return -1;
+        }
+        Session session = sessions.get(token);
+        if (session == null || session.lastSeen + ttlTicks <= now) {
+            return -1;
+        }
+        if (session.lastSeen != now) {
+            session.lastSeen = now;
+        }
+        return session.player;
+    }
+
+    /**
+     * Ends a session immediately. Unknown tokens are ignored.
+     */
+    public void revoke(String token) {
+        // Its wheel entry stays until that slot is swept, then is dropped
+        sessions.remove(token);
+    }
+
+    /**
+     * @return The number of live sessions, including expired ones not yet swept.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    // --- Timer wheel ---
+
+    private long currentTick() {
+        return (clock.getAsLong() - origin) / tickNanos;
+    }
+
+    /**
+     * Sweeps the wheel up to the current tick if nobody else is.
+     *
+     * @return The current tick.
+     */
+    private long advance() {
+        long now = currentTick();
+        long swept = sweptTick.get();
+        if (now > swept && sweptTick.compareAndSet(swept, now)) {
+            // After a long idle gap every slot is due; one revolution covers them all
+            long from = Math.max(swept + 1, now - wheel.size() + 1);
+            for (long tick = from; tick <= now; tick++) {
+                sweep(wheel.get(slotOf(tick)), now);
+            }
+        }
+        return now;
+    }
+
+    private void sweep(ConcurrentLinkedQueue<Session> slot, long now) {
+        // Only drain what was queued before the sweep began; re-queued sessions land in later slots
+        for (int n = slot.size(); n > 0; n--) {
+            Session session = slot.poll();
+            if (session == null) {
+                return;
+            }
+            long deadline = session.lastSeen + ttlTicks;
+            if (deadline <= now) {
+                sessions.remove(session.token, session);
+            } else {
+                wheel.get(slotOf(deadline)).add(session);
+            }
+        }
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % wheel.size());
+    }
+
+    private static final class Session {
+        final String token;
+        final int player;
+        volatile long lastSeen;
+
+        Session(String token, int player, long lastSeen) {
+            this.token = token;
+            this.player = player;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SessionStore store = new SessionStore(Duration.ofSeconds(64), clock::get);
+
+    @Test
+    @Tag("unit")
+    public void testIssuedTokensValidate() {
+        String alice = store.issue(7);
+        String bob = store.issue(9);
+        assertEquals(32, alice.length());
+        assertNotEquals(alice, bob);
+
+        assertEquals(7, store.validate(alice));
+        assertEquals(9, store.validate(bob));
+        assertEquals(-1, store.validate("not-a-token"));
+        assertEquals(-1, store.validate(null));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testTokensAreUnique() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(tokens.add(store.issue(i)));
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testIdleSessionsExpireAndAreSwept() {
+        String idle = store.issue(1);
+        String busy = store.issue(2);
+
+        // Use one session every 10s for two timeouts' worth of time
+        for (int s = 10; s <= 130; s += 10) {
+            clock.set(Duration.ofSeconds(s).toNanos());
+            assertEquals(2, store.validate(busy), "at " + s + "s");
+        }
+
+        assertEquals(-1, store.validate(idle));
+        assertEquals(1, store.size(), "the idle session should have been swept");
+    }
+
+    @Test
+    @Tag("unit")
+    public void testRevoke() {
+        String token = store.issue(3);
+        store.revoke(token);
+        assertEquals(-1, store.validate(token));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @Tag("unit")
+    public void testLongGapSweepsEverything() {
+        for (int i = 0; i < 100; i++) {
+            store.issue(i);
+        }
+        clock.set(Duration.ofHours(5).toNanos());
+        assertEquals(-1, store.validate("anything"));
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,317 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An on-disk cache of session tokens, keyed by base URL and username, that
+ * many client processes can share.
+ *
+ * A client that finds a token here skips /user and /login on startup and
+ * only logs in again if the server rejects the token (see
+ * {@link MidsQuest#resumeSession(String, String)}). A fleet restart then
+ * costs no login round trips at all while the server still knows its sessions.
+ *
+ * The file is a small memory-mapped hash table: a 16-byte header (magic
+ * "MQK1", then the slot count), then fixed 256-byte slots (big-endian):
+ *
+ *   long  hash          64-bit FNV-1a of the key; 0 is empty, 1 is removed
+ *   short keyLength     UTF-8 bytes of baseUrl + '\n' + username
+ *   short tokenLength   UTF-8 bytes of the token
+ *   the key, then the token
+ *
+ * Keys are found by linear probing from hash % slots, over at most 16 slots;
+ * when those are all taken by other keys, the first one is overwritten. An
+ * entry whose key and token do not fit in a slot is not cached.
+ *
+ * Readers hold a shared FileLock and writers an exclusive one, so processes
+ * never see a half-written slot. FileLocks belong to the whole JVM, which
+ * is why every cache in the JVM also takes one ReentrantLock first.
+ *
+ * Usage:
+ *   try (TokenCache tokens = TokenCache.open(Path.of("tokens.cache"))) {
+ *       client.setTokenCache(tokens);
+ *       client.resumeSession("alice", "pw"); // no request if the token is cached
+ *       ...
+ *   }
+ */
+public class TokenCache implements AutoCloseable {
+
+    static final int MAGIC = 0x4D514B31; // "MQK1"
+    static final int HEADER = 16;
+    static final int SLOT = 256;
+    static final int DEFAULT_SLOTS = 1024;
+    private static final int SLOT_HEADER = 8 + 2 + 2;
+    private static final int MAX_PROBES = 16;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = 1;
+
+    // One lock for every cache in the JVM, since overlapping FileLocks throw
+    private static final ReentrantLock JVM_LOCK = new ReentrantLock();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int slots;
+    private boolean closed;
+
+    private TokenCache(FileChannel channel, MappedByteBuffer map, int slots) {
+        this.channel = channel;
+        this.map = map;
+        this.slots = slots;
+    }
+
+    /**
+     * Opens a cache file, creating it with room for 1024 tokens if needed.
+     *
+     * @throws IOException If the file cannot be opened or is not a token cache.
+     */
+    public static TokenCache open(Path file) throws IOException {
+        return open(file, DEFAULT_SLOTS);
+    }
+
+    /**
+     * Opens a cache file, creating it with the given number of slots if
+     * needed. An existing file keeps its own slot count.
+     *
+     * @throws IOException If the file cannot be opened or is not a token cache.
+     */
+    static TokenCache open(Path file, int slots) throws IOException {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("slots must be positive: " + slots);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        JVM_LOCK.lock();
+        try {
+            FileLock lock = channel.lock();
+            try {
+                return map(channel, file, slots);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        } finally {
+            JVM_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Maps an open cache file, writing its header if it is new. Called with
+     * the file locked.
+     */
+    private static TokenCache map(FileChannel channel, Path file, int slots) throws IOException {
+        if (channel.size() == 0) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slots * SLOT);
+            map.putInt(0, MAGIC);
+            map.putInt(4, slots);
+            return new TokenCache(channel, map, slots);
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER));
+        int existing = header.limit() == HEADER ? header.getInt(4) : 0;
+        if (header.limit() < HEADER || header.getInt(0) != MAGIC || existing <= 0
+                || channel.size() != HEADER + (long) existing * SLOT) {
+            throw new IOException("Not a token cache: " + file);
+        }
+        return new TokenCache(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), existing);
+    }
+
+    /**
+     * @return The cached token for this user on this server, or null if none.
+     */
+    public String get(String baseUrl, String username) throws IOException {
+        byte[] key = key(baseUrl, username);
+        long hash = hash(key);
+        FileLock lock = lock(true);
+        try {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return null;
+            }
+            int at = offset(slot);
+            byte[] token = new byte[map.getShort(at + 10)];
+            map.get(at + SLOT_HEADER + key.length, token);
+            return new String(token, StandardCharsets.UTF_8);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Stores (or replaces) the token for this user on this server.
+     */
+    public void put(String baseUrl, String username, String token) throws IOException {
+        byte[] key = key(baseUrl, username);
+        byte[] value = token.getBytes(StandardCharsets.UTF_8);
+        if (SLOT_HEADER + key.length + value.length > SLOT) {
+            return;
+        }
+        long hash = hash(key);
+        FileLock lock = lock(false);
+        try {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                slot = freeSlot(hash);
+            }
+            int at = offset(slot);
+            map.putLong(at, hash);
+            map.putShort(at + 8, (short) key.length);
+            map.putShort(at + 10, (short) value.length);
+            map.put(at + SLOT_HEADER, key);
+            map.put(at + SLOT_HEADER + key.length, value);
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * Removes the entry for this user on this server, but only if it still
+     * holds the given token: another process may already have stored a newer one.
+     */
+    public void remove(String baseUrl, String username, String token) throws IOException {
+        byte[] key = key(baseUrl, username);
+        byte[] value = token.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(key);
+        FileLock lock = lock(false);
+        try {
+            int slot = find(hash, key);
+            if (slot < 0) {
+                return;
+            }
+            int at = offset(slot);
+            byte[] stored = new byte[map.getShort(at + 10)];
+            map.get(at + SLOT_HEADER + key.length, stored);
+            if (Arrays.equals(stored, value)) {
+                map.putLong(at, REMOVED);
+            }
+        } finally {
+            unlock(lock);
+        }
+    }
+
+    /**
+     * @return The number of slots, i.e. how many tokens the file can hold.
+     */
+    public int capacity() {
+        return slots;
+    }
+
+    /**
+     * Closes the file. Entries stay on disk for the next process.
+     */
+    @Override
+    public void close() throws IOException {
+        JVM_LOCK.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                channel.close();
+            }
+        } finally {
+            JVM_LOCK.unlock();
+        }
+    }
+
+    // --- Internals ---
+
+    /**
+     * Takes JVM_LOCK, then locks the whole file. Every lock must be given
+     * back with {@link #unlock}.
+     */
+    private FileLock lock(boolean shared) throws IOException {
+        JVM_LOCK.lock();
+        try {
+            if (closed) {
+                throw new IOException("Token cache is closed");
+            }
+            return channel.lock(0, Long.MAX_VALUE, shared);
+        } catch (IOException | RuntimeException e) {
+            JVM_LOCK.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases a lock from {@link #lock}, then JVM_LOCK.
+     */
+    private static void unlock(FileLock lock) throws IOException {
+        try {
+            lock.release();
+        } finally {
+            JVM_LOCK.unlock();
+        }
+    }
+
+    /**
+     * @return The slot holding this key, or -1.
+     */
+    private int find(long hash, byte[] key) {
+        int home = home(hash);
+        for (int probe = 0; probe < MAX_PROBES && probe < slots; probe++) {
+            int slot = (home + probe) % slots;
+            int at = offset(slot);
+            long stored = map.getLong(at);
+            if (stored == EMPTY) {
+                return -1;
+            }
+            if (stored == hash && map.getShort(at + 8) == key.length && keyMatches(at, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The first empty or removed slot on this hash's probe sequence,
+     *         or its first slot if there is none.
+     */
+    private int freeSlot(long hash) {
+        int home = home(hash);
+        for (int probe = 0; probe < MAX_PROBES && probe < slots; probe++) {
+            int slot = (home + probe) % slots;
+            long stored = map.getLong(offset(slot));
+            if (stored == EMPTY || stored == REMOVED) {
+                return slot;
+            }
+        }
+        return home;
+    }
+
+    private boolean keyMatches(int at, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (map.get(at + SLOT_HEADER + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int home(long hash) {
+        return (int) Long.remainderUnsigned(hash, slots);
+    }
+
+    private static int offset(int slot) {
+        return HEADER + slot * SLOT;
+    }
+
+    private static byte[] key(String baseUrl, String username) {
+        return (baseUrl + "\n" + username).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the key, moved off the two marker values.
+     */
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h = (h ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        return h == EMPTY || h == REMOVED ? 2 : h;
+    }
+}
@@ -0,0 +1,129 @@
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenCacheTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = Files.createTempFile("tokens", ".cache");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @Tag("unit")
+    public void testTokensAreKeyedByServerAndUserAndOutliveTheProcess() throws Exception {
+        try (TokenCache cache = TokenCache.open(file); TokenCache other = TokenCache.open(file)) {
+            assertNull(cache.get("http://a", "alice"));
+            cache.put("http://a", "alice", "t1");
+            cache.put("http://b", "alice", "t2");
+            assertEquals("t1", other.get("http://a", "alice"), "writes are visible through every mapping");
+            assertEquals("t2", other.get("http://b", "alice"));
+            assertNull(other.get("http://a", "bob"));
+
+            cache.put("http://a", "alice", "t3");
+            cache.remove("http://a", "alice", "t1");
+            assertEquals("t3", cache.get("http://a", "alice"), "a newer token is not removed");
+            cache.remove("http://a", "alice", "t3");
+            assertNull(cache.get("http://a", "alice"));
+            assertEquals("t2", cache.get("http://b", "alice"));
+        }
+        try (TokenCache reopened = TokenCache.open(file, 8)) {
+            assertEquals(TokenCache.DEFAULT_SLOTS, reopened.capacity(), "an existing file keeps its size");
+            assertEquals("t2", reopened.get("http://b", "alice"));
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testCollisionsProbeAndFullTablesOverwrite() throws Exception {
+        try (TokenCache cache = TokenCache.open(file, 4)) {
+            for (int i = 0; i < 4; i++) {
+                cache.put("http://a", "user" + i, "token" + i);
+            }
+            for (int i = 0; i < 4; i++) {
+                assertEquals("token" + i, cache.get("http://a", "user" + i));
+            }
+            cache.remove("http://a", "user1", "token1");
+            cache.put("http://a", "user4", "token4");
+            assertEquals("token4", cache.get("http://a", "user4"), "removed slots are reused");
+
+            cache.put("http://a", "user5", "token5");
+            assertEquals("token5", cache.get("http://a", "user5"));
+            int kept = 0;
+            for (int i = 0; i < 5; i++) {
+                kept += cache.get("http://a", "user" + i) != null ? 1 : 0;
+            }
+            assertEquals(3, kept, "one entry made room");
+
+            cache.put("http://a", "user6", "x".repeat(TokenCache.SLOT));
+            assertNull(cache.get("http://a", "user6"), "entries larger than a slot are not cached");
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testRejectsOtherFiles() throws Exception {
+        Files.writeString(file, "not a token cache");
+        assertThrows(IOException.class, () -> TokenCache.open(file));
+
+        Files.delete(file);
+        TokenCache closed = TokenCache.open(file);
+        closed.close();
+        assertThrows(IOException.class, () -> closed.get("http://a", "alice"));
+    }
+
+    @Test
+    @Tag("it")
+    public void testClientsResumeAndLogInAgainWhenRejectedAgainstLocalServer() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        String baseUrl = server.getBaseUrl();
+        try (TokenCache cache = TokenCache.open(file)) {
+            MidsQuest first = client(baseUrl, cache);
+            assertEquals(200, first.createUser("cached", "pw"));
+            assertEquals(200, first.resumeSession("cached", "pw"));
+            assertEquals(first.getToken(), cache.get(baseUrl, "cached"));
+
+            // A restarted client sends no /login
+            MidsQuest second = client(baseUrl, cache);
+            assertEquals(200, second.resumeSession("cached", "pw"));
+            assertEquals(200, second.look());
+            assertEquals(0, second.getMetrics().snapshot().endpoint("/login").requests());
+
+            // A token the server no longer knows is replaced on the first 401
+            cache.put(baseUrl, "cached", "expired-token");
+            MidsQuest third = client(baseUrl, cache);
+            assertEquals(200, third.resumeSession("cached", "pw"));
+            assertEquals(200, third.look());
+            assertEquals(200, third.moveAsync("north").get());
+            assertEquals(1, third.getMetrics().snapshot().endpoint("/login").requests());
+            assertNotEquals("expired-token", cache.get(baseUrl, "cached"));
+            assertEquals(third.getToken(), cache.get(baseUrl, "cached"));
+
+            // Fleets of handles reuse cached tokens too
+            SessionManager players = new SessionManager(baseUrl, HttpClientFactory.shared());
+            players.setTokenCache(cache);
+            assertEquals(200, players.register("cached", "pw").look());
+            assertEquals(0, players.getLogins());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static MidsQuest client(String baseUrl, TokenCache cache) {
+        MidsQuest client = new MidsQuest(baseUrl, HttpClientFactory.shared());
+        client.setOutputSink(OutputSink.none());
+        client.setTokenCache(cache);
+        return client;
+    }
+}
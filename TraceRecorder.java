@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records every call {@link MidsQuest} clients make into a binary trace
+ * file, for {@link TraceReplayer} to play back later.
+ *
+ * The file starts with the magic number "MQT1", followed by one record per
+ * call (big-endian):
+ *
+ *   int   session        the client that made the call, numbered from 0
+ *   byte  endpoint       MidsQuest.Endpoint ordinal
+ *   short status         the HTTP status, or 0 if no response arrived
+ *   long  start          nanoseconds from the start of the recording
+ *   int   latency        microseconds, for the whole call including retries
+ *   int   responseBytes  UTF-8 size of the response body
+ *   short argumentLength, then the argument in UTF-8
+ *
+ * The argument is the direction, action or item, or the username for /user
+ * and /login. Passwords are never written; the replayer supplies its own.
+ * A typical /move record is 30 bytes.
+ *
+ * Records are packed into a 64 KB direct buffer under a short lock and
+ * written to the FileChannel whenever it fills. A write failure stops the
+ * recording instead of failing game calls; it is thrown from
+ * {@link #flush()} and {@link #close()}.
+ *
+ * Usage:
+ *   try (TraceRecorder recorder = TraceRecorder.create(Path.of("play.trace"))) {
+ *       client.setTraceRecorder(recorder); // every client can share one recorder
+ *       ...
+ *   }
+ */
+public class TraceRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x4D515431; // "MQT1"
+    static final int RECORD_HEADER = 4 + 1 + 2 + 8 + 4 + 4 + 2;
+    static final int MAX_ARGUMENT = Short.MAX_VALUE;
+    // Always holds a whole record, so a drained buffer has room for any call
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long origin = System.nanoTime();
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    // --- Guarded by lock ---
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long records;
+    private IOException failure;
+    private boolean closed;
+
+    private TraceRecorder(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates (or replaces) a trace file and starts the recording clock.
+     *
+     * @throws IOException If the file cannot be created.
+     */
+    public static TraceRecorder create(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        TraceRecorder recorder = new TraceRecorder(channel);
+        recorder.buffer.putInt(MAGIC);
+        return recorder;
+    }
+
+    /**
+     * @return The number of calls recorded.
+     */
+    public long getRecords() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every buffered record to the file.
+     *
+     * @throws IOException If this or an earlier write failed.
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if (failure == null && !closed) {
+                drain();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes and closes the trace. Calls made afterwards are not recorded.
+     *
+     * @throws IOException If this or an earlier write failed.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (failure == null) {
+                drain();
+            }
+            closed = true;
+            channel.close();
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Used by MidsQuest's send path ---
+
+    /**
+     * @return A new session number, one per client.
+     */
+    int newSession() {
+        return sessions.getAndIncrement();
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param startNanos   System.nanoTime() when the call started.
+     * @param latencyNanos How long the call took.
+     */
+    void record(int session, MidsQuest.Endpoint endpoint, String argument, long startNanos, long latencyNanos,
+                int status, long responseBytes) {
+        byte[] arg = argument == null ? new byte[0] : argument.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(arg.length, MAX_ARGUMENT);
+        lock.lock();
+        try {
+            if (closed || failure != null) {
+                return;
+            }
+            if (buffer.remaining() < RECORD_HEADER + length) {
+                drain();
+            }
+            buffer.putInt(session)
+                    .put((byte) endpoint.ordinal())
+                    .putShort((short) status)
+                    .putLong(startNanos - origin)
+                    .putInt((int) Math.min(Integer.MAX_VALUE, latencyNanos / 1_000))
+                    .putInt((int) Math.min(Integer.MAX_VALUE, responseBytes))
+                    .putShort((short) length)
+                    .put(arg, 0, length);
+            records++;
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds lock. */
+    private void drain() throws IOException {
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            buffer.clear();
+        }
+    }
+}
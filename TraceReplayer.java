@@ -0,0 +1,334 @@
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back a trace written by {@link TraceRecorder} against any server.
+ *
+ * The trace file is memory-mapped and indexed once: a pass over the mapping
+ * collects where each session's records start, and nothing else is copied.
+ * Every recorded session is then replayed by its own {@link MidsQuest} client
+ * on a virtual thread, reading its records straight from the mapping and
+ * repeating each call in order. Pacing is either the original one (each call
+ * starts at the same offset from the start of the replay as it did in the
+ * recording) or as fast as the server answers.
+ *
+ * /user and /login are replayed with the recorded username and a password
+ * given to the replayer, since traces never hold passwords.
+ *
+ * The report compares, per endpoint, recorded and replayed latencies
+ * (p50 and p99) and counts calls whose status differs from the recording.
+ *
+ * Usage:
+ *   TraceReplayer replayer = TraceReplayer.open(Path.of("play.trace"));
+ *   TraceReplayer.Report report = replayer.replay("http://localhost:8000", httpClient,
+ *           "replay-pw", TraceReplayer.Pacing.MAX_SPEED);
+ *   System.out.print(report);
+ */
+public class TraceReplayer {
+
+    private static final MidsQuest.Endpoint[] ENDPOINTS = MidsQuest.Endpoint.values();
+
+    /**
+     * How fast to replay.
+     */
+    public enum Pacing {
+        /** Start each call at its recorded offset from the start of the trace. */
+        ORIGINAL,
+        /** Start each call as soon as the session's previous call has answered. */
+        MAX_SPEED
+    }
+
+    private final MappedByteBuffer trace;
+    private final int[][] sessionRecords;
+    private final int recordCount;
+    private final long firstStart;
+
+    private TraceReplayer(MappedByteBuffer trace, int[][] sessionRecords, int recordCount, long firstStart) {
+        this.trace = trace;
+        this.sessionRecords = sessionRecords;
+        this.recordCount = recordCount;
+        this.firstStart = firstStart;
+    }
+
+    /**
+     * Maps and indexes a trace. A record cut short at the end (e.g., by a crash
+     * while recording) ends the trace.
+     *
+     * @throws IOException If the file cannot be read, is not a trace, or is over 2 GB.
+     */
+    public static TraceReplayer open(Path file) throws IOException {
+        MappedByteBuffer trace;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Trace larger than 2 GB: " + file);
+            }
+            trace = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (trace.limit() < Integer.BYTES || trace.getInt(0) != TraceRecorder.MAGIC) {
+            throw new IOException("Not a trace: " + file);
+        }
+
+        // Pass 1: count records per session; pass 2: note where each one starts
+        int[] counts = new int[16];
+        // Sessions are numbered from 0 as clients join, so a real trace never
+        // has more of them than it could hold records
+        int maxSessions = trace.limit() / TraceRecorder.RECORD_HEADER;
+        int records = 0;
+        long firstStart = Long.MAX_VALUE;
+        int end = Integer.BYTES;
+        for (int at = end; (end = next(trace, at)) > 0; at = end) {
+            int session = trace.getInt(at);
+            if (session < 0 || session >= maxSessions || trace.get(at + 4) < 0 || trace.get(at + 4) >= ENDPOINTS.length) {
+                throw new IOException("Corrupt trace record at byte " + at + ": " + file);
+            }
+            if (session >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.min(maxSessions, Math.max(session + 1, counts.length * 2)));
+            }
+            counts[session]++;
+            records++;
+            firstStart = Math.min(firstStart, trace.getLong(at + 7));
+        }
+        int[][] sessionRecords = new int[counts.length][];
+        for (int session = 0; session < counts.length; session++) {
+            sessionRecords[session] = new int[counts[session]];
+            counts[session] = 0;
+        }
+        for (int at = Integer.BYTES; (end = next(trace, at)) > 0; at = end) {
+            int session = trace.getInt(at);
+            sessionRecords[session][counts[session]++] = at;
+        }
+        return new TraceReplayer(trace, sessionRecords, records, records == 0 ? 0 : firstStart);
+    }
+
+    /**
+     * @return The number of calls in the trace.
+     */
+    public int recordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return The number of sessions that made at least one call.
+     */
+    public int sessionCount() {
+        int sessions = 0;
+        for (int[] records : sessionRecords) {
+            if (records.length > 0) {
+                sessions++;
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Replays every session at once and waits for all of them to finish.
+     * Failed calls (e.g., an IOException) are counted and the session goes on.
+     *
+     * @param apiBaseUrl The server to replay against.
+     * @param httpClient The HttpClient shared by every replayed session.
+     * @param password   The password used for replayed /user and /login calls.
+     * @param pacing     Original pacing, or as fast as possible.
+     * @throws InterruptedException If interrupted while replaying.
+     */
+    public Report replay(String apiBaseUrl, HttpClient httpClient, String password, Pacing pacing)
+            throws InterruptedException {
+        Tally tally = new Tally();
+        ClientMetrics metrics = new ClientMetrics();
+        long replayStart = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int[] records : sessionRecords) {
+                if (records.length == 0) {
+                    continue;
+                }
+                MidsQuest client = new MidsQuest(apiBaseUrl, httpClient, metrics);
+                client.setOutputSink(OutputSink.none());
+                executor.submit(() -> {
+                    replaySession(client, records, password, pacing, replayStart, tally);
+                    return null;
+                });
+            }
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return tally.report(System.nanoTime() - replayStart);
+    }
+
+    // --- Internals ---
+
+    private void replaySession(MidsQuest client, int[] records, String password, Pacing pacing,
+                               long replayStart, Tally tally) throws InterruptedException {
+        for (int at : records) {
+            MidsQuest.Endpoint endpoint = ENDPOINTS[trace.get(at + 4)];
+            int recordedStatus = trace.getShort(at + 5) & 0xFFFF;
+            long recordedStart = trace.getLong(at + 7);
+            long recordedMicros = trace.getInt(at + 15) & 0xFFFFFFFFL;
+            byte[] raw = new byte[trace.getShort(at + 23) & 0xFFFF];
+            trace.get(at + TraceRecorder.RECORD_HEADER, raw);
+            String argument = new String(raw, StandardCharsets.UTF_8);
+
+            if (pacing == Pacing.ORIGINAL) {
+                long due = replayStart + (recordedStart - firstStart);
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(this, wait);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = switch (endpoint) {
+                    case USER -> client.createUser(argument, password);
+                    case LOGIN -> client.login(argument, password);
+                    case MOVE -> client.move(argument);
+                    case LOOK -> client.look();
+                    case DOING -> client.setDoing(argument);
+                    case USE -> client.useItem(argument);
+                };
+            } catch (IOException e) {
+                status = 0;
+            }
+            tally.record(endpoint, recordedMicros * 1_000, System.nanoTime() - start, recordedStatus, status);
+        }
+    }
+
+    /**
+     * @return The offset just past the record at the given offset, or -1 if
+     *         no complete record starts there.
+     */
+    private static int next(MappedByteBuffer trace, int at) {
+        if (at + TraceRecorder.RECORD_HEADER > trace.limit()) {
+            return -1;
+        }
+        int end = at + TraceRecorder.RECORD_HEADER + (trace.getShort(at + 23) & 0xFFFF);
+        return end <= trace.limit() ? end : -1;
+    }
+
+    /**
+     * Recorded and replayed latencies for every endpoint, shared by the
+     * replaying sessions.
+     */
+    private static final class Tally {
+        final LatencyHistogram[] recorded = new LatencyHistogram[ENDPOINTS.length];
+        final LatencyHistogram[] replayed = new LatencyHistogram[ENDPOINTS.length];
+        final LongAdder[] mismatches = new LongAdder[ENDPOINTS.length];
+        final LongAdder[] failures = new LongAdder[ENDPOINTS.length];
+
+        Tally() {
+            for (int i = 0; i < ENDPOINTS.length; i++) {
+                recorded[i] = new LatencyHistogram();
+                replayed[i] = new LatencyHistogram();
+                mismatches[i] = new LongAdder();
+                failures[i] = new LongAdder();
+            }
+        }
+
+        void record(MidsQuest.Endpoint endpoint, long recordedNanos, long replayedNanos,
+                    int recordedStatus, int replayedStatus) {
+            int i = endpoint.ordinal();
+            recorded[i].record(recordedNanos);
+            replayed[i].record(replayedNanos);
+            if (replayedStatus != recordedStatus) {
+                mismatches[i].increment();
+            }
+            if (replayedStatus == 0) {
+                failures[i].increment();
+            }
+        }
+
+        Report report(long elapsedNanos) {
+            List<EndpointReport> endpoints = new ArrayList<>();
+            for (MidsQuest.Endpoint endpoint : ENDPOINTS) {
+                int i = endpoint.ordinal();
+                if (replayed[i].count() == 0) {
+                    continue;
+                }
+                endpoints.add(new EndpointReport(endpoint.path(), replayed[i].count(),
+                        recorded[i].percentile(50), replayed[i].percentile(50),
+                        recorded[i].percentile(99), replayed[i].percentile(99),
+                        mismatches[i].sum(), failures[i].sum()));
+            }
+            return new Report(elapsedNanos, List.copyOf(endpoints));
+        }
+    }
+
+    /**
+     * How one endpoint's calls compared with the recording. Latencies are in
+     * nanoseconds.
+     *
+     * @param statusMismatches Calls answered with a different status than recorded.
+     * @param failures         Calls that got no response at all.
+     */
+    public record EndpointReport(String endpoint, long calls, long recordedP50, long replayedP50,
+                                 long recordedP99, long replayedP99, long statusMismatches, long failures) {
+
+        /**
+         * @return How much slower (positive) or faster the replay's median was.
+         */
+        public long p50Difference() {
+            return replayedP50 - recordedP50;
+        }
+
+        /**
+         * @return How much slower (positive) or faster the replay's p99 was.
+         */
+        public long p99Difference() {
+            return replayedP99 - recordedP99;
+        }
+    }
+
+    /**
+     * The outcome of a replay.
+     */
+    public record Report(long elapsedNanos, List<EndpointReport> endpoints) {
+
+        public long calls() {
+            long calls = 0;
+            for (EndpointReport endpoint : endpoints) {
+                calls += endpoint.calls();
+            }
+            return calls;
+        }
+
+        public EndpointReport endpoint(String path) {
+            for (EndpointReport endpoint : endpoints) {
+                if (endpoint.endpoint().equals(path)) {
+                    return endpoint;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return A plain-text table of the replay, one line per endpoint.
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%-8s %8s %10s %10s %10s %10s %10s %10s %10s%n", "endpoint", "calls",
+                    "rec p50", "p50 ms", "diff", "rec p99", "p99 ms", "diff", "mismatch"));
+            for (EndpointReport e : endpoints) {
+                out.append(String.format("%-8s %8d %10.3f %10.3f %+10.3f %10.3f %10.3f %+10.3f %10d%n",
+                        e.endpoint(), e.calls(), e.recordedP50() / 1e6, e.replayedP50() / 1e6, e.p50Difference() / 1e6,
+                        e.recordedP99() / 1e6, e.replayedP99() / 1e6, e.p99Difference() / 1e6, e.statusMismatches()));
+            }
+            out.append(String.format("total    %8d calls in %.3f s%n", calls(), elapsedNanos / 1e9));
+            return out.toString();
+        }
+    }
+}
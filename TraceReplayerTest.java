@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.*;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceReplayerTest {
+
+    private Path trace;
+    private HttpClient httpClient;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        trace = Files.createTempFile("play", ".trace");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(trace);
+    }
+
+    @Test
+    @Tag("it")
+    public void testRecordedSessionsReplayAgainstAnotherServer() throws Exception {
+        ServerModel recordedServer = new ServerModel();
+        recordedServer.start(0);
+        try (TraceRecorder recorder = TraceRecorder.create(trace)) {
+            for (String name : new String[]{"alice", "bob"}) {
+                MidsQuest client = new MidsQuest(recordedServer.getBaseUrl(), httpClient);
+                client.setOutputSink(OutputSink.none());
+                client.setTraceRecorder(recorder);
+                assertEquals(200, client.createUser(name, "secret-pw"));
+                assertEquals(200, client.login(name, "secret-pw"));
+                assertEquals(200, client.move("north"));
+                assertEquals(200, client.lookAsync().join());
+                assertEquals(200, client.setDoing("reading a book"));
+                assertEquals(400, client.move("up"));
+            }
+            assertEquals(12, recorder.getRecords());
+        } finally {
+            recordedServer.stop();
+        }
+        String raw = new String(Files.readAllBytes(trace), StandardCharsets.ISO_8859_1);
+        assertFalse(raw.contains("secret-pw"), "passwords are never recorded");
+        assertTrue(raw.contains("reading a book"));
+
+        TraceReplayer replayer = TraceReplayer.open(trace);
+        assertEquals(12, replayer.recordCount());
+        assertEquals(2, replayer.sessionCount());
+
+        ServerModel replayServer = new ServerModel();
+        replayServer.start(0);
+        try {
+            TraceReplayer.Report report = replayer.replay(replayServer.getBaseUrl(), httpClient, "other-pw",
+                    TraceReplayer.Pacing.MAX_SPEED);
+            assertEquals(12, report.calls());
+            assertEquals(4, report.endpoint("/move").calls());
+            for (TraceReplayer.EndpointReport endpoint : report.endpoints()) {
+                assertEquals(0, endpoint.statusMismatches(), report.toString());
+                assertEquals(0, endpoint.failures(), report.toString());
+            }
+            assertTrue(report.toString().startsWith("endpoint"));
+        } finally {
+            replayServer.stop();
+        }
+    }
+
+    @Test
+    @Tag("unit")
+    public void testOriginalPacingKeepsRecordedGaps() throws Exception {
+        try (TraceRecorder recorder = TraceRecorder.create(trace)) {
+            long start = System.nanoTime();
+            recorder.record(recorder.newSession(), MidsQuest.Endpoint.LOOK, null, start, 1_000_000, 401, 20);
+            recorder.record(0, MidsQuest.Endpoint.LOOK, null, start + 150_000_000L, 1_000_000, 401, 20);
+        }
+        TraceReplayer replayer = TraceReplayer.open(trace);
+
+        // Nothing listens on port 1, so every call fails fast
+        long began = System.nanoTime();
+        TraceReplayer.Report paced = replayer.replay("http://localhost:1", httpClient, "pw",
+                TraceReplayer.Pacing.ORIGINAL);
+        assertTrue(System.nanoTime() - began >= 150_000_000L, "second call waits for its recorded offset");
+        assertEquals(2, paced.endpoint("/look").calls());
+        assertEquals(2, paced.endpoint("/look").statusMismatches(), "not logged in, so 0 instead of 401");
+    }
+
+    @Test
+    @Tag("unit")
+    public void testTruncatedTailIsIgnoredAndGarbageRejected() throws Exception {
+        try (TraceRecorder recorder = TraceRecorder.create(trace)) {
+            int session = recorder.newSession();
+            recorder.record(session, MidsQuest.Endpoint.MOVE, "north", System.nanoTime(), 1_000, 200, 30);
+            recorder.record(session, MidsQuest.Endpoint.MOVE, "south", System.nanoTime(), 1_000, 200, 30);
+        }
+        byte[] bytes = Files.readAllBytes(trace);
+        Files.write(trace, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+        assertEquals(1, TraceReplayer.open(trace).recordCount());
+
+        // A session number no trace this size could have is not allocated for
+        java.nio.ByteBuffer.wrap(bytes).putInt(Integer.BYTES, Integer.MAX_VALUE - 1);
+        Files.write(trace, bytes);
+        java.io.IOException corrupt = assertThrows(java.io.IOException.class, () -> TraceReplayer.open(trace));
+        assertTrue(corrupt.getMessage().startsWith("Corrupt trace record"), corrupt.getMessage());
+
+        Files.write(trace, "not a trace".getBytes(StandardCharsets.UTF_8));
+        assertThrows(java.io.IOException.class, () -> TraceReplayer.open(trace));
+    }
+}
@@ -0,0 +1,128 @@
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * HTTP transport settings for {@link MidsQuest} clients, turned into an
+ * HttpClient by {@link HttpClientFactory}.
+ *
+ * - Version: HTTP/1.1 (the default) or HTTP/2. With HTTP/2 many requests
+ *   share one connection as concurrent streams instead of each waiting for a
+ *   connection of its own; how many streams may be open at once is set by
+ *   the server. Over plain http:// the client offers an h2c upgrade on its
+ *   first request and stays on HTTP/1.1 if the server declines, as the
+ *   embedded {@link ServerModel} (the JDK HttpServer) always does.
+ * - Pool size: the most idle HTTP/1.1 connections kept for reuse (0 keeps
+ *   every one). Bots beyond this many open a fresh connection per request.
+ * - Keep-alive: how long an idle connection is kept before it is closed.
+ * - Executor: runs the client's response handling and async callbacks.
+ *
+ * Pool size and keep-alive are JVM-wide in the JDK client and are read once,
+ * when the first HttpClient is built; see {@link HttpClientFactory}. The
+ * version can also be picked without code changes with -Dmidsquest.http2=true.
+ *
+ * Usage:
+ *   TransportConfig config = new TransportConfig()
+ *           .version(HttpClient.Version.HTTP_2)
+ *           .poolSize(256)
+ *           .keepAlive(Duration.ofMinutes(2))
+ *           .executor(Executors.newVirtualThreadPerTaskExecutor());
+ *   HttpClient httpClient = HttpClientFactory.create(config);
+ */
+public class TransportConfig {
+
+    private HttpClient.Version version = Boolean.getBoolean("midsquest.http2")
+            ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private int poolSize;
+    private Duration keepAlive;
+    private Executor executor;
+
+    /**
+     * Sets the HTTP version to use.
+     */
+    public TransportConfig version(HttpClient.Version version) {
+        if (version == null) {
+            throw new IllegalArgumentException("version must not be null");
+        }
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for a connection to be established.
+     */
+    public TransportConfig connectTimeout(Duration connectTimeout) {
+        if (connectTimeout.isNegative() || connectTimeout.isZero()) {
+            throw new IllegalArgumentException("connectTimeout must be positive: " + connectTimeout);
+        }
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the most idle connections kept for reuse.
+     *
+     * @param poolSize The pool size, or 0 (the default) to keep every connection.
+     */
+    public TransportConfig poolSize(int poolSize) {
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("poolSize must not be negative: " + poolSize);
+        }
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    /**
+     * Sets how long an idle connection is kept open. Whole seconds only; the
+     * JDK default (30 s) is used if this is never called.
+     */
+    public TransportConfig keepAlive(Duration keepAlive) {
+        if (keepAlive.toSeconds() <= 0) {
+            throw new IllegalArgumentException("keepAlive must be at least one second: " + keepAlive);
+        }
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * Sets the executor for response handling and async callbacks, or null
+     * for the JDK's default thread pool.
+     */
+    public TransportConfig executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public HttpClient.Version getVersion() {
+        return version;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @return The keep-alive, or null for the JDK default.
+     */
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return The executor, or null for the JDK default.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public String toString() {
+        return version + " (pool " + (poolSize == 0 ? "unbounded" : poolSize)
+                + ", keep-alive " + (keepAlive == null ? "default" : keepAlive.toSeconds() + " s") + ")";
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransportConfigTest {
+
+    @Test
+    @Tag("unit")
+    public void testBuildsClientFromConfig() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            TransportConfig config = new TransportConfig()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofSeconds(3))
+                    .executor(executor);
+            HttpClient httpClient = HttpClientFactory.create(config);
+
+            assertEquals(HttpClient.Version.HTTP_2, httpClient.version());
+            assertEquals(Duration.ofSeconds(3), httpClient.connectTimeout().orElseThrow());
+            assertSame(executor, httpClient.executor().orElseThrow());
+        }
+        assertSame(HttpClientFactory.shared(), HttpClientFactory.shared(), "one shared client per JVM");
+    }
+
+    @Test
+    @Tag("unit")
+    public void testRejectsBadSettings() {
+        TransportConfig config = new TransportConfig();
+        assertThrows(IllegalArgumentException.class, () -> config.poolSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> config.keepAlive(Duration.ofMillis(500)));
+        assertThrows(IllegalArgumentException.class, () -> config.connectTimeout(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> config.version(null));
+        assertEquals(0, config.getPoolSize(), "rejected settings leave the config unchanged");
+    }
+
+    @Test
+    @Tag("it")
+    public void testHttp2FallsBackToHttp11AgainstLocalServer() throws Exception {
+        ServerModel server = new ServerModel();
+        server.start(0);
+        try {
+            HttpClient httpClient = HttpClientFactory.create(new TransportConfig().version(HttpClient.Version.HTTP_2));
+            MidsQuest client = new MidsQuest(server.getBaseUrl(), httpClient);
+            client.setOutputSink(OutputSink.none());
+            assertEquals(200, client.createUser("h2", "pw"));
+            assertEquals(200, client.login("h2", "pw"));
+
+            // Concurrent requests on the HTTP/2 client all succeed over HTTP/1.1
+            List<CompletableFuture<Integer>> looks = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                looks.add(client.lookAsync());
+            }
+            for (CompletableFuture<Integer> look : looks) {
+                assertEquals(200, look.get());
+            }
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(server.getBaseUrl() + "/look"))
+                    .header("session-token", client.getToken()).GET().build(), HttpResponse.BodyHandlers.discarding());
+            assertEquals(HttpClient.Version.HTTP_1_1, response.version(), "the JDK server declines h2c");
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * The in-memory game world behind {@link ServerModel}.
+ *
+ * Rooms and players are identified by int indexes and all state lives in flat
+ * arrays: exits are an int adjacency table (room * 6 + direction), each
+ * player's room is an int, and each room's occupants are an intrusive doubly
+ * linked list threaded through per-player next/prev arrays, so moving a player
+ * never allocates.
+ *
+ * Occupant lists are guarded by a fixed set of striped locks (room index mod
+ * stripe count). A move locks only the stripes of the two rooms involved, in
+ * index order, so concurrent moves between unrelated rooms do not contend.
+ */
+public class WorldEngine {
+
+    /**
+     * The directions a room can have exits in, by index.
+     */
+    public static final String[] DIRECTIONS = {"north", "south", "east", "west", "up", "down"};
+
+    private static final int NO_EXIT = -1;
+    private static final int NONE = -1;
+
+    // --- Rooms (immutable after construction) ---
+    private final int roomCount;
+    private final String[] roomNames;
+    private final String[][] roomItems;
+    private final int[] exits;
+    private final String[] lookPrefixes;
+
+    // --- Players ---
+    private final int capacity;
+    private final AtomicInteger playerCount = new AtomicInteger();
+    private final String[] playerNames;
+    private final AtomicReferenceArray<String> playerDoing;
+    private final int[] playerRoom;
+    private final int[] nextInRoom;
+    private final int[] prevInRoom;
+    private final int[] roomHead;
+
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Constructs a world from room definitions. Player 0 and everyone after
+     * spawn in room 0.
+     *
+     * @param names        Room names, indexed by room id.
+     * @param descriptions Room descriptions, indexed by room id.
+     * @param items        The items in each room, indexed by room id.
+     * @param exits        The exit table: exits[room * 6 + direction] is the
+     *                     destination room, or -1 for no exit.
+     * @param capacity     The maximum number of players.
+     */
+    public WorldEngine(String[] names, String[] descriptions, String[][] items, int[] exits, int capacity) {
+        if (names.length == 0 || descriptions.length != names.length || items.length != names.length
+                || exits.length != names.length * DIRECTIONS.length) {
+            throw new IllegalArgumentException("Room tables must all describe the same rooms");
+        }
+        this.roomCount = names.length;
+        this.roomNames = names.clone();
+        this.roomItems = items.clone();
+        this.exits = exits.clone();
+        for (int exit : this.exits) {
+            if (exit < NO_EXIT || exit >= roomCount) {
+                throw new IllegalArgumentException("Exit to unknown room " + exit);
+            }
+        }
+        this.lookPrefixes = new String[roomCount];
+        for (int room = 0; room < roomCount; room++) {
+            lookPrefixes[room] = lookPrefix(room, descriptions[room]);
+        }
+
+        this.capacity = capacity;
+        this.playerNames = new String[capacity];
+        this.playerDoing = new AtomicReferenceArray<>(capacity);
+        this.playerRoom = new int[capacity];
+        this.nextInRoom = new int[capacity];
+        this.prevInRoom = new int[capacity];
+        this.roomHead = new int[roomCount];
+        Arrays.fill(roomHead, NONE);
+
+        int stripeCount = Integer.highestOneBit(Math.max(16, Runtime.getRuntime().availableProcessors() * 8) - 1) << 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * @return The small four-room world the embedded server starts with.
+     */
+    public static WorldEngine standard(int capacity) {
+        String[] names = {"Great Hall", "Library", "Armory", "Tower"};
+        String[] descriptions = {
+                "A vaulted hall lit by flickering torches.",
+                "Shelves of dusty books line the walls.",
+                "Racks of old weapons and dented shields.",
+                "A windy lookout over the whole campus."};
+        String[][] items = {{"torch"}, {"book"}, {"shield"}, {"telescope"}};
+        int[] exits = new int[names.length * DIRECTIONS.length];
+        Arrays.fill(exits, NO_EXIT);
+        link(exits, 0, "north", 1, "south");
+        link(exits, 0, "east", 2, "west");
+        link(exits, 1, "east", 3, "west");
+        link(exits, 2, "north", 3, "south");
+        return new WorldEngine(names, descriptions, items, exits, capacity);
+    }
+
+    /**
+     * Builds a width x height grid of rooms connected north/south/east/west,
+     * for load tests and benchmarks. Room (x, y) has id y * width + x.
+     */
+    public static WorldEngine grid(int width, int height, int capacity) {
+        int rooms = width * height;
+        String[] names = new String[rooms];
+        String[] descriptions = new String[rooms];
+        String[][] items = new String[rooms][];
+        int[] exits = new int[rooms * DIRECTIONS.length];
+        Arrays.fill(exits, NO_EXIT);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int room = y * width + x;
+                names[room] = "Room " + x + "," + y;
+                descriptions[room] = "A plain room at " + x + "," + y + ".";
+                items[room] = new String[]{"torch"};
+                if (y + 1 < height) {
+                    link(exits, room, "north", room + width, "south");
+                }
+                if (x + 1 < width) {
+                    link(exits, room, "east", room + 1, "west");
+                }
+            }
+        }
+        return new WorldEngine(names, descriptions, items, exits, capacity);
+    }
+
+    private static void link(int[] exits, int from, String direction, int to, String back) {
+        exits[from * DIRECTIONS.length + directionIndex(direction)] = to;
+        exits[to * DIRECTIONS.length + directionIndex(back)] = from;
+    }
+
+    /**
+     * @return The index of a direction in {@link #DIRECTIONS}, or -1.
+     */
+    public static int directionIndex(String direction) {
+        if (direction == null) {
+            return -1;
+        }
+        return switch (direction) {
+            case "north" -> 0;
+            case "south" -> 1;
+            case "east" -> 2;
+            case "west" -> 3;
+            case "up" -> 4;
+            case "down" -> 5;
+            default -> -1;
+        };
+    }
+
+    // --- Players ---
+
+    /**
+     * Adds a player in room 0.
+     *
+     * @return The new player's id.
+     * @throws IllegalStateException if the world is full.
+     */
+    public int addPlayer(String username) {
+        int player = playerCount.getAndIncrement();
+        if (player >= capacity) {
+            playerCount.decrementAndGet();
+            throw new IllegalStateException("World is full (" + capacity + " players)");
+        }
+        playerNames[player] = username;
+        playerDoing.set(player, "");
+        ReentrantLock lock = stripeOf(0);
+        lock.lock();
+        try {
+            playerRoom[player] = 0;
+            linkIntoRoom(player, 0);
+        } finally {
+            lock.unlock();
+        }
+        return player;
+    }
+
+    /**
+     * @return The number of players added so far.
+     */
+    public int playerCount() {
+        return Math.min(playerCount.get(), capacity);
+    }
+
+    /**
+     * Moves a player through an exit of their current room.
+     *
+     * @return The room moved into, or -1 if there is no exit that way.
+     */
+    public int move(int player, String direction) {
+        return move(player, direction, null);
+    }
+
+    /**
+     * Moves a player through an exit and, while the stripe locks are still
+     * held, tells the caller which room they moved into. Changes to one
+     * player are serialized by those locks, so a caller that journals them
+     * there journals them in the order they were applied.
+     *
+     * @param onMoved Called with the new room under the lock, or null.
+     * @return The room moved into, or -1 if there is no exit that way.
+     */
+    public int move(int player, String direction, IntConsumer onMoved) {
+        int dir = directionIndex(direction);
+        if (dir < 0) {
+            return NO_EXIT;
+        }
+        checkPlayer(player);
+        while (true) {
+            // Only written under the stripe locks; a stale read is caught by the re-check in relocate
+            int from = playerRoom[player];
+            int to = exits[from * DIRECTIONS.length + dir];
+            if (to == NO_EXIT) {
+                return NO_EXIT;
+            }
+            if (relocate(player, from, to, onMoved)) {
+                return to;
+            }
+        }
+    }
+
+    /**
+     * Puts a player straight into a room, ignoring exits. Used when
+     * restoring saved state.
+     */
+    public void place(int player, int room) {
+        checkPlayer(player);
+        if (room < 0 || room >= roomCount) {
+            throw new IllegalArgumentException("Unknown room " + room);
+        }
+        int from;
+        do {
+            from = playerRoom[player];
+        } while (from != room && !relocate(player, from, room, null));
+    }
+
+    /**
+     * @return The room a player is currently in.
+     */
+    public int roomOf(int player) {
+        checkPlayer(player);
+        while (true) {
+            int room = playerRoom[player];
+            ReentrantLock lock = stripeOf(room);
+            lock.lock();
+            try {
+                if (playerRoom[player] == room) {
+                    return room;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void setDoing(int player, String action) {
+        checkPlayer(player);
+        playerDoing.set(player, action);
+    }
+
+    /**
+     * Sets what a player is doing under the stripe lock of their room, the
+     * one their moves also take, and calls onSet before releasing it. See
+     * {@link #move(int, String, IntConsumer)}.
+     */
+    public void setDoing(int player, String action, Runnable onSet) {
+        checkPlayer(player);
+        while (true) {
+            int room = playerRoom[player];
+            ReentrantLock lock = stripeOf(room);
+            lock.lock();
+            try {
+                if (playerRoom[player] != room) {
+                    continue;
+                }
+                playerDoing.set(player, action);
+                onSet.run();
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public String getDoing(int player) {
+        checkPlayer(player);
+        return playerDoing.get(player);
+    }
+
+    public String getUsername(int player) {
+        checkPlayer(player);
+        return playerNames[player];
+    }
+
+    /**
+     * @return Whether the item is in the player's current room.
+     */
+    public boolean hasItem(int player, String item) {
+        for (String here : roomItems[roomOf(player)]) {
+            if (here.equals(item)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- Rooms ---
+
+    public int roomCount() {
+        return roomCount;
+    }
+
+    public String roomName(int room) {
+        return roomNames[room];
+    }
+
+    /**
+     * @return The room an exit leads to, or -1.
+     */
+    public int exit(int room, int direction) {
+        return exits[room * DIRECTIONS.length + direction];
+    }
+
+    /**
+     * @return The ids of the players in a room, in no particular order.
+     */
+    public int[] occupants(int room) {
+        ReentrantLock lock = stripeOf(room);
+        lock.lock();
+        try {
+            int count = 0;
+            for (int p = roomHead[room]; p != NONE; p = nextInRoom[p]) {
+                count++;
+            }
+            int[] result = new int[count];
+            int i = 0;
+            for (int p = roomHead[room]; p != NONE; p = nextInRoom[p]) {
+                result[i++] = p;
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builds the /look JSON for a player's current room: name, description,
+     * exits, items and the players present with what they are doing.
+     */
+    public String look(int player) {
+        checkPlayer(player);
+        while (true) {
+            int room = playerRoom[player];
+            StringBuilder json = new StringBuilder(256).append(lookPrefixes[room]);
+            ReentrantLock lock = stripeOf(room);
+            lock.lock();
+            try {
+                if (playerRoom[player] != room) {
+                    continue;
+                }
+                boolean first = true;
+                for (int p = roomHead[room]; p != NONE; p = nextInRoom[p]) {
+                    if (!first) {
+                        json.append(", ");
+                    }
+                    first = false;
+                    json.append("{\"username\": \"").append(MidsQuest.escapeJsonString(playerNames[p]))
+                            .append("\", \"doing\": \"").append(MidsQuest.escapeJsonString(playerDoing.get(p)))
+                            .append("\"}");
+                }
+            } finally {
+                lock.unlock();
+            }
+            return json.append("]}").toString();
+        }
+    }
+
+    // --- Internals ---
+
+    /**
+     * Moves a player between two rooms if they are still in the first, then
+     * calls onMoved (if any) with both locks held.
+     *
+     * @return False if another thread moved them first.
+     */
+    private boolean relocate(int player, int from, int to, IntConsumer onMoved) {
+        // Lock both rooms' stripes in a fixed order to avoid deadlock
+        ReentrantLock first = stripeOf(Math.min(from, to));
+        ReentrantLock second = stripeOf(Math.max(from, to));
+        first.lock();
+        if (second != first) {
+            second.lock();
+        }
+        try {
+            if (playerRoom[player] != from) {
+                return false;
+            }
+            unlinkFromRoom(player, from);
+            playerRoom[player] = to;
+            linkIntoRoom(player, to);
+            if (onMoved != null) {
+                onMoved.accept(to);
+            }
+            return true;
+        } finally {
+            if (second != first) {
+                second.unlock();
+            }
+            first.unlock();
+        }
+    }
+
+    private ReentrantLock stripeOf(int room) {
+        return stripes[room & stripeMask];
+    }
+
+    private void checkPlayer(int player) {
+        if (player < 0 || player >= playerCount()) {
+            throw new IllegalArgumentException("Unknown player " + player);
+        }
+    }
+
+    /** Caller holds the room's stripe lock. */
+    private void linkIntoRoom(int player, int room) {
+        int head = roomHead[room];
+        nextInRoom[player] = head;
+        prevInRoom[player] = NONE;
+        if (head != NONE) {
+            prevInRoom[head] = player;
+        }
+        roomHead[room] = player;
+    }
+
+    /** Caller holds the room's stripe lock. */
+    private void unlinkFromRoom(int player, int room) {
+        int prev = prevInRoom[player];
+        int next = nextInRoom[player];
+        if (prev != NONE) {
+            nextInRoom[prev] = next;
+        } else {
+            roomHead[room] = next;
+        }
+        if (next != NONE) {
+            prevInRoom[next] = prev;
+        }
+    }
+
+    private String lookPrefix(int room, String description) {
+        List<String> exitNames = new ArrayList<>();
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            if (exits[room * DIRECTIONS.length + dir] != NO_EXIT) {
+                exitNames.add(DIRECTIONS[dir]);
+            }
+        }
+        StringBuilder json = new StringBuilder(128)
+                .append("{\"room\": \"").append(MidsQuest.escapeJsonString(roomNames[room]))
+                .append("\", \"description\": \"").append(MidsQuest.escapeJsonString(description))
+                .append("\", \"exits\": ");
+        appendStrings(json, exitNames);
+        json.append(", \"items\": ");
+        appendStrings(json, List.of(roomItems[room]));
+        return json.append(", \"players\": [").toString();
+    }
+
+    private static void appendStrings(StringBuilder json, List<String> values) {
+        json.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append('"').append(MidsQuest.escapeJsonString(values.get(i))).append('"');
+        }
+        json.append(']');
+    }
+}
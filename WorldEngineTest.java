@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class WorldEngineTest {
+
+    @Test
+    @Tag("unit")
+    public void testChangeCallbacksRunBeforeTheNextChangeToThePlayer() throws Exception {
+        WorldEngine world = WorldEngine.standard(8);
+        int alice = world.addPlayer("alice");
+        CountDownLatch inCallback = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch doingSet = new CountDownLatch(1);
+
+        Thread mover = Thread.ofVirtual().start(() -> world.move(alice, "north", room -> {
+            inCallback.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(inCallback.await(5, TimeUnit.SECONDS));
+        Thread.ofVirtual().start(() -> world.setDoing(alice, "reading", doingSet::countDown));
+        assertFalse(doingSet.await(100, TimeUnit.MILLISECONDS), "the next change waits for the callback");
+
+        release.countDown();
+        assertTrue(doingSet.await(5, TimeUnit.SECONDS));
+        mover.join();
+        assertEquals("reading", world.getDoing(alice));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testMovesFollowExits() {
+        WorldEngine world = WorldEngine.standard(8);
+        int alice = world.addPlayer("alice");
+        assertEquals(0, world.roomOf(alice));
+
+        assertEquals(-1, world.move(alice, "west"));
+        assertEquals(-1, world.move(alice, "sideways"));
+        assertEquals(0, world.roomOf(alice));
+
+        int library = world.move(alice, "north");
+        assertEquals("Library", world.roomName(library));
+        assertEquals(library, world.roomOf(alice));
+        assertTrue(world.hasItem(alice, "book"));
+        assertFalse(world.hasItem(alice, "torch"));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testOccupantsAndLook() {
+        WorldEngine world = WorldEngine.standard(8);
+        int alice = world.addPlayer("alice");
+        int bob = world.addPlayer("bob");
+        world.setDoing(bob, "resting");
+
+        assertArrayEquals(new int[]{alice, bob}, sorted(world.occupants(0)));
+        String look = world.look(alice);
+        assertEquals("Great Hall", JsonReader.extract(look, "room"));
+        assertTrue(look.contains("{\"username\": \"bob\", \"doing\": \"resting\"}"), look);
+
+        world.move(bob, "east");
+        assertArrayEquals(new int[]{alice}, world.occupants(0));
+        assertArrayEquals(new int[]{bob}, world.occupants(2));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testFullWorldRejectsPlayers() {
+        WorldEngine world = WorldEngine.standard(1);
+        world.addPlayer("alice");
+        assertThrows(IllegalStateException.class, () -> world.addPlayer("bob"));
+    }
+
+    @Test
+    @Tag("unit")
+    public void testConcurrentMovesKeepRoomsConsistent() throws InterruptedException {
+        int players = 64;
+        WorldEngine world = WorldEngine.grid(4, 4, players);
+        for (int i = 0; i < players; i++) {
+            world.addPlayer("p" + i);
+        }
+
+        CountDownLatch done = new CountDownLatch(8);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int first = t * (players / 8);
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    int player = first + random.nextInt(players / 8);
+                    world.move(player, WorldEngine.DIRECTIONS[random.nextInt(4)]);
+                }
+                done.countDown();
+            }));
+        }
+        done.await();
+
+        // Every player is listed exactly once, in the room they think they are in
+        int listed = 0;
+        for (int room = 0; room < world.roomCount(); room++) {
+            for (int player : world.occupants(room)) {
+                assertEquals(room, world.roomOf(player));
+                listed++;
+            }
+        }
+        assertEquals(players, listed);
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
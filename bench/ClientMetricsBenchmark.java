@@ -0,0 +1,46 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static bench.Targets.*;
+
+/**
+ * Measures the cost ClientMetrics adds to every request, single-threaded and
+ * with several threads recording into one shared instance (as a load test does).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientMetricsBenchmark {
+
+    private static final Class<?> ENDPOINT = type("MidsQuest$Endpoint");
+    private static final Object LOOK = enumConstant("MidsQuest$Endpoint", "LOOK");
+    private static final MethodHandle RECORD = instanceMethod("ClientMetrics", "record",
+            ENDPOINT, long.class, int.class, long.class, long.class);
+
+    private Object metrics;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        metrics = type("ClientMetrics").getConstructor().newInstance();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordSingleThread() throws Throwable {
+        RECORD.invokeExact(metrics, LOOK, ThreadLocalRandom.current().nextLong(100_000, 5_000_000), 200, 0L, 512L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordFourThreads() throws Throwable {
+        RECORD.invokeExact(metrics, LOOK, ThreadLocalRandom.current().nextLong(100_000, 5_000_000), 200, 0L, 512L);
+    }
+}
@@ -0,0 +1,224 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static bench.Targets.*;
+
+/**
+ * JMH benchmarks for the per-request CPU and allocation cost of MidsQuest:
+ * JSON escaping, body building, response reading and parsing, and
+ * HttpRequest construction.
+ *
+ * Run with ./run-benchmarks.sh, which adds the gc profiler so every result
+ * also reports bytes allocated per operation (gc.alloc.rate.norm).
+ *
+ * JMH refuses benchmark classes in the default package, where the client
+ * lives, so the methods under test are reached through {@link Targets}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MidsQuestBenchmark {
+
+    static final String LOOK_RESPONSE = "{\"room\": \"Great Hall\", "
+            + "\"description\": \"A vaulted hall lit by \\\"flickering\\\" torches. Banners hang from the rafters.\", "
+            + "\"exits\": [\"north\", \"east\", \"west\"], "
+            + "\"items\": [\"torch\", \"rusty key\"], "
+            + "\"players\": [{\"username\": \"player_1\", \"doing\": \"resting\"}, "
+            + "{\"username\": \"player_2\", \"doing\": \"reading a book\"}]}";
+
+    static final String LOGIN_RESPONSE = "{\"session_token\": \"Zm9vYmFyYmF6cXV4cXV1eGNvcmdl\"}";
+
+    private static final MethodHandle ESCAPE = staticMethod("MidsQuest", "escapeJsonString", String.class);
+    private static final MethodHandle USER_BODY = staticMethod("MidsQuest", "userBody", String.class, String.class);
+    private static final MethodHandle MOVE_BODY = staticMethod("MidsQuest", "moveBody", String.class);
+    private static final MethodHandle DOING_BODY = staticMethod("MidsQuest", "doingBody", String.class);
+    private static final MethodHandle USE_BODY = staticMethod("MidsQuest", "useBody", String.class);
+    private static final MethodHandle PARSE = staticMethod("MidsQuest", "parseSimpleJsonValue", String.class, String.class);
+    private static final Class<?> ENDPOINT = type("MidsQuest$Endpoint");
+    private static final Object MOVE = enumConstant("MidsQuest$Endpoint", "MOVE");
+    private static final Object LOOK = enumConstant("MidsQuest$Endpoint", "LOOK");
+    private static final MethodHandle BUILD_POST = instanceMethod("MidsQuest", "buildPostRequest",
+            ENDPOINT, String.class);
+    private static final MethodHandle BUILD_GET = instanceMethod("MidsQuest", "buildGetRequest", ENDPOINT);
+    private static final MethodHandle MOVE_REQUEST = instanceMethod("MidsQuest", "moveRequest", String.class);
+    private static final MethodHandle LOOK_REQUEST = instanceMethod("MidsQuest", "lookRequest");
+
+    private static final MethodHandle FIELDS_FROM_STRING = instanceMethod("JsonReader$Fields", "from", String.class);
+    private static final MethodHandle FIELDS_FROM_BYTES = instanceMethod("JsonReader$Fields", "from", byte[].class);
+
+    private static final Flow.Subscription UNBOUNDED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private Object client;
+    private Object lookFields;
+    private byte[] lookBytes;
+    private HttpResponse.ResponseInfo lookInfo;
+    private ByteBuffer lookBuffer;
+    private List<ByteBuffer> lookChunks;
+    private HttpResponse.BodyHandler<?> wholeBody;
+    private HttpResponse.BodyHandler<?> droppedBody;
+
+    @Setup
+    public void setUp() throws Throwable {
+        // Request building never touches the HttpClient, so none is needed here.
+        client = newClient("http://localhost:8000", null);
+        setToken(client, "Zm9vYmFyYmF6cXV4cXV1eGNvcmdl");
+        lookFields = staticMethod("JsonReader", "fields", String[].class)
+                .invoke(new String[]{"description", "exits", "items"});
+        lookBytes = LOOK_RESPONSE.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+        HttpHeaders headers = HttpHeaders.of(Map.of("content-length", List.of(Integer.toString(lookBytes.length))),
+                (name, value) -> true);
+        lookInfo = new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+        lookBuffer = ByteBuffer.wrap(lookBytes);
+        lookChunks = List.of(lookBuffer);
+        wholeBody = (HttpResponse.BodyHandler<?>) staticMethod("ResponseBody", "whole").invoke();
+        droppedBody = (HttpResponse.BodyHandler<?>) staticMethod("ResponseBody", "fieldsOnly", type("JsonReader$Fields"))
+                .invoke((Object) null);
+    }
+
+    // --- Escaping and body building ---
+
+    @Benchmark
+    public String escapePlain() throws Throwable {
+        return (String) ESCAPE.invokeExact("looking around");
+    }
+
+    @Benchmark
+    public String escapeWithSpecials() throws Throwable {
+        return (String) ESCAPE.invokeExact("says \"hi\"\n\tand waves \\o/");
+    }
+
+    @Benchmark
+    public String userBody() throws Throwable {
+        return (String) USER_BODY.invokeExact("player_1700000000000", "password123");
+    }
+
+    @Benchmark
+    public String moveBody() throws Throwable {
+        return (String) MOVE_BODY.invokeExact("north");
+    }
+
+    @Benchmark
+    public String doingBody() throws Throwable {
+        return (String) DOING_BODY.invokeExact("looking around");
+    }
+
+    @Benchmark
+    public String useBody() throws Throwable {
+        return (String) USE_BODY.invokeExact("torch");
+    }
+
+    // --- Response parsing ---
+
+    @Benchmark
+    public void parseLook(Blackhole bh) throws Throwable {
+        bh.consume((String) PARSE.invokeExact(LOOK_RESPONSE, "description"));
+        bh.consume((String) PARSE.invokeExact(LOOK_RESPONSE, "exits"));
+        bh.consume((String) PARSE.invokeExact(LOOK_RESPONSE, "items"));
+    }
+
+    @Benchmark
+    public String[] parseLookFields() throws Throwable {
+        return (String[]) FIELDS_FROM_STRING.invokeExact(lookFields, LOOK_RESPONSE);
+    }
+
+    @Benchmark
+    public String[] parseLookFieldsUtf8() throws Throwable {
+        return (String[]) FIELDS_FROM_BYTES.invokeExact(lookFields, lookBytes);
+    }
+
+    @Benchmark
+    public String parseLogin() throws Throwable {
+        return (String) PARSE.invokeExact(LOGIN_RESPONSE, "session_token");
+    }
+
+    // --- Response reading (one /look body, as the HttpClient delivers it) ---
+
+    @Benchmark
+    public Object readLookOfByteArray() {
+        return read(HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Benchmark
+    public Object readLookWhole() {
+        return read(wholeBody);
+    }
+
+    /** What the int-returning calls do with a silent output sink: count the bytes, keep nothing. */
+    @Benchmark
+    public Object readLookDropped() {
+        return read(droppedBody);
+    }
+
+    private Object read(HttpResponse.BodyHandler<?> handler) {
+        HttpResponse.BodySubscriber<?> subscriber = handler.apply(lookInfo);
+        subscriber.onSubscribe(UNBOUNDED);
+        lookBuffer.rewind();
+        subscriber.onNext(lookChunks);
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    // --- Request construction ---
+
+    @Benchmark
+    public HttpRequest buildMoveRequest() throws Throwable {
+        return (HttpRequest) BUILD_POST.invokeExact(client, MOVE, (String) MOVE_BODY.invokeExact("north"));
+    }
+
+    @Benchmark
+    public HttpRequest buildLookRequest() throws Throwable {
+        return (HttpRequest) BUILD_GET.invokeExact(client, LOOK);
+    }
+
+    /** The prepared /move request the client actually sends for compass directions. */
+    @Benchmark
+    public HttpRequest preparedMoveRequest() throws Throwable {
+        return (HttpRequest) MOVE_REQUEST.invokeExact(client, "north");
+    }
+
+    /** The prepared /look request the client actually sends. */
+    @Benchmark
+    public HttpRequest preparedLookRequest() throws Throwable {
+        return (HttpRequest) LOOK_REQUEST.invokeExact(client);
+    }
+}
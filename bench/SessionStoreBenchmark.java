@@ -0,0 +1,56 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static bench.Targets.*;
+
+/**
+ * Measures session-token validation against a store holding a million sessions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+@State(Scope.Benchmark)
+public class SessionStoreBenchmark {
+
+    private static final MethodHandle ISSUE = instanceMethod("SessionStore", "issue", int.class);
+    private static final MethodHandle VALIDATE = instanceMethod("SessionStore", "validate", String.class);
+
+    @Param({"1000000"})
+    public int sessions;
+
+    private Object store;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() throws Throwable {
+        store = type("SessionStore").getConstructor(Duration.class).newInstance(Duration.ofMinutes(30));
+        tokens = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            tokens[i] = (String) ISSUE.invokeExact(store, i);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int validateOneThread() throws Throwable {
+        return validate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int validateFourThreads() throws Throwable {
+        return validate();
+    }
+
+    private int validate() throws Throwable {
+        return (int) VALIDATE.invokeExact(store, tokens[ThreadLocalRandom.current().nextInt(tokens.length)]);
+    }
+}
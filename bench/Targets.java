@@ -0,0 +1,79 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.http.HttpClient;
+
+/**
+ * Method handles onto the default-package classes under test.
+ *
+ * Benchmarks keep the handles in static final fields, so the JIT treats them
+ * as constants and invokeExact costs about the same as a direct call.
+ * Instances of the target classes are typed as Object.
+ */
+final class Targets {
+
+    private Targets() {
+    }
+
+    static Class<?> type(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static MethodHandle staticMethod(String className, String name, Class<?>... params) {
+        try {
+            Class<?> owner = type(className);
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findStatic(owner, name, MethodType.methodType(returnType(owner, name, params), params));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns a handle whose receiver, and any parameter typed as a
+     * default-package class, are typed as Object.
+     */
+    static MethodHandle instanceMethod(String className, String name, Class<?>... params) {
+        try {
+            Class<?> owner = type(className);
+            MethodHandle handle = MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findVirtual(owner, name, MethodType.methodType(returnType(owner, name, params), params));
+            MethodType visible = handle.type().changeParameterType(0, Object.class);
+            for (int i = 1; i < visible.parameterCount(); i++) {
+                if (visible.parameterType(i).getPackageName().isEmpty()) {
+                    visible = visible.changeParameterType(i, Object.class);
+                }
+            }
+            return handle.asType(visible);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return The constant of a default-package enum, e.g. enumConstant("MidsQuest$Endpoint", "LOOK").
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object enumConstant(String className, String name) {
+        return Enum.valueOf((Class) type(className), name);
+    }
+
+    static Object newClient(String apiBaseUrl, HttpClient httpClient) throws ReflectiveOperationException {
+        return type("MidsQuest").getConstructor(String.class, HttpClient.class).newInstance(apiBaseUrl, httpClient);
+    }
+
+    static void setToken(Object client, String token) throws Throwable {
+        instanceMethod("MidsQuest", "setToken", String.class).invoke(client, token);
+    }
+
+    private static Class<?> returnType(Class<?> owner, String name, Class<?>... params)
+            throws NoSuchMethodException {
+        return owner.getDeclaredMethod(name, params).getReturnType();
+    }
+}
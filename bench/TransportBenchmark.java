@@ -0,0 +1,124 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static bench.Targets.*;
+
+/**
+ * Compares HTTP/1.1 and HTTP/2 transports end to end: N logged-in sessions
+ * share one HttpClient and each sends a /doing update at once, against an
+ * embedded ServerModel on localhost. One operation is one such round; the
+ * "requests" and "errors" counters give the request rate directly.
+ *
+ * The embedded server is the JDK HttpServer, which has no h2c, so the HTTP/2
+ * runs measure the cost of the declined upgrade and then the same HTTP/1.1
+ * connections. Point the clients at an h2c-capable server to see multiplexing.
+ *
+ * Every parameter combination runs in its own fork, so each gets a fresh
+ * JVM-wide connection pool sized to its session count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+    private static final MethodHandle SET_DOING_ASYNC = instanceMethod("MidsQuest", "setDoingAsync", String.class);
+    private static final int LOGIN_BATCH = 500;
+
+    @Param({"HTTP_1_1", "HTTP_2"})
+    public HttpClient.Version version;
+
+    @Param({"100", "1000", "10000"})
+    public int sessions;
+
+    private Object server;
+    private ExecutorService executor;
+    private Object[] clients;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Class<?> serverModel = type("ServerModel");
+        server = serverModel.getConstructor().newInstance();
+        serverModel.getMethod("start", int.class).invoke(server, 0);
+        String baseUrl = (String) serverModel.getMethod("getBaseUrl").invoke(server);
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        Object config = type("TransportConfig").getConstructor().newInstance();
+        instanceMethod("TransportConfig", "version", HttpClient.Version.class).invoke(config, version);
+        instanceMethod("TransportConfig", "poolSize", int.class).invoke(config, sessions);
+        instanceMethod("TransportConfig", "executor", java.util.concurrent.Executor.class).invoke(config, executor);
+        HttpClient httpClient = (HttpClient) type("HttpClientFactory")
+                .getMethod("create", type("TransportConfig")).invoke(null, config);
+
+        Object quiet = type("OutputSink").getMethod("none").invoke(null);
+        MethodHandle setSink = instanceMethod("MidsQuest", "setOutputSink", type("OutputSink"));
+        MethodHandle createUser = instanceMethod("MidsQuest", "createUserAsync", String.class, String.class);
+        MethodHandle login = instanceMethod("MidsQuest", "loginAsync", String.class, String.class);
+        clients = new Object[sessions];
+        for (int i = 0; i < sessions; i++) {
+            clients[i] = newClient(baseUrl, httpClient);
+            setSink.invoke(clients[i], quiet);
+        }
+        // In batches, so setup never needs more connections than a round does
+        for (int from = 0; from < sessions; from += LOGIN_BATCH) {
+            int to = Math.min(sessions, from + LOGIN_BATCH);
+            CompletableFuture<?>[] pending = new CompletableFuture<?>[to - from];
+            for (int i = from; i < to; i++) {
+                Object client = clients[i];
+                String username = "bench_" + i;
+                pending[i - from] = ((CompletableFuture<?>) createUser.invoke(client, username, "pw"))
+                        .thenCompose(created -> {
+                            try {
+                                return (CompletableFuture<?>) login.invoke(client, username, "pw");
+                            } catch (Throwable e) {
+                                return CompletableFuture.failedFuture(e);
+                            }
+                        });
+            }
+            CompletableFuture.allOf(pending).join();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Throwable {
+        type("ServerModel").getMethod("stop").invoke(server);
+        executor.close();
+    }
+
+    /**
+     * Requests sent and requests that did not answer 200, per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long requests;
+        public long errors;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void concurrentRound(Counters counters) throws Throwable {
+        List<CompletableFuture<Integer>> pending = new ArrayList<>(clients.length);
+        for (Object client : clients) {
+            pending.add((CompletableFuture<Integer>) SET_DOING_ASYNC.invokeExact(client, "benchmarking"));
+        }
+        for (CompletableFuture<Integer> call : pending) {
+            if (call.exceptionally(failure -> 0).join() != 200) {
+                counters.errors++;
+            }
+        }
+        counters.requests += clients.length;
+    }
+}
@@ -0,0 +1,86 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static bench.Targets.*;
+
+/**
+ * Measures WorldEngine move and look throughput as threads are added. Each
+ * thread owns one player walking a small square on a 32x32 grid, so most moves
+ * touch different lock stripes and should scale with cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorldEngineBenchmark {
+
+    private static final MethodHandle GRID = staticMethod("WorldEngine", "grid", int.class, int.class, int.class);
+    private static final MethodHandle ADD_PLAYER = instanceMethod("WorldEngine", "addPlayer", String.class);
+    private static final MethodHandle MOVE = instanceMethod("WorldEngine", "move", int.class, String.class);
+    private static final MethodHandle LOOK = instanceMethod("WorldEngine", "look", int.class);
+
+    private static final String[] SQUARE = {"east", "north", "west", "south"};
+
+    private Object world;
+    private final AtomicInteger nextStart = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws Throwable {
+        world = GRID.invoke(32, 32, 1024);
+    }
+
+    @State(Scope.Thread)
+    public static class Walker {
+        int player;
+        int step;
+
+        @Setup
+        public void setUp(WorldEngineBenchmark bench) throws Throwable {
+            player = (int) ADD_PLAYER.invokeExact(bench.world, "walker" + bench.nextStart.getAndIncrement());
+            // Spread walkers over the grid so their squares do not overlap
+            for (int i = 0; i < player % 16; i++) {
+                MOVE.invoke(bench.world, player, "east");
+                MOVE.invoke(bench.world, player, "east");
+            }
+            for (int i = 0; i < player / 16 % 16; i++) {
+                MOVE.invoke(bench.world, player, "north");
+                MOVE.invoke(bench.world, player, "north");
+            }
+        }
+    }
+
+    private int move(Walker walker) throws Throwable {
+        return (int) MOVE.invokeExact(world, walker.player, SQUARE[walker.step++ & 3]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int moveOneThread(Walker walker) throws Throwable {
+        return move(walker);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public int moveTwoThreads(Walker walker) throws Throwable {
+        return move(walker);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int moveFourThreads(Walker walker) throws Throwable {
+        return move(walker);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String lookFourThreads(Walker walker) throws Throwable {
+        return (String) LOOK.invokeExact(world, walker.player);
+    }
+}
@@ -0,0 +1,27 @@
+#!/bin/bash
+set -e
+
+# Any extra arguments are passed to JMH, e.g. ./run-benchmarks.sh parseLook -f 2
+JMH_VERSION=1.37
+BENCH_LIBS=bench/libs
+MAVEN=https://repo1.maven.org/maven2
+
+fetch() {
+    if [ ! -f "$BENCH_LIBS/$(basename "$1")" ]; then
+        curl -sSfL -o "$BENCH_LIBS/$(basename "$1")" "$MAVEN/$1"
+    fi
+}
+
+echo "Fetching JMH"
+mkdir -p "$BENCH_LIBS"
+fetch org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar
+fetch org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar
+fetch net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar
+fetch org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar
+
+echo "Compiling"
+rm -rf bench/classes
+javac -cp "libs/*:$BENCH_LIBS/*" -d bench/classes *.java bench/*.java
+
+echo "Running benchmarks"
+java -cp "libs/*:$BENCH_LIBS/*:bench/classes" org.openjdk.jmh.Main -prof gc "$@"
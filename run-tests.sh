@@ -1,9 +1,15 @@
 #!/bin/bash
 set -e
 
+# Usage: ./run-tests.sh unit|it|perf
+# perf budgets can be overridden through JAVA_OPTS, e.g. JAVA_OPTS="-Dperf.look.minRps=2000"
+case "$1" in
+  unit|it|perf) ;;
+  *) echo "Usage: $0 unit|it|perf" >&2; exit 1 ;;
+esac
+
 echo "Compiling"
-javac -cp "libs/*:." MidsQuest.java MidsQuestTest.java
+javac -cp "libs/*:." *.java
 
 echo "Running tests"
-java -cp "libs/*:." org.junit.platform.console.ConsoleLauncher --scan-classpath --include-tag "$1"
-
+java $JAVA_OPTS -cp "libs/*:." org.junit.platform.console.ConsoleLauncher --scan-classpath --include-tag "$1"